@@ -11,6 +11,10 @@ import qupath.ui.logviewer.api.manager.LoggerManager;
  * <p>The {@link qupath.ui.logviewer.api.manager api.manager}
  * is the package that should be used by libraries implementing
  * a logging framework.</p>
+ *
+ * <p>The {@link qupath.ui.logviewer.api.dispatcher api.dispatcher}
+ * is an optional package that forwards log messages to a listener
+ * asynchronously.</p>
  */
 module qupath.ui.logviewer.api {
     uses LoggerManager;
@@ -20,4 +24,5 @@ module qupath.ui.logviewer.api {
     exports qupath.ui.logviewer.api;
     exports qupath.ui.logviewer.api.listener;
     exports qupath.ui.logviewer.api.manager;
+    exports qupath.ui.logviewer.api.dispatcher;
 }
\ No newline at end of file
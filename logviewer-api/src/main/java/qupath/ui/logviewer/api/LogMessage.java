@@ -2,11 +2,14 @@ package qupath.ui.logviewer.api;
 
 import org.slf4j.event.Level;
 
+import java.io.IOException;
 import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.text.Format;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 
 /**
  * A message logged by a logging framework.
@@ -27,6 +30,9 @@ public record LogMessage(
         Throwable throwable
 ) {
 
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("kk:mm:ss.");
+    private static volatile TimePrefix lastTimePrefix = new TimePrefix(Long.MIN_VALUE, "");
+
     /**
      * Parse the log message to a human-readable format, for example:
      * {@code 10:56:14.579  [JavaFX Application Thread] ERROR   io.github.qupath.logviewer.app.LogViewerApp Exception   java.lang.RuntimeException:...}
@@ -34,23 +40,122 @@ public record LogMessage(
      * @return the log message with a readable format
      */
     public String toReadableString() {
-        Format formatter = new SimpleDateFormat("kk:mm:ss.SS");
+        return appendTo(new StringBuilder()).toString();
+    }
 
-        String readableString =
-                formatter.format(new Date(timestamp())) + "\t"
-                + "[" + threadName + "]" + "\t"
-                + level + "\t"
-                + loggerName + "\t"
-                + message;
+    /**
+     * Append the log message to the provided builder in the format of {@link #toReadableString()}.
+     * <p>
+     * Unlike {@link #toReadableString()}, this doesn't create any intermediate string
+     * (except for the stack trace of the throwable), so it should be preferred when
+     * formatting many messages.
+     *
+     * @param builder  the builder to append the message to
+     * @return the provided builder
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        try {
+            appendTo((Appendable) builder);
+        } catch (IOException e) {
+            // A StringBuilder doesn't throw IOException
+            throw new UncheckedIOException(e);
+        }
+        return builder;
+    }
+
+    /**
+     * Append the log message to the provided appendable in the format of {@link #toReadableString()}.
+     *
+     * @param appendable  the appendable to append the message to
+     * @return the provided appendable
+     * @param <A>  the type of appendable
+     * @throws IOException when the appendable throws an IOException
+     */
+    public <A extends Appendable> A appendTo(A appendable) throws IOException {
+        appendable.append(getTimePrefix(timestamp));
+        int milliseconds = (int) Math.floorMod(timestamp, 1000L);
+        if (milliseconds >= 100) {
+            appendable.append((char) ('0' + milliseconds / 100));
+        }
+        appendable.append((char) ('0' + milliseconds / 10 % 10))
+                .append((char) ('0' + milliseconds % 10))
+                .append('\t')
+                .append('[').append(threadName).append(']').append('\t')
+                .append(String.valueOf(level)).append('\t')
+                .append(loggerName).append('\t')
+                .append(message);
 
         if (throwable != null) {
-            StringWriter sw = new StringWriter();
-            try (var pw = new PrintWriter(sw)) {
+            appendable.append('\t');
+            AppendableWriter writer = new AppendableWriter(appendable);
+            try (var pw = new PrintWriter(writer)) {
                 throwable.printStackTrace(pw);
             }
-            readableString += "\t" + sw;
+            if (writer.exception != null) {
+                throw writer.exception;
+            }
+        }
+        return appendable;
+    }
+
+    /**
+     * The formatted time of a timestamp without the milliseconds only changes every second, so the last one
+     * is cached. This gives the same result as formatting the timestamp with a
+     * {@code SimpleDateFormat("kk:mm:ss.SS")} in the default time zone.
+     */
+    private static String getTimePrefix(long timestamp) {
+        long second = Math.floorDiv(timestamp, 1000L);
+        TimePrefix timePrefix = lastTimePrefix;
+
+        if (timePrefix.second() != second) {
+            timePrefix = new TimePrefix(
+                    second,
+                    TIME_FORMATTER.format(Instant.ofEpochSecond(second).atZone(ZoneId.systemDefault()))
+            );
+            lastTimePrefix = timePrefix;
+        }
+        return timePrefix.prefix();
+    }
+
+    private record TimePrefix(long second, String prefix) {}
+
+    /**
+     * A writer appending to an appendable, and keeping the exception thrown by the appendable
+     * since a {@link PrintWriter} would hide it.
+     */
+    private static class AppendableWriter extends Writer {
+
+        private final Appendable appendable;
+        private IOException exception;
+
+        public AppendableWriter(Appendable appendable) {
+            this.appendable = appendable;
+        }
+
+        @Override
+        public void write(char[] characters, int offset, int length) throws IOException {
+            try {
+                appendable.append(CharBuffer.wrap(characters, offset, length));
+            } catch (IOException e) {
+                exception = e;
+                throw e;
+            }
         }
 
-        return readableString;
+        @Override
+        public void write(String string, int offset, int length) throws IOException {
+            try {
+                appendable.append(string, offset, offset + length);
+            } catch (IOException e) {
+                exception = e;
+                throw e;
+            }
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
     }
 }
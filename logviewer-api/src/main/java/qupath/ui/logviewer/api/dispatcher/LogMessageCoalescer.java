@@ -0,0 +1,117 @@
+package qupath.ui.logviewer.api.dispatcher;
+
+import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.api.listener.LoggerListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * A logger listener that groups log messages arriving in quick succession, and hands them in batches
+ * to a consumer running on a given executor (typically the JavaFX Application Thread, with
+ * {@code Platform::runLater}).
+ * <p>
+ * Messages are stored in a staging queue, which is drained by a single task on the executor: only one
+ * task is pending at any time, whatever the number of messages and of logging threads. The batches are
+ * limited in size, so that the executor keeps processing other tasks when messages arrive faster than
+ * the consumer can process them.
+ */
+public class LogMessageCoalescer implements LoggerListener {
+
+    /**
+     * The maximum size of a batch used when none is provided
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1 << 16;
+    private final Queue<LogMessage> pendingMessages = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final Executor executor;
+    private final int maxBatchSize;
+    private final Consumer<List<LogMessage>> consumer;
+
+    /**
+     * Creates a coalescer whose batches contain at most {@link #DEFAULT_MAX_BATCH_SIZE} messages.
+     *
+     * @param executor  the executor running the consumer
+     * @param consumer  the function receiving the batches of messages, in the order they were added
+     */
+    public LogMessageCoalescer(Executor executor, Consumer<List<LogMessage>> consumer) {
+        this(executor, DEFAULT_MAX_BATCH_SIZE, consumer);
+    }
+
+    /**
+     * Creates a coalescer.
+     *
+     * @param executor  the executor running the consumer
+     * @param maxBatchSize  the maximum number of messages given to the consumer at once
+     * @param consumer  the function receiving the batches of messages, in the order they were added
+     * @throws IllegalArgumentException when the maximum size of a batch is not strictly positive
+     */
+    public LogMessageCoalescer(Executor executor, int maxBatchSize, Consumer<List<LogMessage>> consumer) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException(String.format("The maximum size of a batch (%d) must be strictly positive", maxBatchSize));
+        }
+
+        this.executor = executor;
+        this.maxBatchSize = maxBatchSize;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Stage a log message, so that it is given to the consumer with the other messages
+     * staged until the executor runs the next drain. This can be called from any thread.
+     *
+     * @param logMessage  the new log message
+     */
+    @Override
+    public void addLogMessage(LogMessage logMessage) {
+        pendingMessages.add(logMessage);
+        scheduleDrain();
+    }
+
+    /**
+     * Stage several log messages. This can be called from any thread.
+     *
+     * @param logMessages  the new log messages
+     */
+    @Override
+    public void addLogMessages(List<LogMessage> logMessages) {
+        pendingMessages.addAll(logMessages);
+        scheduleDrain();
+    }
+
+    /**
+     * Discard the messages that were staged but not given to the consumer yet.
+     */
+    public void clear() {
+        pendingMessages.clear();
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        // Reset the flag before draining, so that a message staged during the drain schedules a new one
+        drainScheduled.set(false);
+
+        List<LogMessage> batch = new ArrayList<>();
+        LogMessage logMessage;
+        while (batch.size() < maxBatchSize && (logMessage = pendingMessages.poll()) != null) {
+            batch.add(logMessage);
+        }
+
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+        if (!pendingMessages.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+}
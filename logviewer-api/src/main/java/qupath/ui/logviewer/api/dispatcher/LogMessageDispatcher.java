@@ -0,0 +1,234 @@
+package qupath.ui.logviewer.api.dispatcher;
+
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.api.listener.LoggerListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A logger listener that forwards log messages to another listener asynchronously.
+ * <p>
+ * Log messages are stored in a bounded lock-free queue by the logging threads, and a single
+ * dispatcher thread drains this queue and forwards the messages in batches through
+ * {@link LoggerListener#addLogMessages(List) addLogMessages}. This way, logging threads don't
+ * have to wait for the listener to process the messages.
+ * <p>
+ * When the queue is full, the {@link OverflowPolicy} given at construction decides whether logging
+ * threads should wait or whether messages should be discarded. Discarded messages are counted,
+ * see {@link #getDroppedMessageCount()}.
+ * <p>
+ * A dispatcher can be used in place of any listener, for example:
+ * {@code loggerManager.addListener(new LogMessageDispatcher(listener))}.
+ * The same dispatcher instance must then be given to {@code removeListener}.
+ */
+public class LogMessageDispatcher implements LoggerListener, AutoCloseable {
+
+    /**
+     * The capacity used when none is provided
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int MAX_BATCH_SIZE = 1 << 14;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private final LoggerListener listener;
+    private final RingBuffer<LogMessage> buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final Level minimumLevel;
+    private final LongAdder droppedMessages = new LongAdder();
+    private final Thread dispatcherThread;
+    private volatile boolean waiting = false;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a dispatcher with a capacity of {@link #DEFAULT_CAPACITY} messages
+     * that blocks logging threads when its queue is full.
+     *
+     * @param listener  the listener to forward log messages to
+     */
+    public LogMessageDispatcher(LoggerListener listener) {
+        this(listener, DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Creates a dispatcher. If {@code overflowPolicy} is {@link OverflowPolicy#DROP_BELOW_LEVEL},
+     * messages less severe than {@link Level#WARN} are discarded when the queue is full.
+     *
+     * @param listener  the listener to forward log messages to
+     * @param capacity  the maximum number of messages waiting to be forwarded. It is rounded up to a power of two
+     * @param overflowPolicy  what to do when a message is logged while the queue is full
+     * @throws IllegalArgumentException when the capacity is not strictly positive or too large
+     */
+    public LogMessageDispatcher(LoggerListener listener, int capacity, OverflowPolicy overflowPolicy) {
+        this(listener, capacity, overflowPolicy, Level.WARN);
+    }
+
+    /**
+     * Creates a dispatcher.
+     *
+     * @param listener  the listener to forward log messages to
+     * @param capacity  the maximum number of messages waiting to be forwarded. It is rounded up to a power of two
+     * @param overflowPolicy  what to do when a message is logged while the queue is full
+     * @param minimumLevel  the least severe level that is never discarded when {@code overflowPolicy}
+     *                      is {@link OverflowPolicy#DROP_BELOW_LEVEL}. It is ignored by other policies
+     * @throws IllegalArgumentException when the capacity is not strictly positive or too large
+     */
+    public LogMessageDispatcher(LoggerListener listener, int capacity, OverflowPolicy overflowPolicy, Level minimumLevel) {
+        this.listener = listener;
+        this.buffer = new RingBuffer<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.minimumLevel = minimumLevel;
+
+        dispatcherThread = new Thread(this::dispatchMessages, "log-viewer-dispatcher");
+        dispatcherThread.setDaemon(true);
+        dispatcherThread.start();
+    }
+
+    /**
+     * Queue a log message so that it is forwarded later by the dispatcher thread.
+     * Depending on the overflow policy, this may wait for some space in the queue or discard a message.
+     *
+     * @param logMessage  the new log message
+     */
+    @Override
+    public void addLogMessage(LogMessage logMessage) {
+        if (closed) {
+            droppedMessages.increment();
+        } else if (buffer.offer(logMessage)) {
+            wakeUpDispatcher();
+        } else {
+            handleOverflow(logMessage);
+        }
+    }
+
+    /**
+     * Queue several log messages so that they are forwarded later by the dispatcher thread.
+     *
+     * @param logMessages  the new log messages
+     */
+    @Override
+    public void addLogMessages(List<LogMessage> logMessages) {
+        for (LogMessage logMessage: logMessages) {
+            addLogMessage(logMessage);
+        }
+    }
+
+    /**
+     * Returns the number of messages that were discarded, either because the queue was full
+     * or because they were logged after this dispatcher was closed.
+     * Messages that made the listener throw an exception are also counted.
+     *
+     * @return the number of discarded messages since the creation of this dispatcher
+     */
+    public long getDroppedMessageCount() {
+        return droppedMessages.sum();
+    }
+
+    /**
+     * @return the overflow policy of this dispatcher
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Stop this dispatcher. Messages already queued are still forwarded, but new messages are discarded.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(dispatcherThread);
+    }
+
+    private void handleOverflow(LogMessage logMessage) {
+        // The dispatcher thread would wait for itself, so it can never block
+        boolean canBlock = Thread.currentThread() != dispatcherThread;
+
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                if (canBlock) {
+                    waitUntilOffered(logMessage);
+                } else {
+                    droppedMessages.increment();
+                }
+            }
+            case DROP_NEWEST -> droppedMessages.increment();
+            case DROP_OLDEST -> {
+                while (!buffer.offer(logMessage)) {
+                    if (buffer.poll() != null) {
+                        droppedMessages.increment();
+                    }
+                }
+                wakeUpDispatcher();
+            }
+            case DROP_BELOW_LEVEL -> {
+                if (canBlock && logMessage.level().toInt() >= minimumLevel.toInt()) {
+                    waitUntilOffered(logMessage);
+                } else {
+                    droppedMessages.increment();
+                }
+            }
+        }
+    }
+
+    private void waitUntilOffered(LogMessage logMessage) {
+        do {
+            if (closed) {
+                droppedMessages.increment();
+                return;
+            }
+            LockSupport.unpark(dispatcherThread);
+            LockSupport.parkNanos(this, FULL_PARK_NANOS);
+        } while (!buffer.offer(logMessage));
+
+        wakeUpDispatcher();
+    }
+
+    private void wakeUpDispatcher() {
+        if (waiting) {
+            waiting = false;
+            LockSupport.unpark(dispatcherThread);
+        }
+    }
+
+    private void dispatchMessages() {
+        List<LogMessage> batch = new ArrayList<>();
+
+        while (true) {
+            LogMessage logMessage;
+            while (batch.size() < MAX_BATCH_SIZE && (logMessage = buffer.poll()) != null) {
+                batch.add(logMessage);
+            }
+
+            if (!batch.isEmpty()) {
+                forward(batch);
+                // The listener is allowed to keep a reference to the list, so a new one is needed
+                batch = new ArrayList<>();
+            } else if (closed) {
+                return;
+            } else {
+                // 'waiting' must be set before checking the buffer, so that a producer either
+                // sees the flag or its message is seen here
+                waiting = true;
+                if (buffer.isEmpty() && !closed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                waiting = false;
+            }
+        }
+    }
+
+    private void forward(List<LogMessage> batch) {
+        try {
+            listener.addLogMessages(batch);
+        } catch (RuntimeException e) {
+            // Logging the exception could lead to an infinite loop, and the dispatcher
+            // thread must stay alive so that logging threads are never blocked forever
+            droppedMessages.add(batch.size());
+        }
+    }
+}
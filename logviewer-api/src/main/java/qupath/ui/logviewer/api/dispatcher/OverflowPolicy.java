@@ -0,0 +1,30 @@
+package qupath.ui.logviewer.api.dispatcher;
+
+/**
+ * Indicates what a {@link LogMessageDispatcher} should do when a message is logged
+ * while its queue is full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * The logging thread waits until there is some space in the queue.
+     * No message is lost, but logging threads may be slowed down.
+     */
+    BLOCK,
+
+    /**
+     * The new message is discarded.
+     */
+    DROP_NEWEST,
+
+    /**
+     * The oldest message of the queue is discarded to make space for the new message.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The new message is discarded if its level is less severe than the minimum level
+     * of the dispatcher. Otherwise, the logging thread waits until there is some space in the queue.
+     */
+    DROP_BELOW_LEVEL
+}
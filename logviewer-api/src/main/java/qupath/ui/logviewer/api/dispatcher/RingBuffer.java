@@ -0,0 +1,116 @@
+package qupath.ui.logviewer.api.dispatcher;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free queue backed by an array whose size is a power of two.
+ * <p>
+ * Each slot carries a sequence number telling whether it is ready to be written or read,
+ * so several threads can add elements concurrently without locking. It is meant to be
+ * drained by a single consumer, but {@link #poll()} is also safe to call from producers
+ * (which is used to discard the oldest element when the queue is full).
+ *
+ * @param <E>  the type of elements held in this queue
+ */
+class RingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong(0);
+    private final AtomicLong head = new AtomicLong(0);
+
+    /**
+     * Creates an empty ring buffer.
+     *
+     * @param capacity  the minimum number of elements this buffer can hold. It is rounded up to a power of two
+     * @throws IllegalArgumentException when the capacity is not strictly positive or too large
+     */
+    public RingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+
+        mask = size - 1;
+        elements = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i=0; i<size; ++i) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return the maximum number of elements this buffer can hold
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Add an element at the end of the queue if there is some space.
+     *
+     * @param element  the element to add
+     * @return true if the element was added, false if the queue is full
+     */
+    public boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Remove the element at the head of the queue.
+     *
+     * @return the removed element, or null if the queue is empty
+     */
+    public E poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E element = elements.get(index);
+                    elements.lazySet(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return element;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * @return whether no element is ready to be read. Elements being added concurrently may be missed
+     */
+    public boolean isEmpty() {
+        long position = head.get();
+        return sequences.get((int) (position & mask)) - (position + 1) < 0;
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * Provides an optional asynchronous dispatcher that can be placed
+ * between a logging framework and a logger listener, so that logging
+ * threads don't have to wait for the listener, and a coalescer
+ * grouping log messages in batches processed on a single thread
+ * (for example the JavaFX Application Thread).
+ */
+package qupath.ui.logviewer.api.dispatcher;
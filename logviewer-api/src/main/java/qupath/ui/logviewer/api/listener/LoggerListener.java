@@ -2,6 +2,8 @@ package qupath.ui.logviewer.api.listener;
 
 import qupath.ui.logviewer.api.LogMessage;
 
+import java.util.List;
+
 /**
  * Interface for classes that listen to new log messages.
  */
@@ -14,4 +16,23 @@ public interface LoggerListener {
      * @param logMessage  the new log message
      */
     void addLogMessage(LogMessage logMessage);
+
+    /**
+     * Called when several messages are delivered at once.
+     * This function may be called from different threads.
+     * <p>
+     * The default implementation calls {@link #addLogMessage(LogMessage) addLogMessage}
+     * for each message. Implementations that can process several messages at a lower
+     * cost (for example by switching only once to the JavaFX Application Thread) should override it.
+     * <p>
+     * The caller must not modify the list once it has been passed to this function,
+     * so implementations are free to keep a reference to it.
+     *
+     * @param logMessages  the new log messages, in the order they were logged
+     */
+    default void addLogMessages(List<LogMessage> logMessages) {
+        for (LogMessage logMessage: logMessages) {
+            addLogMessage(logMessage);
+        }
+    }
 }
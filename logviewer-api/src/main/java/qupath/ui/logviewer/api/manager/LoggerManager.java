@@ -14,7 +14,8 @@ public interface LoggerManager {
 
     /**
      * Link this logger manager with a logger listener.
-     * Each new logged message should be forwarded to the logger listener via the {@link LoggerListener#addLogMessage(LogMessage) addLogMessage} function.
+     * Each new logged message should be forwarded to the logger listener via the {@link LoggerListener#addLogMessage(LogMessage) addLogMessage} function,
+     * or via the {@link LoggerListener#addLogMessages(java.util.List) addLogMessages} function when several messages are available at once.
      *
      * @param listener  the listener which will receive the logged messages
      */
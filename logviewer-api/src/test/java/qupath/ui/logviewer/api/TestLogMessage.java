@@ -0,0 +1,53 @@
+package qupath.ui.logviewer.api;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+public class TestLogMessage {
+
+    @Test
+    void Check_Readable_String_Format() {
+        for (long timestamp: new long[] {0, 5, 99, 100, 999, 1700000000007L, 1700000059999L, 1700000060000L, 1700043200123L}) {
+            LogMessage logMessage = new LogMessage("logger", timestamp, "thread", Level.WARN, "message", null);
+
+            assertEquals(
+                    new SimpleDateFormat("kk:mm:ss.SS").format(new Date(timestamp)) + "\t[thread]\tWARN\tlogger\tmessage",
+                    logMessage.toReadableString()
+            );
+        }
+    }
+
+    @Test
+    void Check_Stack_Trace_Appended() {
+        RuntimeException throwable = new RuntimeException("error");
+        LogMessage logMessage = new LogMessage("logger", 0, "thread", Level.ERROR, "message", throwable);
+        StringWriter stackTrace = new StringWriter();
+        try (var pw = new PrintWriter(stackTrace)) {
+            throwable.printStackTrace(pw);
+        }
+
+        String readableString = logMessage.toReadableString();
+
+        assertTrue(readableString.endsWith("\tERROR\tlogger\tmessage\t" + stackTrace));
+    }
+
+    @Test
+    void Check_Appended_To_Existing_Content() {
+        LogMessage logMessage = new LogMessage("logger", 0, "thread", Level.INFO, "message", null);
+        StringBuilder builder = new StringBuilder("start ");
+
+        logMessage.appendTo(builder).append('\n');
+
+        assertEquals("start " + logMessage.toReadableString() + "\n", builder.toString());
+    }
+}
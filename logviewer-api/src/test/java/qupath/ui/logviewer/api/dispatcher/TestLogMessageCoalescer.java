@@ -0,0 +1,98 @@
+package qupath.ui.logviewer.api.dispatcher;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+public class TestLogMessageCoalescer {
+
+    @Test
+    void Check_Messages_Given_In_One_Batch() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        List<List<Integer>> batches = new ArrayList<>();
+        LogMessageCoalescer coalescer = new LogMessageCoalescer(tasks::add, batch -> batches.add(toIndices(batch)));
+
+        coalescer.addLogMessage(createMessage(0));
+        coalescer.addLogMessages(List.of(createMessage(1), createMessage(2)));
+        coalescer.addLogMessage(createMessage(3));
+        int numberOfTasks = tasks.size();
+        runAll(tasks);
+
+        assertEquals(1, numberOfTasks);
+        assertEquals(List.of(List.of(0, 1, 2, 3)), batches);
+    }
+
+    @Test
+    void Check_Batches_Limited_In_Size() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        List<List<Integer>> batches = new ArrayList<>();
+        LogMessageCoalescer coalescer = new LogMessageCoalescer(tasks::add, 2, batch -> batches.add(toIndices(batch)));
+
+        coalescer.addLogMessages(IntStream.range(0, 5).mapToObj(TestLogMessageCoalescer::createMessage).toList());
+        runAll(tasks);
+
+        assertEquals(List.of(List.of(0, 1), List.of(2, 3), List.of(4)), batches);
+    }
+
+    @Test
+    void Check_Messages_Added_During_Drain_Given_Later() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        List<List<Integer>> batches = new ArrayList<>();
+        LogMessageCoalescer[] coalescer = new LogMessageCoalescer[1];
+        coalescer[0] = new LogMessageCoalescer(tasks::add, batch -> {
+            batches.add(toIndices(batch));
+            if (batches.size() == 1) {
+                coalescer[0].addLogMessage(createMessage(1));
+            }
+        });
+
+        coalescer[0].addLogMessage(createMessage(0));
+        runAll(tasks);
+
+        assertEquals(List.of(List.of(0), List.of(1)), batches);
+    }
+
+    @Test
+    void Check_Staged_Messages_Discarded_When_Cleared() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        List<List<Integer>> batches = new ArrayList<>();
+        LogMessageCoalescer coalescer = new LogMessageCoalescer(tasks::add, batch -> batches.add(toIndices(batch)));
+
+        coalescer.addLogMessage(createMessage(0));
+        coalescer.clear();
+        runAll(tasks);
+
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    void Check_Invalid_Batch_Size_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new LogMessageCoalescer(Runnable::run, 0, batch -> {}));
+    }
+
+    private static void runAll(Queue<Runnable> tasks) {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static List<Integer> toIndices(List<LogMessage> logMessages) {
+        return logMessages.stream().map(logMessage -> (int) logMessage.timestamp()).toList();
+    }
+
+    private static LogMessage createMessage(int index) {
+        return new LogMessage("", index, "", Level.INFO, "", null);
+    }
+}
@@ -0,0 +1,154 @@
+package qupath.ui.logviewer.api.dispatcher;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.api.listener.LoggerListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+public class TestLogMessageDispatcher {
+
+    @Test
+    void Check_Messages_Forwarded_In_Order() throws InterruptedException {
+        int N = 1000;
+        CountDownLatch latch = new CountDownLatch(N);
+        List<LogMessage> received = Collections.synchronizedList(new ArrayList<>());
+        LoggerListener listener = logMessage -> {
+            received.add(logMessage);
+            latch.countDown();
+        };
+
+        try (LogMessageDispatcher dispatcher = new LogMessageDispatcher(listener)) {
+            for (int i=0; i<N; ++i) {
+                dispatcher.addLogMessage(createMessage(i, Level.INFO));
+            }
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        }
+        assertEquals(IntStream.range(0, N).boxed().toList(), received.stream().map(m -> (int) m.timestamp()).toList());
+    }
+
+    @Test
+    void Check_Messages_Forwarded_From_Different_Threads() throws InterruptedException {
+        int N = 10000;
+        CountDownLatch latch = new CountDownLatch(N);
+
+        try (LogMessageDispatcher dispatcher = new LogMessageDispatcher(logMessage -> latch.countDown(), 16, OverflowPolicy.BLOCK)) {
+            IntStream.range(0, N)
+                    .parallel()
+                    .forEach(i -> dispatcher.addLogMessage(createMessage(i, Level.INFO)));
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertEquals(0, dispatcher.getDroppedMessageCount());
+        }
+    }
+
+    @Test
+    void Check_Newest_Messages_Dropped_When_Full() throws InterruptedException {
+        BlockingListener listener = new BlockingListener();
+
+        try (LogMessageDispatcher dispatcher = new LogMessageDispatcher(listener, 4, OverflowPolicy.DROP_NEWEST)) {
+            dispatcher.addLogMessage(createMessage(0, Level.INFO));
+            listener.awaitFirstBatch();
+            for (int i=1; i<=7; ++i) {
+                dispatcher.addLogMessage(createMessage(i, Level.INFO));
+            }
+
+            assertEquals(3, dispatcher.getDroppedMessageCount());
+            assertEquals(List.of(0, 1, 2, 3, 4), listener.releaseAndCollect(5));
+        }
+    }
+
+    @Test
+    void Check_Oldest_Messages_Dropped_When_Full() throws InterruptedException {
+        BlockingListener listener = new BlockingListener();
+
+        try (LogMessageDispatcher dispatcher = new LogMessageDispatcher(listener, 4, OverflowPolicy.DROP_OLDEST)) {
+            dispatcher.addLogMessage(createMessage(0, Level.INFO));
+            listener.awaitFirstBatch();
+            for (int i=1; i<=7; ++i) {
+                dispatcher.addLogMessage(createMessage(i, Level.INFO));
+            }
+
+            assertEquals(3, dispatcher.getDroppedMessageCount());
+            assertEquals(List.of(0, 4, 5, 6, 7), listener.releaseAndCollect(5));
+        }
+    }
+
+    @Test
+    void Check_Messages_Below_Level_Dropped_When_Full() throws InterruptedException {
+        BlockingListener listener = new BlockingListener();
+
+        try (LogMessageDispatcher dispatcher = new LogMessageDispatcher(listener, 4, OverflowPolicy.DROP_BELOW_LEVEL, Level.WARN)) {
+            dispatcher.addLogMessage(createMessage(0, Level.INFO));
+            listener.awaitFirstBatch();
+            for (int i=1; i<=4; ++i) {
+                dispatcher.addLogMessage(createMessage(i, Level.INFO));
+            }
+            dispatcher.addLogMessage(createMessage(5, Level.DEBUG));
+            dispatcher.addLogMessage(createMessage(6, Level.TRACE));
+
+            assertEquals(2, dispatcher.getDroppedMessageCount());
+            assertEquals(List.of(0, 1, 2, 3, 4), listener.releaseAndCollect(5));
+        }
+    }
+
+    @Test
+    void Check_Messages_Dropped_After_Close() {
+        LogMessageDispatcher dispatcher = new LogMessageDispatcher(logMessage -> {});
+        dispatcher.close();
+
+        dispatcher.addLogMessage(createMessage(0, Level.ERROR));
+
+        assertEquals(1, dispatcher.getDroppedMessageCount());
+    }
+
+    private static LogMessage createMessage(int index, Level level) {
+        return new LogMessage("", index, "", level, "", null);
+    }
+
+    /**
+     * Listener that blocks the dispatcher thread on the first batch until it is released.
+     */
+    private static class BlockingListener implements LoggerListener {
+
+        private final CountDownLatch firstBatchReceived = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final List<LogMessage> received = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void addLogMessage(LogMessage logMessage) {
+            received.add(logMessage);
+            firstBatchReceived.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        public void awaitFirstBatch() throws InterruptedException {
+            assertTrue(firstBatchReceived.await(10, TimeUnit.SECONDS));
+        }
+
+        public List<Integer> releaseAndCollect(int expectedSize) throws InterruptedException {
+            released.countDown();
+            long deadline = System.currentTimeMillis() + 10000;
+            while (received.size() < expectedSize && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            return received.stream().map(m -> (int) m.timestamp()).toList();
+        }
+    }
+}
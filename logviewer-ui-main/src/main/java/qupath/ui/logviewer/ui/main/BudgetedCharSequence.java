@@ -0,0 +1,96 @@
+package qupath.ui.logviewer.ui.main;
+
+import qupath.ui.logviewer.ui.main.store.EvaluationAbortedException;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A view on a string that limits the time a regular expression can spend reading it.
+ * <p>
+ * Matching a normal regular expression reads each character a few times, so the time is only measured
+ * once the number of characters read is much larger than the length of the string, which happens with
+ * catastrophic backtracking (e.g. {@code (a+)+$}). From then on, the time is checked regularly, and an
+ * {@link EvaluationAbortedException} is thrown if the time spent on the current string exceeds the
+ * per-message budget, or if the time spent on all expensive strings of the query exceeds the
+ * per-query budget shared by all instances created for that query.
+ * <p>
+ * Instances are mutable (see {@link #reset(String)}) and must be used by a single thread.
+ */
+final class BudgetedCharSequence implements CharSequence {
+
+    private static final int READS_PER_CHARACTER = 16;
+    private static final int CHECK_INTERVAL = 1024;
+    private final long maxNanosPerMessage;
+    private final AtomicLong remainingQueryNanos;
+    private String string = "";
+    private long reads;
+    private long readsBeforeCheck;
+    private boolean measuring;
+    private long startNanos;
+    private long lastCheckNanos;
+
+    /**
+     * Create a view on an empty string.
+     *
+     * @param maxNanosPerMessage  the maximal time (in nanoseconds) that can be spent on one string
+     * @param remainingQueryNanos  the time (in nanoseconds) that can still be spent on all strings of the query.
+     *                             It is decreased as expensive strings are read
+     */
+    public BudgetedCharSequence(long maxNanosPerMessage, AtomicLong remainingQueryNanos) {
+        this.maxNanosPerMessage = maxNanosPerMessage;
+        this.remainingQueryNanos = remainingQueryNanos;
+    }
+
+    /**
+     * Make this instance a view on another string, with a new per-message budget.
+     *
+     * @param string  the string to view
+     * @return this instance
+     */
+    public BudgetedCharSequence reset(String string) {
+        this.string = string;
+        reads = 0;
+        readsBeforeCheck = (long) READS_PER_CHARACTER * string.length() + CHECK_INTERVAL;
+        measuring = false;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return string.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (++reads > readsBeforeCheck) {
+            checkBudget();
+        }
+        return string.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return string.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return string;
+    }
+
+    private void checkBudget() {
+        readsBeforeCheck = reads + CHECK_INTERVAL;
+        long now = System.nanoTime();
+
+        if (!measuring) {
+            measuring = true;
+            startNanos = now;
+        } else {
+            long remaining = remainingQueryNanos.addAndGet(-(now - lastCheckNanos));
+            if (now - startNanos > maxNanosPerMessage || remaining < 0) {
+                throw new EvaluationAbortedException("The regular expression is too expensive to evaluate");
+            }
+        }
+        lastCheckNanos = now;
+    }
+}
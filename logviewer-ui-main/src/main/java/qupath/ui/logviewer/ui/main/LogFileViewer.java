@@ -0,0 +1,280 @@
+package qupath.ui.logviewer.ui.main;
+
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.layout.BorderPane;
+import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.ui.main.cellfactories.CompactTableCell;
+import qupath.ui.logviewer.ui.main.cellfactories.GenericTableCell;
+import qupath.ui.logviewer.ui.main.cellfactories.LogLevelTableCell;
+import qupath.ui.logviewer.ui.main.cellfactories.TableRowTableCell;
+import qupath.ui.logviewer.ui.main.file.LogFileList;
+import qupath.ui.logviewer.ui.main.file.LogLayoutParser;
+import qupath.ui.logviewer.ui.main.file.LogLineParser;
+import qupath.ui.logviewer.ui.main.file.MappedLogFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DateFormat;
+import java.text.MessageFormat;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A read-only view of a log file, which can be much larger than the available memory.
+ * <p>
+ * The file is memory-mapped and its lines are indexed in the background when this viewer is created
+ * (see {@link MappedLogFile}). The layout pattern used to write the file is then detected among the
+ * {@link LogLayoutParser#PRESETS}, and can be changed by the user, in which case the lines starting
+ * a message are searched again in the background. Messages are only parsed when they are displayed.
+ * {@link #close()} should be called when this viewer is not used anymore.
+ */
+public class LogFileViewer extends BorderPane {
+
+    private static final DateFormat TIMESTAMP_FORMAT = new SimpleDateFormat(System.getProperty("timestamp.format", "HH:mm:ss"));
+    private static final ResourceBundle resources = ResourceBundle.getBundle("qupath.ui.logviewer.ui.main.strings");
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-viewer-file");
+        thread.setDaemon(true);
+        return thread;
+    });
+    @FXML
+    private TableView<LogMessage> tableViewLog;
+    @FXML
+    private TableColumn<LogMessage, LogMessage> colRow;
+    @FXML
+    private TableColumn<LogMessage, LogMessage> colLevel;
+    @FXML
+    private TableColumn<LogMessage, LogMessage> colTimestamp;
+    @FXML
+    private TableColumn<LogMessage, LogMessage> colThread;
+    @FXML
+    private TableColumn<LogMessage, LogMessage> colLogger;
+    @FXML
+    private TableColumn<LogMessage, LogMessage> colMessage;
+    @FXML
+    private ComboBox<String> layoutPattern;
+    @FXML
+    private Label messageCount;
+    @FXML
+    private ProgressBar indexProgress;
+    @FXML
+    private Label status;
+    private final Path path;
+    private final Task<MappedLogFile> openTask;
+    private MappedLogFile file = null;
+    private Task<LogFileList> readTask = null;
+    private boolean updatingLayout = false;
+    private boolean closed = false;
+
+    /**
+     * Creates a viewer of a log file, and start indexing the file in the background.
+     *
+     * @param path  the path of the file to view
+     * @throws IOException if an error occurs when loading the FXML file containing the UI
+     */
+    public LogFileViewer(Path path) throws IOException {
+        this.path = path;
+
+        var url = LogFileViewer.class.getResource("log-file-viewer.fxml");
+        FXMLLoader loader = new FXMLLoader(url, resources);
+        loader.setRoot(this);
+        loader.setController(this);
+        loader.load();
+
+        openTask = new Task<>() {
+            @Override
+            protected MappedLogFile call() throws IOException {
+                return new MappedLogFile(path, progress -> updateProgress(progress, 1));
+            }
+        };
+        showProgress(openTask);
+        openTask.setOnSucceeded(event -> onFileOpened(openTask.getValue()));
+        openTask.setOnFailed(event -> status.setText(MessageFormat.format(
+                resources.getString("FileViewer.openFailed"),
+                path.getFileName(),
+                openTask.getException().getLocalizedMessage()
+        )));
+        executor.execute(openTask);
+    }
+
+    /**
+     * @return the path of the file viewed
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Get the TableView used to display logs.
+     * Each colum can be identified by its id.
+     *
+     * @return the TableView
+     */
+    public TableView<LogMessage> getTable() {
+        return tableViewLog;
+    }
+
+    /**
+     * Stop indexing the file if it is still being indexed, and release the file.
+     * Nothing is displayed after this call.
+     */
+    public void close() {
+        closed = true;
+        openTask.cancel();
+        if (readTask != null) {
+            readTask.cancel();
+        }
+        tableViewLog.setItems(FXCollections.observableArrayList());
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    @FXML
+    private void initialize() {
+        tableViewLog.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+
+        colRow.setCellValueFactory(LogFileViewer::cellValueFactory);
+        colLevel.setCellValueFactory(LogFileViewer::cellValueFactory);
+        colThread.setCellValueFactory(LogFileViewer::cellValueFactory);
+        colLogger.setCellValueFactory(LogFileViewer::cellValueFactory);
+        colTimestamp.setCellValueFactory(LogFileViewer::cellValueFactory);
+        colMessage.setCellValueFactory(LogFileViewer::cellValueFactory);
+
+        colRow.setCellFactory(column -> new TableRowTableCell(logMessage -> ""));
+        colLevel.setCellFactory(column -> new LogLevelTableCell(logMessage -> String.valueOf(logMessage.level())));
+        colLogger.setCellFactory(column -> new CompactTableCell(LogMessage::loggerName, "."));
+        colThread.setCellFactory(column -> new GenericTableCell(LogMessage::threadName));
+        // Parsers set the timestamp to 0 when the line doesn't contain one
+        colTimestamp.setCellFactory(column -> new GenericTableCell(logMessage ->
+                logMessage.timestamp() == 0 ? "" : TIMESTAMP_FORMAT.format(new Date(logMessage.timestamp()))
+        ));
+        colMessage.setCellFactory(column -> new GenericTableCell(LogMessage::message));
+    }
+
+    @FXML
+    private void copySelectedLines() {
+        if (!tableViewLog.getSelectionModel().getSelectedItems().isEmpty()) {
+            StringBuilder sb = new StringBuilder();
+            for (LogMessage logMessage : tableViewLog.getSelectionModel().getSelectedItems()) {
+                logMessage.appendTo(sb);
+                sb.append(System.lineSeparator());
+            }
+
+            ClipboardContent content = new ClipboardContent();
+            content.putString(sb.toString());
+            Clipboard.getSystemClipboard().setContent(content);
+        }
+    }
+
+    @FXML
+    private void onLayoutChanged() {
+        if (!updatingLayout && file != null) {
+            readMessages(layoutPattern.getValue(), false);
+        }
+    }
+
+    private void onFileOpened(MappedLogFile file) {
+        if (closed) {
+            file.close();
+            return;
+        }
+
+        this.file = file;
+        layoutPattern.getItems().setAll(LogLayoutParser.PRESETS);
+        readMessages(null, true);
+    }
+
+    /**
+     * Find the messages of the file in the background, replacing the current messages once done.
+     *
+     * @param pattern  the layout pattern of the file, or null or blank to have one message per line
+     * @param detectPattern  whether to ignore the provided pattern and detect it instead
+     */
+    private void readMessages(String pattern, boolean detectPattern) {
+        if (readTask != null) {
+            readTask.cancel();
+        }
+
+        MappedLogFile file = this.file;
+        Task<LogFileList> task = new Task<>() {
+            @Override
+            protected LogFileList call() throws IOException {
+                // Patterns without date give the time of the day, which is likely to be the day the file was last written
+                LocalDate defaultDate = LocalDate.ofInstant(Files.getLastModifiedTime(path).toInstant(), ZoneId.systemDefault());
+                String layout = detectPattern ? LogLayoutParser.detectPattern(file, defaultDate) : pattern;
+                LogLineParser parser = layout == null || layout.isBlank() ?
+                        LogLineParser.PLAIN :
+                        LogLayoutParser.compile(layout, defaultDate);
+
+                return new LogFileList(file, parser, progress -> {
+                    if (isCancelled()) {
+                        throw new CancellationException();
+                    }
+                    updateProgress(progress, 1);
+                });
+            }
+        };
+        showProgress(task);
+        task.setOnSucceeded(event -> onMessagesRead(task.getValue()));
+        task.setOnFailed(event -> {
+            if (!closed) {
+                status.setText(task.getException() instanceof IllegalArgumentException ?
+                        MessageFormat.format(resources.getString("FileViewer.invalidLayout"), task.getException().getLocalizedMessage()) :
+                        MessageFormat.format(resources.getString("FileViewer.openFailed"), path.getFileName(), task.getException().getLocalizedMessage())
+                );
+            }
+        });
+        readTask = task;
+        executor.execute(task);
+    }
+
+    private void onMessagesRead(LogFileList logFileList) {
+        if (closed) {
+            return;
+        }
+
+        tableViewLog.setItems(logFileList);
+        status.setText("");
+
+        updatingLayout = true;
+        layoutPattern.setValue(logFileList.getParser() instanceof LogLayoutParser parser ? parser.getPattern() : null);
+        updatingLayout = false;
+
+        if (logFileList.size() == 1) {
+            messageCount.setText(resources.getString("FileViewer.1Message"));
+        } else {
+            messageCount.setText(MessageFormat.format(resources.getString("FileViewer.XMessages"), logFileList.size()));
+        }
+    }
+
+    private void showProgress(Task<?> task) {
+        indexProgress.progressProperty().bind(task.progressProperty());
+        indexProgress.visibleProperty().bind(task.runningProperty());
+        indexProgress.managedProperty().bind(task.runningProperty());
+    }
+
+    private static ObjectProperty<LogMessage> cellValueFactory(TableColumn.CellDataFeatures<LogMessage, LogMessage> cellData) {
+        return new SimpleObjectProperty<>(cellData.getValue());
+    }
+}
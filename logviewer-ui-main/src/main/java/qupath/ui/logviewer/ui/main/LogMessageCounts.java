@@ -1,17 +1,31 @@
 package qupath.ui.logviewer.ui.main;
 
 import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.ui.main.store.FilteredLogList;
+import qupath.ui.logviewer.ui.main.store.LogRowList;
+import qupath.ui.logviewer.ui.main.store.LogStore;
 import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyIntegerProperty;
 import javafx.beans.property.ReadOnlyIntegerWrapper;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import org.slf4j.event.Level;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Counts the number of LogMessage of each level of an <a href="https://docs.oracle.com/javase/8/javafx/api/javafx/collections/ObservableList.html">ObservableList</a>.
+ * <p>
+ * Counts are accumulated for each change of the list, and the properties are updated later on the
+ * JavaFX Application Thread, at most once per pulse no matter how many changes occurred in between.
  */
 public class LogMessageCounts {
 
+    private static final Level[] LEVELS = Level.values();
+    private final LongAdder[] counts = new LongAdder[LEVELS.length];
+    private final AtomicBoolean updateScheduled = new AtomicBoolean(false);
     private final ReadOnlyIntegerWrapper allMessagesCount = new ReadOnlyIntegerWrapper(0);
     private final ReadOnlyIntegerWrapper errorLevelCount = new ReadOnlyIntegerWrapper(0);
     private final ReadOnlyIntegerWrapper warnLevelCount = new ReadOnlyIntegerWrapper(0);
@@ -26,19 +40,38 @@ public class LogMessageCounts {
      * @param messages  the messages to count
      */
     public LogMessageCounts(ObservableList<LogMessage> messages) {
-        for (LogMessage logMessage: messages) {
-            countMessage(logMessage, Operation.INCREASE);
+        for (int i=0; i<counts.length; ++i) {
+            counts[i] = new LongAdder();
+        }
+
+        int[] deltas = new int[LEVELS.length];
+        for (int i=0; i<messages.size(); ++i) {
+            deltas[getLevel(messages, i).ordinal()]++;
         }
+        applyDeltas(deltas);
 
         messages.addListener((ListChangeListener<? super LogMessage>) change -> {
+            if (change.getList().isEmpty()) {
+                // All messages were removed, so there is no need to look at them
+                reset();
+                return;
+            }
+
+            int[] changeDeltas = new int[LEVELS.length];
             while (change.next()) {
                 if (change.wasAdded()) {
-                    change.getAddedSubList().forEach(logMessage -> countMessage(logMessage, Operation.INCREASE));
+                    for (int i=change.getFrom(); i<change.getTo(); ++i) {
+                        changeDeltas[getLevel(change.getList(), i).ordinal()]++;
+                    }
                 }
                 if (change.wasRemoved()) {
-                    change.getRemoved().forEach(logMessage -> countMessage(logMessage, Operation.DECREASE));
+                    List<? extends LogMessage> removed = change.getRemoved();
+                    for (int i=0; i<removed.size(); ++i) {
+                        changeDeltas[getLevel(removed, i).ordinal()]--;
+                    }
                 }
             }
+            applyDeltas(changeDeltas);
         });
     }
 
@@ -66,32 +99,60 @@ public class LogMessageCounts {
         return traceLevelCount.getReadOnlyProperty();
     }
 
-    private void countMessage(LogMessage logMessage, Operation operation) {
-        if (Platform.isFxApplicationThread()) {
-            modifyCounter(allMessagesCount, operation);
-
-            modifyCounter(switch (logMessage.level()) {
-                case ERROR -> errorLevelCount;
-                case WARN -> warnLevelCount;
-                case INFO -> infoLevelCount;
-                case DEBUG -> debugLevelCount;
-                case TRACE -> traceLevelCount;
-            }, operation);
+    /**
+     * Get the level of a message. Lists storing messages in columns can give it without creating the message.
+     */
+    private static Level getLevel(List<? extends LogMessage> messages, int index) {
+        if (messages instanceof LogStore logStore) {
+            return logStore.getLevel(index);
+        } else if (messages instanceof FilteredLogList filteredLogList) {
+            return filteredLogList.getLevel(index);
+        } else if (messages instanceof LogRowList logRowList) {
+            return logRowList.getLevel(index);
         } else {
-            Platform.runLater(() -> countMessage(logMessage, operation));
+            return messages.get(index).level();
+        }
+    }
+
+    private void applyDeltas(int[] deltas) {
+        for (int i=0; i<deltas.length; ++i) {
+            if (deltas[i] != 0) {
+                counts[i].add(deltas[i]);
+            }
         }
+        scheduleUpdate();
     }
-    
-    private void modifyCounter(ReadOnlyIntegerWrapper counter, Operation operation) {
-        int delta = switch (operation) {
-            case INCREASE -> 1;
-            case DECREASE -> -1;
-        };
-        counter.set(counter.get() + delta);
+
+    private void reset() {
+        for (LongAdder count: counts) {
+            count.reset();
+        }
+        scheduleUpdate();
+    }
+
+    private void scheduleUpdate() {
+        if (updateScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::updateProperties);
+        }
     }
 
-    private enum Operation {
-        INCREASE,
-        DECREASE
+    private void updateProperties() {
+        // Reset the flag first, so that counts changed while updating trigger another update
+        updateScheduled.set(false);
+
+        long total = 0;
+        for (Level level: LEVELS) {
+            int count = (int) counts[level.ordinal()].sum();
+            total += count;
+
+            switch (level) {
+                case ERROR -> errorLevelCount.set(count);
+                case WARN -> warnLevelCount.set(count);
+                case INFO -> infoLevelCount.set(count);
+                case DEBUG -> debugLevelCount.set(count);
+                case TRACE -> traceLevelCount.set(count);
+            }
+        }
+        allMessagesCount.set((int) total);
     }
 }
@@ -1,7 +1,13 @@
 package qupath.ui.logviewer.ui.main;
 
 import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.ui.main.store.EvaluationAbortedException;
+import qupath.ui.logviewer.ui.main.store.LogRowPredicate;
+import qupath.ui.logviewer.ui.main.store.LogRows;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.function.Predicate;
 import java.util.regex.PatternSyntaxException;
@@ -12,6 +18,9 @@ import java.util.regex.PatternSyntaxException;
  */
 final class LogMessagePredicates {
 
+    private static final long MAX_REGEX_NANOS_PER_MESSAGE = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MAX_REGEX_NANOS_PER_QUERY = TimeUnit.SECONDS.toNanos(1);
+
     private LogMessagePredicates() {}
 
     /**
@@ -21,14 +30,87 @@ final class LogMessagePredicates {
      * @return the predicate that filters {@code LogMessage} based on the regular expression
      */
     public static Predicate<LogMessage> createPredicateFromRegex(String regex) {
+        Predicate<String> messagePredicate = createMessagePredicateFromRegex(regex);
+        return logMessage -> messagePredicate.test(logMessage.message());
+    }
+
+    /**
+     * Creates a {@code Predicate} that filters messages (the {@code message} property of a {@code LogMessage})
+     * that don't match the regular expression {@code regex}. Null messages only pass if {@code regex} is empty.
+     * <p>
+     * If the regular expression requires a literal (see {@link RegexLiterals}), messages that don't contain it
+     * are rejected with a substring search, without running the regular expression. Each thread evaluating the
+     * predicate reuses the same {@code Matcher}.
+     * <p>
+     * Messages are read through a {@link BudgetedCharSequence}, so that a regular expression backtracking
+     * catastrophically can't hang the application: the predicate throws an {@link EvaluationAbortedException}
+     * when it spends too long on a message, or on all messages it was evaluated on.
+     *
+     * @param regex  the regular expression
+     * @return the predicate that filters messages based on the regular expression
+     */
+    public static Predicate<String> createMessagePredicateFromRegex(String regex) {
+        return createMessagePredicateFromRegex(regex, new AtomicLong(MAX_REGEX_NANOS_PER_QUERY));
+    }
+
+    /**
+     * Creates a {@code LogRowPredicate} that filters messages of a store that don't match the regular expression
+     * {@code regex}, like {@link #createMessagePredicateFromRegex(String)}.
+     * <p>
+     * The time budget shared by all messages is reset each time the predicate is evaluated on a set of messages
+     * (see {@link LogRowPredicate#onEvaluationStart()}), so that it still applies to messages appended long after
+     * the predicate was created. The required literal of the regular expression (if any) is attached as required
+     * text (see {@link LogRowPredicate#getRequiredText()}), which allows using an index.
+     *
+     * @param regex  the regular expression
+     * @return the predicate that filters messages of a store based on the regular expression
+     */
+    public static LogRowPredicate createRowPredicateFromRegex(String regex) {
+        AtomicLong remainingQueryNanos = new AtomicLong(MAX_REGEX_NANOS_PER_QUERY);
+        Predicate<String> messagePredicate = createMessagePredicateFromRegex(regex, remainingQueryNanos);
+        String requiredLiteral = regex == null || regex.isEmpty() ? null : RegexLiterals.getLongestRequiredLiteral(regex);
+
+        return new LogRowPredicate() {
+            @Override
+            public boolean test(LogRows rows, long sequenceNumber) {
+                return messagePredicate.test(rows.getMessage(sequenceNumber));
+            }
+
+            @Override
+            public String getRequiredText() {
+                return requiredLiteral;
+            }
+
+            @Override
+            public void onEvaluationStart() {
+                remainingQueryNanos.set(MAX_REGEX_NANOS_PER_QUERY);
+            }
+        };
+    }
+
+    private static Predicate<String> createMessagePredicateFromRegex(String regex, AtomicLong remainingQueryNanos) {
         if (regex == null || regex.isEmpty())
-            return logMessage -> true;
+            return message -> true;
 
+        Pattern pattern;
         try {
-            Pattern pattern = Pattern.compile(regex);
-            return logMessage -> logMessage.message() != null && pattern.matcher(logMessage.message()).find();
+            pattern = Pattern.compile(regex);
         } catch (PatternSyntaxException e) {
-            return logMessage -> false;
+            return message -> false;
+        }
+
+        ThreadLocal<BudgetedMatcher> matchers = ThreadLocal.withInitial(() -> new BudgetedMatcher(
+                pattern.matcher(""),
+                new BudgetedCharSequence(MAX_REGEX_NANOS_PER_MESSAGE, remainingQueryNanos)
+        ));
+        String requiredLiteral = RegexLiterals.getLongestRequiredLiteral(regex);
+        if (requiredLiteral == null) {
+            return message -> message != null && matchers.get().find(message);
+        } else {
+            SubstringMatcher substringMatcher = new SubstringMatcher(requiredLiteral);
+            return message -> message != null &&
+                    substringMatcher.isContainedIn(message) &&
+                    matchers.get().find(message);
         }
     }
 
@@ -40,10 +122,32 @@ final class LogMessagePredicates {
      * @return the predicate that filters {@code LogMessage} based on the text to contain
      */
     public static Predicate<LogMessage> createPredicateContainsIgnoreCase(String text) {
+        Predicate<String> messagePredicate = createMessagePredicateContainsIgnoreCase(text);
+        return logMessage -> messagePredicate.test(logMessage.message());
+    }
+
+    /**
+     * Creates a {@code Predicate} that filters messages (the {@code message} property of a {@code LogMessage})
+     * that don't contain {@code text}. This function is case-insensitive. Null messages only pass if {@code text} is empty.
+     * <p>
+     * Characters are compared after folding their case (see {@link SubstringMatcher}), so evaluating the
+     * predicate doesn't allocate anything.
+     *
+     * @param text  the {@code String} to contain
+     * @return the predicate that filters messages based on the text to contain
+     */
+    public static Predicate<String> createMessagePredicateContainsIgnoreCase(String text) {
         if (text == null || text.isEmpty())
-            return logMessage -> true;
+            return message -> true;
 
-        String textLower = text.toLowerCase();
-        return logMessage -> logMessage.message() != null && logMessage.message().toLowerCase().contains(textLower);
+        SubstringMatcher substringMatcher = new SubstringMatcher(text, true);
+        return message -> message != null && substringMatcher.isContainedIn(message);
+    }
+
+    private record BudgetedMatcher(Matcher matcher, BudgetedCharSequence text) {
+
+        public boolean find(String message) {
+            return matcher.reset(text.reset(message)).find();
+        }
     }
 }
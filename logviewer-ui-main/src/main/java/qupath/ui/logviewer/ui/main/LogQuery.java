@@ -0,0 +1,500 @@
+package qupath.ui.logviewer.ui.main;
+
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.ui.main.store.LogRowPredicate;
+import qupath.ui.logviewer.ui.main.store.LogRows;
+import qupath.ui.logviewer.ui.main.store.StringDictionary;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A query filtering log messages on several of their fields, for example
+ * {@code level>=WARN logger:qupath.lib.* thread:"Tile*" time:[10:00,10:05] "timeout"}.
+ * <p>
+ * A query is a list of clauses separated by spaces, and a message matches the query if it matches all clauses:
+ * <ul>
+ *     <li>
+ *         {@code level:X}, {@code level=X}, {@code level>=X}, {@code level>X}, {@code level<=X}, {@code level<X}:
+ *         the level of the message compared to X (a level is greater than another if it is more severe).
+ *     </li>
+ *     <li>
+ *         {@code logger:X}, {@code thread:X}: the name of the logger or of the thread matches X, where {@code *}
+ *         matches any text and {@code ?} any character. Names are case-sensitive.
+ *     </li>
+ *     <li>
+ *         {@code time:[X,Y]}: the time of the day of the message (in the default time zone) is between X and Y, which
+ *         have the {@code HH:mm}, {@code HH:mm:ss} or {@code HH:mm:ss.SSS} format. Bounds are inclusive and
+ *         can be omitted (e.g. {@code time:[10:00,]}). The range wraps around midnight if X is after Y.
+ *     </li>
+ *     <li>Any other word: the message contains the word, ignoring case.</li>
+ * </ul>
+ * Values can be quoted with double quotes to contain spaces (e.g. {@code thread:"Tile worker*"} or {@code "tile failed"}).
+ * In quotes, a backslash escapes the next character.
+ * <p>
+ * A parsed query is compiled into a plan, where clauses are sorted by increasing cost: levels first, then logger
+ * and thread names (whose result is cached for each id of the store dictionaries), then times, and finally texts,
+ * which require decoding the message. The evaluation of a message stops at the first clause it doesn't match.
+ */
+final class LogQuery {
+
+    private static final Pattern FIELD_PATTERN = Pattern.compile("(?i)(level|logger|thread|time)(>=|<=|[:=<>])");
+    private final List<Clause> plan;
+
+    private LogQuery(List<Clause> plan) {
+        this.plan = plan;
+    }
+
+    /**
+     * Parse a query and compile it into a plan.
+     *
+     * @param query  the query to parse
+     * @return the compiled query
+     * @throws IllegalArgumentException when the query is not valid
+     */
+    public static LogQuery parse(String query) {
+        List<Clause> clauses = new ArrayList<>();
+        for (String term: tokenize(query)) {
+            clauses.add(parseClause(term));
+        }
+        clauses.sort(Comparator.comparingInt(Clause::cost));
+        return new LogQuery(List.copyOf(clauses));
+    }
+
+    /**
+     * @return the clauses of this query, in the order they are evaluated
+     */
+    public List<Clause> getPlan() {
+        return plan;
+    }
+
+    /**
+     * @return a predicate on the rows of a store that is true for messages matching this query. The longest
+     * text of the query is attached as required text (see {@link LogRowPredicate#getRequiredText()})
+     */
+    public LogRowPredicate toRowPredicate() {
+        LogRowPredicate predicate = LogRowPredicate.ALWAYS_TRUE;
+        for (Clause clause: plan) {
+            predicate = predicate.and(clause::test);
+        }
+
+        String requiredText = plan.stream()
+                .filter(TextClause.class::isInstance)
+                .map(clause -> ((TextClause) clause).text())
+                .max(Comparator.comparingInt(String::length))
+                .orElse(null);
+        return requiredText == null ? predicate : LogRowPredicate.withRequiredText(predicate, requiredText);
+    }
+
+    /**
+     * @return a predicate that is true for messages matching this query
+     */
+    public Predicate<LogMessage> toMessagePredicate() {
+        return logMessage -> {
+            for (Clause clause: plan) {
+                if (!clause.test(logMessage)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    /**
+     * A condition on one field of a message.
+     */
+    sealed interface Clause permits LevelClause, NameClause, TimeClause, TextClause {
+
+        /**
+         * @return the relative cost of evaluating this clause. Clauses with a lower cost are evaluated first
+         */
+        int cost();
+
+        /**
+         * @param rows  the rows containing the message
+         * @param sequenceNumber  the sequence number of the message
+         * @return whether the message matches this clause
+         */
+        boolean test(LogRows rows, long sequenceNumber);
+
+        /**
+         * @param logMessage  the message to test
+         * @return whether the message matches this clause
+         */
+        boolean test(LogMessage logMessage);
+    }
+
+    /**
+     * Accepts messages whose level belongs to {@code levels}, indexed by ordinal.
+     */
+    record LevelClause(boolean[] levels) implements Clause {
+
+        @Override
+        public int cost() {
+            return 0;
+        }
+
+        @Override
+        public boolean test(LogRows rows, long sequenceNumber) {
+            return levels[rows.getLevel(sequenceNumber).ordinal()];
+        }
+
+        @Override
+        public boolean test(LogMessage logMessage) {
+            return levels[logMessage.level().ordinal()];
+        }
+    }
+
+    /**
+     * Accepts messages whose logger name (or thread name if {@code thread} is true) matches a pattern.
+     * The result is cached for each id of the dictionary of the store.
+     */
+    static final class NameClause implements Clause {
+
+        private static final byte UNKNOWN = 0;
+        private static final byte MATCH = 1;
+        private static final byte NO_MATCH = 2;
+        private final boolean thread;
+        private final Pattern pattern;
+        private volatile Cache cache = new Cache(null, new byte[0]);
+
+        NameClause(boolean thread, Pattern pattern) {
+            this.thread = thread;
+            this.pattern = pattern;
+        }
+
+        @Override
+        public int cost() {
+            return 1;
+        }
+
+        @Override
+        public boolean test(LogRows rows, long sequenceNumber) {
+            StringDictionary dictionary = thread ? rows.getThreadNames() : rows.getLoggerNames();
+            int id = thread ? rows.getThreadId(sequenceNumber) : rows.getLoggerId(sequenceNumber);
+            if (id == StringDictionary.NULL_ID) {
+                return false;
+            }
+
+            Cache currentCache = cache;
+            if (currentCache.dictionary == dictionary && id < currentCache.results.length && currentCache.results[id] != UNKNOWN) {
+                return currentCache.results[id] == MATCH;
+            }
+
+            boolean matches = matches(dictionary.get(id));
+            store(dictionary, id, matches);
+            return matches;
+        }
+
+        @Override
+        public boolean test(LogMessage logMessage) {
+            String name = thread ? logMessage.threadName() : logMessage.loggerName();
+            return name != null && matches(name);
+        }
+
+        private boolean matches(String name) {
+            return pattern.matcher(name).matches();
+        }
+
+        /**
+         * Cache a result. Results can be written concurrently, as a result is always the same
+         * for an id, and a missing result is just computed again.
+         */
+        private synchronized void store(StringDictionary dictionary, int id, boolean matches) {
+            Cache currentCache = cache;
+            if (currentCache.dictionary != dictionary) {
+                // The store was cleared, so ids don't refer to the same names anymore
+                currentCache = new Cache(dictionary, new byte[Math.max(16, dictionary.size())]);
+            } else if (id >= currentCache.results.length) {
+                currentCache = new Cache(dictionary, Arrays.copyOf(currentCache.results, Math.max(2 * currentCache.results.length, id + 1)));
+            }
+            currentCache.results[id] = matches ? MATCH : NO_MATCH;
+            cache = currentCache;
+        }
+
+        private record Cache(StringDictionary dictionary, byte[] results) {}
+    }
+
+    /**
+     * Accepts messages whose time of the day (in milliseconds) is between {@code from} and {@code to}
+     * inclusive, or outside of {@code ]to, from[} if {@code from} is after {@code to}.
+     */
+    static final class TimeClause implements Clause {
+
+        private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+        private final long from;
+        private final long to;
+        private final ZoneRules zoneRules = ZoneId.systemDefault().getRules();
+        private volatile OffsetPeriod offsetPeriod = new OffsetPeriod(0, 0, 0);
+
+        TimeClause(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int cost() {
+            return 2;
+        }
+
+        @Override
+        public boolean test(LogRows rows, long sequenceNumber) {
+            return test(rows.getTimestamp(sequenceNumber));
+        }
+
+        @Override
+        public boolean test(LogMessage logMessage) {
+            return test(logMessage.timestamp());
+        }
+
+        private boolean test(long timestamp) {
+            long timeOfDay = Math.floorMod(timestamp + getOffsetMillis(timestamp), MILLIS_PER_DAY);
+            return from <= to ? timeOfDay >= from && timeOfDay <= to : timeOfDay >= from || timeOfDay <= to;
+        }
+
+        /**
+         * Get the offset of the time zone at a timestamp. The offset only changes at transitions (e.g. daylight
+         * saving time), so the period between the transitions surrounding the last timestamp is cached.
+         */
+        private long getOffsetMillis(long timestamp) {
+            OffsetPeriod period = offsetPeriod;
+            if (timestamp < period.from || timestamp >= period.to) {
+                Instant instant = Instant.ofEpochMilli(timestamp);
+                ZoneOffsetTransition previous = zoneRules.previousTransition(instant.plusMillis(1));
+                ZoneOffsetTransition next = zoneRules.nextTransition(instant);
+
+                period = new OffsetPeriod(
+                        previous == null ? Long.MIN_VALUE : previous.toEpochSecond() * 1000,
+                        next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000,
+                        zoneRules.getOffset(instant).getTotalSeconds() * 1000L
+                );
+                offsetPeriod = period;
+            }
+            return period.offsetMillis;
+        }
+
+        private record OffsetPeriod(long from, long to, long offsetMillis) {}
+    }
+
+    /**
+     * Accepts messages containing a text, ignoring case.
+     */
+    record TextClause(String text, Predicate<String> messagePredicate) implements Clause {
+
+        TextClause(String text) {
+            this(text, LogMessagePredicates.createMessagePredicateContainsIgnoreCase(text));
+        }
+
+        @Override
+        public int cost() {
+            return 3;
+        }
+
+        @Override
+        public boolean test(LogRows rows, long sequenceNumber) {
+            return messagePredicate.test(rows.getMessage(sequenceNumber));
+        }
+
+        @Override
+        public boolean test(LogMessage logMessage) {
+            return messagePredicate.test(logMessage.message());
+        }
+    }
+
+    /**
+     * Split a query into terms separated by spaces. Spaces in quotes or in brackets don't
+     * separate terms. Quotes are kept, so that values can be unquoted once their field is known.
+     */
+    private static List<String> tokenize(String query) {
+        List<String> terms = new ArrayList<>();
+        StringBuilder term = new StringBuilder();
+        boolean inQuotes = false;
+        boolean inBrackets = false;
+
+        for (int i=0; i<query.length(); ++i) {
+            char c = query.charAt(i);
+
+            if (inQuotes) {
+                term.append(c);
+                if (c == '\\' && i + 1 < query.length()) {
+                    term.append(query.charAt(++i));
+                } else if (c == '"') {
+                    inQuotes = false;
+                }
+            } else if (Character.isWhitespace(c) && !inBrackets) {
+                if (!term.isEmpty()) {
+                    terms.add(term.toString());
+                    term.setLength(0);
+                }
+            } else {
+                term.append(c);
+                if (c == '"') {
+                    inQuotes = true;
+                } else if (c == '[') {
+                    inBrackets = true;
+                } else if (c == ']') {
+                    inBrackets = false;
+                }
+            }
+        }
+
+        if (inQuotes) {
+            throw new IllegalArgumentException("Missing closing quote in " + query);
+        }
+        if (!term.isEmpty()) {
+            terms.add(term.toString());
+        }
+        return terms;
+    }
+
+    private static Clause parseClause(String term) {
+        Matcher matcher = FIELD_PATTERN.matcher(term);
+        if (!matcher.lookingAt()) {
+            return parseText(term);
+        }
+
+        String field = matcher.group(1).toLowerCase(Locale.ROOT);
+        String operator = matcher.group(2);
+        String value = term.substring(matcher.end());
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Missing value in " + term);
+        }
+
+        if (field.equals("level")) {
+            return parseLevel(operator, unquote(value));
+        }
+        if (!operator.equals(":") && !operator.equals("=")) {
+            throw new IllegalArgumentException("Operator " + operator + " not supported by " + field);
+        }
+        return switch (field) {
+            case "logger" -> new NameClause(false, parseGlob(unquote(value)));
+            case "thread" -> new NameClause(true, parseGlob(unquote(value)));
+            default -> parseTime(value);
+        };
+    }
+
+    private static Clause parseText(String term) {
+        String text = unquote(term);
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("Empty text in " + term);
+        }
+        return new TextClause(text);
+    }
+
+    private static Clause parseLevel(String operator, String value) {
+        Level reference;
+        try {
+            reference = Level.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown level " + value, e);
+        }
+
+        boolean[] levels = new boolean[Level.values().length];
+        for (Level level: Level.values()) {
+            int comparison = Integer.compare(level.toInt(), reference.toInt());
+            levels[level.ordinal()] = switch (operator) {
+                case ">=" -> comparison >= 0;
+                case ">" -> comparison > 0;
+                case "<=" -> comparison <= 0;
+                case "<" -> comparison < 0;
+                default -> comparison == 0;
+            };
+        }
+        return new LevelClause(levels);
+    }
+
+    private static Pattern parseGlob(String glob) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+
+        for (int i=0; i<glob.length(); ++i) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (!literal.isEmpty()) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private static Clause parseTime(String value) {
+        if (!value.startsWith("[") || !value.endsWith("]") || value.indexOf(',') < 0) {
+            throw new IllegalArgumentException("Time range " + value + " must have the [from,to] format");
+        }
+
+        int comma = value.indexOf(',');
+        String from = value.substring(1, comma).strip();
+        String to = value.substring(comma + 1, value.length() - 1).strip();
+        return new TimeClause(
+                from.isEmpty() ? 0 : parseTimeOfDay(from, false),
+                to.isEmpty() ? TimeClause.MILLIS_PER_DAY - 1 : parseTimeOfDay(to, true)
+        );
+    }
+
+    /**
+     * Parse a time of the day. An upper bound includes the whole unit of its last field
+     * (e.g. 10:05 includes 10:05:59.999).
+     *
+     * @return the number of milliseconds since midnight
+     */
+    private static long parseTimeOfDay(String time, boolean upperBound) {
+        LocalTime localTime;
+        try {
+            localTime = LocalTime.parse(time);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid time " + time, e);
+        }
+
+        long millis = localTime.toNanoOfDay() / 1_000_000;
+        if (upperBound) {
+            int fields = time.split(":").length;
+            if (fields == 2) {
+                millis += 60_000 - 1;
+            } else if (!time.contains(".")) {
+                millis += 1000 - 1;
+            }
+        }
+        return millis;
+    }
+
+    private static String unquote(String value) {
+        if (!value.startsWith("\"")) {
+            return value;
+        }
+        if (value.length() < 2 || !value.endsWith("\"")) {
+            throw new IllegalArgumentException("Text after closing quote in " + value);
+        }
+
+        StringBuilder unquoted = new StringBuilder();
+        for (int i=1; i<value.length()-1; ++i) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length() - 1) {
+                c = value.charAt(++i);
+            }
+            unquoted.append(c);
+        }
+        return unquoted.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package qupath.ui.logviewer.ui.main;
+
+import java.time.Duration;
+
+/**
+ * Limits on the log messages kept by the log viewer.
+ * When one of these limits is exceeded, the oldest messages are discarded.
+ *
+ * @param maxMessages  the maximum number of messages to keep
+ * @param maxBytes  the maximum estimated memory (in bytes) used by the kept messages
+ * @param maxAge  the maximum age of a kept message, or null if messages should not be discarded based on their age
+ */
+public record LogRetentionPolicy(int maxMessages, long maxBytes, Duration maxAge) {
+
+    private static final LogRetentionPolicy UNLIMITED = new LogRetentionPolicy(Integer.MAX_VALUE, Long.MAX_VALUE, null);
+
+    /**
+     * Creates a retention policy.
+     *
+     * @throws IllegalArgumentException when {@code maxMessages} or {@code maxBytes} is not strictly positive,
+     * or when {@code maxAge} is negative
+     */
+    public LogRetentionPolicy {
+        if (maxMessages <= 0) {
+            throw new IllegalArgumentException("The maximum number of messages must be strictly positive");
+        }
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("The maximum number of bytes must be strictly positive");
+        }
+        if (maxAge != null && maxAge.isNegative()) {
+            throw new IllegalArgumentException("The maximum age cannot be negative");
+        }
+    }
+
+    /**
+     * @return a retention policy that never discards messages
+     */
+    public static LogRetentionPolicy unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * @param maxMessages  the maximum number of messages to keep
+     * @return a copy of this policy with a different maximum number of messages
+     */
+    public LogRetentionPolicy withMaxMessages(int maxMessages) {
+        return new LogRetentionPolicy(maxMessages, maxBytes, maxAge);
+    }
+
+    /**
+     * @param maxBytes  the maximum estimated memory (in bytes) used by the kept messages
+     * @return a copy of this policy with a different maximum memory
+     */
+    public LogRetentionPolicy withMaxBytes(long maxBytes) {
+        return new LogRetentionPolicy(maxMessages, maxBytes, maxAge);
+    }
+
+    /**
+     * @param maxAge  the maximum age of a kept message, or null to keep messages whatever their age
+     * @return a copy of this policy with a different maximum age
+     */
+    public LogRetentionPolicy withMaxAge(Duration maxAge) {
+        return new LogRetentionPolicy(maxMessages, maxBytes, maxAge);
+    }
+}
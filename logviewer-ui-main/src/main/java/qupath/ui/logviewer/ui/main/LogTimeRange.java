@@ -0,0 +1,37 @@
+package qupath.ui.logviewer.ui.main;
+
+/**
+ * A range of log message timestamps.
+ *
+ * @param from  the minimum timestamp (inclusive), in milliseconds since epoch
+ * @param to  the maximum timestamp (inclusive), in milliseconds since epoch
+ */
+public record LogTimeRange(long from, long to) {
+
+    /**
+     * Creates a time range.
+     *
+     * @throws IllegalArgumentException when {@code from} is after {@code to}
+     */
+    public LogTimeRange {
+        if (from > to) {
+            throw new IllegalArgumentException("The start of a time range cannot be after its end");
+        }
+    }
+
+    /**
+     * @param timestamp  the timestamp to check, in milliseconds since epoch
+     * @return whether the timestamp belongs to this range
+     */
+    public boolean contains(long timestamp) {
+        return timestamp >= from && timestamp <= to;
+    }
+
+    /**
+     * @param other  the range to check
+     * @return whether all timestamps of the other range belong to this range
+     */
+    public boolean contains(LogTimeRange other) {
+        return from <= other.from && other.to <= to;
+    }
+}
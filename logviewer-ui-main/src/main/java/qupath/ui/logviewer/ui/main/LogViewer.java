@@ -1,10 +1,13 @@
 package qupath.ui.logviewer.ui.main;
 
 import javafx.animation.FadeTransition;
+import javafx.css.PseudoClass;
 import javafx.scene.Cursor;
 import javafx.scene.control.skin.TableViewSkin;
 import javafx.scene.control.skin.VirtualFlow;
+import javafx.scene.Scene;
 import javafx.stage.FileChooser;
+import javafx.stage.Stage;
 import javafx.util.Duration;
 import qupath.ui.logviewer.api.LogMessage;
 import qupath.ui.logviewer.api.manager.LoggerManager;
@@ -12,6 +15,8 @@ import qupath.ui.logviewer.ui.main.cellfactories.GenericTableCell;
 import qupath.ui.logviewer.ui.main.cellfactories.LogLevelTableCell;
 import qupath.ui.logviewer.ui.main.cellfactories.CompactTableCell;
 import qupath.ui.logviewer.ui.main.cellfactories.TableRowTableCell;
+import qupath.ui.logviewer.ui.main.export.LogExportTask;
+import qupath.ui.logviewer.ui.main.export.LogFormat;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
@@ -22,13 +27,17 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.control.*;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
 import org.slf4j.event.Level;
 
 import java.io.*;
 import java.text.DateFormat;
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 /**
@@ -40,6 +49,7 @@ public class LogViewer extends BorderPane {
 
     private static final DateFormat TIMESTAMP_FORMAT = new SimpleDateFormat(System.getProperty("timestamp.format", "HH:mm:ss"));
     private static final ResourceBundle resources = ResourceBundle.getBundle("qupath.ui.logviewer.ui.main.strings");
+    private static final PseudoClass FIND_MATCH = PseudoClass.getPseudoClass("find-match");
     @FXML
     private MenuBar menubar;
     @FXML
@@ -49,12 +59,16 @@ public class LogViewer extends BorderPane {
     @FXML
     private RadioMenuItem allThreadsItem;
     @FXML
+    private ToggleButton queryButton;
+    @FXML
     private ToggleButton regexButton;
     @FXML
     private Tooltip regexTooltip;
     @FXML
     private TextField messageFilter;
     @FXML
+    private TextField goToTime;
+    @FXML
     private ToggleButton displayErrorButton;
     @FXML
     private Tooltip displayErrorTooltip;
@@ -79,6 +93,12 @@ public class LogViewer extends BorderPane {
     @FXML
     private TableView<LogMessage> tableViewLog;
     @FXML
+    private ToolBar findBar;
+    @FXML
+    private TextField findField;
+    @FXML
+    private Label findCount;
+    @FXML
     private TableColumn<LogMessage, LogMessage> colRow;
     @FXML
     private TableColumn<LogMessage, LogMessage> colLogger;
@@ -99,6 +119,12 @@ public class LogViewer extends BorderPane {
     @FXML
     private Label shownCount;
     @FXML
+    private ProgressBar filterProgress;
+    @FXML
+    private HBox exportBox;
+    @FXML
+    private ProgressBar exportProgress;
+    @FXML
     private Label status;
     @FXML
     private Button clearLogsButton;
@@ -106,6 +132,7 @@ public class LogViewer extends BorderPane {
     private Button copyButton;
     private final Collection<String> allLogLevelNamesToLowerCase = Arrays.stream(Level.values()).map(LogViewer::toStyleClass).toList();
     private final LogViewerModel logViewerModel;
+    private LogExportTask currentExport = null;
 
     /**
      * Maintain a cache of virtual flows, since they are awkward to access from the table view.
@@ -222,6 +249,24 @@ public class LogViewer extends BorderPane {
         return logViewerModel.getFilteredLogsMessageCounts();
     }
 
+    /**
+     * Set the limits on the log messages kept by this log viewer.
+     * When one of them is exceeded, the oldest messages are discarded.
+     *
+     * @param retentionPolicy  the new retention policy
+     * @throws NullPointerException when the provided policy is null
+     */
+    public void setRetentionPolicy(LogRetentionPolicy retentionPolicy) {
+        logViewerModel.getRetentionPolicyProperty().set(Objects.requireNonNull(retentionPolicy));
+    }
+
+    /**
+     * @return the limits on the log messages kept by this log viewer
+     */
+    public LogRetentionPolicy getRetentionPolicy() {
+        return logViewerModel.getRetentionPolicyProperty().get();
+    }
+
     @FXML
     private void initialize() {
         setUpDisplayedLogLevels();
@@ -229,6 +274,7 @@ public class LogViewer extends BorderPane {
         setUpTable();
         setUpFooter();
         setUpThreadFilter();
+        setUpFind();
     }
 
     @FXML
@@ -238,25 +284,86 @@ public class LogViewer extends BorderPane {
         }
     }
 
+    @FXML
+    private void open() {
+        FileChooser fileChooser = new FileChooser();
+
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter(resources.getString("Action.File.format.TEXT") + " (*.log, *.txt)", "*.log", "*.LOG", "*.txt", "*.TXT"),
+                new FileChooser.ExtensionFilter(resources.getString("Action.File.allFiles"), "*.*")
+        );
+        File file = fileChooser.showOpenDialog(getScene().getWindow());
+
+        if (file != null) {
+            try {
+                LogFileViewer logFileViewer = new LogFileViewer(file.toPath());
+
+                Stage stage = new Stage();
+                stage.setTitle(file.getName());
+                stage.setScene(new Scene(logFileViewer, 900, 600));
+                stage.setOnHidden(event -> logFileViewer.close());
+                stage.show();
+            } catch (IOException e) {
+                new Alert(Alert.AlertType.ERROR, e.getLocalizedMessage()).show();
+            }
+        }
+    }
+
     @FXML
     private void save() {
         FileChooser fileChooser = new FileChooser();
 
-        FileChooser.ExtensionFilter extFilter = new FileChooser.ExtensionFilter("Log files (*.log)", "*.log", "*.LOG");
-        fileChooser.getExtensionFilters().add(extFilter);
+        Map<FileChooser.ExtensionFilter, LogFormat> formats = new LinkedHashMap<>();
+        for (LogFormat format: LogFormat.values()) {
+            String extension = format.getExtension();
+            String compressedExtension = extension + ".gz";
+            formats.put(new FileChooser.ExtensionFilter(
+                    resources.getString("Action.File.format." + format.name()) + " (*" + extension + ")",
+                    "*" + extension, "*" + extension.toUpperCase()
+            ), format);
+            formats.put(new FileChooser.ExtensionFilter(
+                    resources.getString("Action.File.compressedFormat." + format.name()) + " (*" + compressedExtension + ")",
+                    "*" + compressedExtension, "*" + compressedExtension.toUpperCase()
+            ), format);
+        }
+        fileChooser.getExtensionFilters().addAll(formats.keySet());
         File file = fileChooser.showSaveDialog(getScene().getWindow());
 
         if (file != null) {
-            if (!file.getName().endsWith(".log") && !file.getName().endsWith(".LOG")) {
-                file = new File(file.getAbsolutePath() + ".log");
+            FileChooser.ExtensionFilter selectedFilter = fileChooser.getSelectedExtensionFilter();
+            LogFormat format = formats.getOrDefault(selectedFilter, LogFormat.TEXT);
+            String extension = selectedFilter == null ? format.getExtension() : selectedFilter.getExtensions().get(0).substring(1);
+            if (!file.getName().toLowerCase().endsWith(extension)) {
+                file = new File(file.getAbsolutePath() + extension);
             }
 
-            try {
-                logViewerModel.saveDisplayedLogsToFile(file);
-                setStatus(MessageFormat.format(resources.getString("LogCount.fileSaved"), file.getAbsolutePath()));
-            } catch (FileNotFoundException e) {
-                new Alert(Alert.AlertType.ERROR, e.getLocalizedMessage()).show();
+            if (currentExport != null) {
+                currentExport.cancel();
             }
+            LogExportTask task = logViewerModel.saveDisplayedLogsToFile(file, format);
+            currentExport = task;
+
+            exportProgress.progressProperty().bind(task.progressProperty());
+            exportBox.visibleProperty().bind(task.runningProperty());
+            exportBox.managedProperty().bind(task.runningProperty());
+
+            String path = file.getAbsolutePath();
+            task.setOnSucceeded(event -> {
+                if (task.getNumberOfSkippedMessages() == 0) {
+                    setStatus(MessageFormat.format(resources.getString("LogCount.fileSaved"), path));
+                } else {
+                    setStatus(MessageFormat.format(resources.getString("LogCount.fileSavedWithSkippedMessages"), path, task.getNumberOfSkippedMessages()));
+                }
+            });
+            task.setOnFailed(event -> new Alert(Alert.AlertType.ERROR, task.getException().getLocalizedMessage()).show());
+            task.setOnCancelled(event -> setStatus(resources.getString("LogCount.exportCancelled")));
+        }
+    }
+
+    @FXML
+    private void cancelExport() {
+        if (currentExport != null) {
+            currentExport.cancel();
         }
     }
 
@@ -289,6 +396,58 @@ public class LogViewer extends BorderPane {
         logViewerModel.clearAllLogs();
     }
 
+    @FXML
+    private void goToTime() {
+        LocalTime time;
+        try {
+            time = LocalTime.parse(goToTime.getText().strip());
+        } catch (DateTimeParseException e) {
+            setStatus(MessageFormat.format(resources.getString("Toolbar.GoToTime.invalid"), goToTime.getText()));
+            return;
+        }
+
+        int index = logViewerModel.findFilteredLogIndex(time);
+        if (index >= 0) {
+            tableViewLog.getSelectionModel().clearAndSelect(index);
+            tableViewLog.scrollTo(index);
+        }
+    }
+
+    @FXML
+    private void showFind() {
+        findBar.setVisible(true);
+        findField.requestFocus();
+        findField.selectAll();
+    }
+
+    @FXML
+    private void closeFind() {
+        findBar.setVisible(false);
+        findField.clear();
+        tableViewLog.requestFocus();
+    }
+
+    @FXML
+    private void selectNextMatch() {
+        int index = logViewerModel.findNextMatchIndex(tableViewLog.getSelectionModel().getSelectedIndex());
+        if (index < 0) {
+            index = logViewerModel.findNextMatchIndex(-1);
+        }
+        selectMessage(index);
+    }
+
+    @FXML
+    private void selectPreviousMatch() {
+        int numberOfMessages = tableViewLog.getItems().size();
+        int selectedIndex = tableViewLog.getSelectionModel().getSelectedIndex();
+
+        int index = logViewerModel.findPreviousMatchIndex(selectedIndex < 0 ? numberOfMessages : selectedIndex);
+        if (index < 0) {
+            index = logViewerModel.findPreviousMatchIndex(numberOfMessages);
+        }
+        selectMessage(index);
+    }
+
     @FXML
     private void onThreadItemSelected(ActionEvent e) {
         RadioMenuItem item = (RadioMenuItem) e.getSource();
@@ -298,6 +457,12 @@ public class LogViewer extends BorderPane {
         }
     }
 
+    @FXML
+    private void onTimeWindowItemSelected(ActionEvent e) {
+        int minutes = Integer.parseInt((String) ((RadioMenuItem) e.getSource()).getUserData());
+        logViewerModel.getTimeWindowProperty().set(minutes == 0 ? null : Duration.minutes(minutes));
+    }
+
     @FXML
     private void onDisplayedLogLevelsItemClicked(ActionEvent actionEvent) {
         ToggleButton item = (ToggleButton) actionEvent.getSource();
@@ -310,20 +475,32 @@ public class LogViewer extends BorderPane {
 
     @FXML
     private void onWarnCountClicked() {
-        int indexOfLastUnselectedMessage = getIndexOfLastUnselectedMessage(Level.WARN);
-        if (indexOfLastUnselectedMessage >= 0 && indexOfLastUnselectedMessage < tableViewLog.getItems().size()) {
-            tableViewLog.getSelectionModel().clearAndSelect(indexOfLastUnselectedMessage);
-            tableViewLog.scrollTo(indexOfLastUnselectedMessage);
-        }
+        selectPreviousMessage(Level.WARN);
     }
 
     @FXML
     private void onErrorCountClicked() {
-        int indexOfLastUnselectedMessage = getIndexOfLastUnselectedMessage(Level.ERROR);
-        if (indexOfLastUnselectedMessage >= 0 && indexOfLastUnselectedMessage < tableViewLog.getItems().size()) {
-            tableViewLog.getSelectionModel().clearAndSelect(indexOfLastUnselectedMessage);
-            tableViewLog.scrollTo(indexOfLastUnselectedMessage);
-        }
+        selectPreviousMessage(Level.ERROR);
+    }
+
+    @FXML
+    private void selectNextError() {
+        selectNextMessage(Level.ERROR);
+    }
+
+    @FXML
+    private void selectPreviousError() {
+        selectPreviousMessage(Level.ERROR);
+    }
+
+    @FXML
+    private void selectNextWarning() {
+        selectNextMessage(Level.WARN);
+    }
+
+    @FXML
+    private void selectPreviousWarning() {
+        selectPreviousMessage(Level.WARN);
     }
 
     private static String toStyleClass(Level level) {
@@ -416,12 +593,18 @@ public class LogViewer extends BorderPane {
     }
 
     private void setUpMessageFilter() {
+        logViewerModel.getFilterByQueryProperty().bind(queryButton.selectedProperty());
         logViewerModel.getFilterByRegexProperty().bind(regexButton.selectedProperty());
         logViewerModel.getFilterProperty().bind(messageFilter.textProperty());
 
-        messageFilter.promptTextProperty().bind(Bindings.when(logViewerModel.getFilterByRegexProperty())
-                .then(resources.getString("Toolbar.Filter.filterByRegex"))
-                .otherwise(resources.getString("Toolbar.Filter.filterByText")));
+        // A query can contain texts but no regular expression
+        regexButton.disableProperty().bind(queryButton.selectedProperty());
+
+        messageFilter.promptTextProperty().bind(Bindings.when(logViewerModel.getFilterByQueryProperty())
+                .then(resources.getString("Toolbar.Filter.queryExample"))
+                .otherwise(Bindings.when(logViewerModel.getFilterByRegexProperty())
+                        .then(resources.getString("Toolbar.Filter.filterByRegex"))
+                        .otherwise(resources.getString("Toolbar.Filter.filterByText"))));
 
         regexTooltip.textProperty().bind(Bindings.when(logViewerModel.getFilterByRegexProperty())
                 .then(resources.getString("Toolbar.Filter.filterByText"))
@@ -559,6 +742,15 @@ public class LogViewer extends BorderPane {
                         ))
         );
 
+        filterProgress.visibleProperty().bind(logViewerModel.getFilteringProperty());
+        filterProgress.managedProperty().bind(logViewerModel.getFilteringProperty());
+        filterProgress.progressProperty().bind(logViewerModel.getFilteringProgressProperty());
+        logViewerModel.getFilterAbortedProperty().addListener((l, o, n) -> {
+            if (n) {
+                setStatus(resources.getString("LogCount.regexTooExpensive"));
+            }
+        });
+
         clearLogsButton.disableProperty().bind(Bindings.equal(
                 Bindings.size(tableViewLog.getItems()),
                 0
@@ -574,20 +766,79 @@ public class LogViewer extends BorderPane {
         logViewerModel.getDisplayAllThreadsProperty().bind(allThreadsItem.selectedProperty());
 
         logViewerModel.getAllThreads().addListener((SetChangeListener<? super String>) change -> {
-            String threadName = change.getElementAdded();
-
-            RadioMenuItem item = new RadioMenuItem(threadName);
-            item.setOnAction(this::onThreadItemSelected);
-            item.setToggleGroup(threadFilterGroup);
-
-            // Create a new list instead of simply adding the item is a workaround for
+            // Create a new list instead of simply adding or removing the item is a workaround for
             // https://github.com/qupath/log-viewer/issues/70
             var newItems = new ArrayList<>(threadFilterMenu.getItems());
-            newItems.add(item);
+
+            if (change.wasAdded()) {
+                RadioMenuItem item = new RadioMenuItem(change.getElementAdded());
+                item.setOnAction(this::onThreadItemSelected);
+                item.setToggleGroup(threadFilterGroup);
+                newItems.add(item);
+            }
+            if (change.wasRemoved()) {
+                newItems.removeIf(item -> item != allThreadsItem && Objects.equals(item.getText(), change.getElementRemoved()));
+            }
+
             threadFilterMenu.getItems().setAll(newItems);
         });
     }
 
+    private void setUpFind() {
+        findBar.managedProperty().bind(findBar.visibleProperty());
+        logViewerModel.getFindProperty().bind(findField.textProperty());
+        findField.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ESCAPE) {
+                closeFind();
+            }
+        });
+
+        findCount.textProperty().bind(Bindings.createStringBinding(
+                () -> {
+                    int numberOfMatches = logViewerModel.getFindMatchCountProperty().get();
+                    int selectedIndex = tableViewLog.getSelectionModel().getSelectedIndex();
+
+                    if (findField.getText().isEmpty()) {
+                        return "";
+                    } else if (logViewerModel.getFindingProperty().get()) {
+                        return MessageFormat.format(resources.getString("Toolbar.Find.searching"), numberOfMatches);
+                    } else if (selectedIndex >= 0 && selectedIndex < tableViewLog.getItems().size() && logViewerModel.isFindMatch(selectedIndex)) {
+                        return MessageFormat.format(
+                                resources.getString("Toolbar.Find.matchNumber"),
+                                logViewerModel.getFindMatchNumber(selectedIndex) + 1,
+                                numberOfMatches
+                        );
+                    } else {
+                        return MessageFormat.format(resources.getString("Toolbar.Find.matches"), numberOfMatches);
+                    }
+                },
+                logViewerModel.getFindMatchCountProperty(),
+                logViewerModel.getFindingProperty(),
+                tableViewLog.getSelectionModel().selectedIndexProperty(),
+                findField.textProperty()
+        ));
+
+        // Rows are highlighted when they are updated, so visible rows must be updated when matches are found
+        // (rows appended later are updated anyway)
+        tableViewLog.setRowFactory(table -> new TableRow<>() {
+            @Override
+            protected void updateItem(LogMessage item, boolean empty) {
+                super.updateItem(item, empty);
+                pseudoClassStateChanged(
+                        FIND_MATCH,
+                        !empty && getIndex() >= 0 && getIndex() < getTableView().getItems().size() && logViewerModel.isFindMatch(getIndex())
+                );
+            }
+        });
+        logViewerModel.getFindProperty().addListener((l, o, n) -> tableViewLog.refresh());
+        logViewerModel.getFindingProperty().addListener((l, o, n) -> tableViewLog.refresh());
+        logViewerModel.getFindMatchCountProperty().addListener((l, o, n) -> {
+            if (logViewerModel.getFindingProperty().get()) {
+                tableViewLog.refresh();
+            }
+        });
+    }
+
     private void setStatus(String message) {
         status.setText(message);
 
@@ -622,7 +873,7 @@ public class LogViewer extends BorderPane {
     private String selectedLogMessagesToString() {
         StringBuilder sb = new StringBuilder();
         for (LogMessage logMessage : tableViewLog.getSelectionModel().getSelectedItems()) {
-            sb.append(logMessage.toReadableString());
+            logMessage.appendTo(sb);
             sb.append(System.lineSeparator());
         }
         return sb.toString();
@@ -658,46 +909,36 @@ public class LogViewer extends BorderPane {
     }
 
     /**
-     * Get the index of the last unselected log message of the table:
-     * <ul>
-     *     <li>whose level is equal to {@code level}</li>
-     *     <li>
-     *         which is located above all currently selected log messages of level {@code level},
-     *         or (if not found) located at the bottom of the table</li>
-     * </ul>
-     *
-     * @param level  the log level to consider
-     * @return the position as described, or -1 if no log message of such level was found
+     * Select the message of the provided level before the selected message (or the last message of
+     * this level if there is none).
      */
-    private int getIndexOfLastUnselectedMessage(Level level) {
-        List<LogMessage> selectedMessages = tableViewLog.getSelectionModel().getSelectedItems();
-        List<LogMessage> displayedMessages = tableViewLog.getItems();
-
-        LogMessage lastSelectedMessageWithGivenLevel = null;
-        for (int i=selectedMessages.size()-1; i>=0; --i) {
-            if (selectedMessages.get(i).level().equals(level)) {
-                lastSelectedMessageWithGivenLevel = selectedMessages.get(i);
-                break;
-            }
-        }
+    private void selectPreviousMessage(Level level) {
+        int numberOfMessages = tableViewLog.getItems().size();
+        int selectedIndex = tableViewLog.getSelectionModel().getSelectedIndex();
 
-        int startingIndex = displayedMessages.indexOf(lastSelectedMessageWithGivenLevel);
-        if (startingIndex == -1) {
-            startingIndex = displayedMessages.size();
+        int index = logViewerModel.findPreviousFilteredLogIndex(level, selectedIndex < 0 ? numberOfMessages : selectedIndex);
+        if (index < 0) {
+            index = logViewerModel.findPreviousFilteredLogIndex(level, numberOfMessages);
         }
+        selectMessage(index);
+    }
 
-        for (int i=startingIndex-1; i>=0; --i) {
-            if (displayedMessages.get(i).level().equals(level)) {
-                return i;
-            }
+    /**
+     * Select the message of the provided level after the selected message (or the first message of
+     * this level if there is none).
+     */
+    private void selectNextMessage(Level level) {
+        int index = logViewerModel.findNextFilteredLogIndex(level, tableViewLog.getSelectionModel().getSelectedIndex());
+        if (index < 0) {
+            index = logViewerModel.findNextFilteredLogIndex(level, -1);
         }
+        selectMessage(index);
+    }
 
-        for (int i=displayedMessages.size()-1; i>=0; --i) {
-            if (displayedMessages.get(i).level().equals(level)) {
-                return i;
-            }
+    private void selectMessage(int index) {
+        if (index >= 0 && index < tableViewLog.getItems().size()) {
+            tableViewLog.getSelectionModel().clearAndSelect(index);
+            tableViewLog.scrollTo(index);
         }
-
-        return -1;
     }
 }
@@ -1,18 +1,38 @@
 package qupath.ui.logviewer.ui.main;
 
 import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.api.dispatcher.LogMessageCoalescer;
 import qupath.ui.logviewer.api.listener.LoggerListener;
 import qupath.ui.logviewer.api.manager.LoggerManager;
+import qupath.ui.logviewer.ui.main.export.LogExportTask;
+import qupath.ui.logviewer.ui.main.export.LogFormat;
+import qupath.ui.logviewer.ui.main.store.FilteredLogList;
+import qupath.ui.logviewer.ui.main.store.LogFinder;
+import qupath.ui.logviewer.ui.main.store.LogRowPredicate;
+import qupath.ui.logviewer.ui.main.store.LogStore;
+import qupath.ui.logviewer.ui.main.store.SequenceBitmap;
+import qupath.ui.logviewer.ui.main.store.StringDictionary;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.beans.property.*;
 import javafx.collections.*;
-import javafx.collections.transformation.FilteredList;
+import javafx.util.Duration;
 import org.slf4j.event.Level;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintWriter;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Predicate;
 
 /**
@@ -22,18 +42,34 @@ import java.util.function.Predicate;
  */
 class LogViewerModel implements LoggerListener {
 
+    private static final ExecutorService exportExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-viewer-export");
+        thread.setDaemon(true);
+        return thread;
+    });
     private final BooleanProperty loggingFrameworkFoundProperty = new SimpleBooleanProperty(false);
-    private final ObservableList<LogMessage> allLogs = FXCollections.observableArrayList();
-    private final FilteredList<LogMessage> filteredLogs = new FilteredList<>(allLogs);
+    private final LogStore allLogs = new LogStore();
+    private final FilteredLogList filteredLogs = new FilteredLogList(allLogs);
     private final LogMessageCounts allLogsMessageCounts = new LogMessageCounts(allLogs);
     private final LogMessageCounts filteredLogsMessageCounts = new LogMessageCounts(filteredLogs);
+    private final LogFinder logFinder = new LogFinder(filteredLogs);
+    private final StringProperty findProperty = new SimpleStringProperty("");
     private final BooleanProperty filterByRegexProperty = new SimpleBooleanProperty(false);
+    private final BooleanProperty filterByQueryProperty = new SimpleBooleanProperty(false);
     private final StringProperty filterProperty = new SimpleStringProperty("");
     private final ObservableSet<String> allThreads = FXCollections.observableSet();
     private final ObservableSet<String> displayedThreads = FXCollections.observableSet();
     private final BooleanProperty displayAllThreadsProperty = new SimpleBooleanProperty(true);
     private final ObservableSet<Level> displayedLogLevels = FXCollections.observableSet(Level.values());
     private final LoggerManager loggerManager;
+    private final LogMessageCoalescer pendingLogs = new LogMessageCoalescer(Platform::runLater, this::appendLogs);
+    private final ObjectProperty<LogTimeRange> timeRangeProperty = new SimpleObjectProperty<>(null);
+    private final ObjectProperty<Duration> timeWindowProperty = new SimpleObjectProperty<>(null);
+    private final Timeline timeWindowTimeline = new Timeline(new KeyFrame(Duration.seconds(1), e -> slideTimeWindow()));
+    // Read by the predicates, so that they follow the time window without being replaced
+    private volatile long timeWindowStart = Long.MIN_VALUE;
+    private final ObjectProperty<LogRetentionPolicy> retentionPolicyProperty = new SimpleObjectProperty<>(LogRetentionPolicy.unlimited());
+    private final Timeline retentionTimeline = new Timeline(new KeyFrame(Duration.seconds(1), e -> allLogs.trim(System.currentTimeMillis())));
 
     /**
      * Creates a model with default values.
@@ -63,16 +99,27 @@ class LogViewerModel implements LoggerListener {
     /**
      * Add a log message to an internal list.
      * If the log message is not filtered, it will be accessible through {@link #getFilteredLogs() getFilteredLogs}.
+     * <p>
+     * The message is first stored in a staging buffer, which is drained by a single runnable
+     * on the JavaFX Application Thread, so it is not available immediately.
      *
      * @param logMessage  the log message to add
      */
     @Override
     public void addLogMessage(LogMessage logMessage) {
-        if (Platform.isFxApplicationThread()) {
-            allLogs.add(logMessage);
-        } else {
-            Platform.runLater(() -> addLogMessage(logMessage));
-        }
+        pendingLogs.addLogMessage(logMessage);
+    }
+
+    /**
+     * Add several log messages to an internal list.
+     * Like {@link #addLogMessage(LogMessage) addLogMessage}, the messages are staged and
+     * added later on the JavaFX Application Thread.
+     *
+     * @param logMessages  the log messages to add
+     */
+    @Override
+    public void addLogMessages(List<LogMessage> logMessages) {
+        pendingLogs.addLogMessages(logMessages);
     }
 
     /**
@@ -151,7 +198,7 @@ class LogViewerModel implements LoggerListener {
      *
      * @return the filtered log messages
      */
-    public FilteredList<LogMessage> getFilteredLogs() {
+    public ObservableList<LogMessage> getFilteredLogs() {
         return filteredLogs;
     }
 
@@ -212,11 +259,23 @@ class LogViewerModel implements LoggerListener {
         return filterByRegexProperty;
     }
 
+    /**
+     * Returns a {@code BooleanProperty} indicating if the {@link #getFilterProperty getFilterProperty}
+     * refers to a query (see {@link LogQuery}) or not. When true, {@link #getFilterByRegexProperty() getFilterByRegexProperty}
+     * is ignored.
+     *
+     * @return the filterByQueryProperty
+     */
+    public BooleanProperty getFilterByQueryProperty() {
+        return filterByQueryProperty;
+    }
+
     /**
      * Filter log messages of {@link #getFilteredLogs() getFilteredLogs} by:
      * <ul>
+     *     <li>keeping only the ones matching the query (see {@link LogQuery}) defined by {@code filterProperty}'s String if {@link #filterByQueryProperty} is true.</li>
      *     <li>keeping only the ones emitted with a message matching the regex defined by {@code filterProperty}'s String if {@link #filterByRegexProperty} is true.</li>
-     *     <li>keeping only the ones emitted with a message containing the {@code filterProperty}'s String if {@link #filterByRegexProperty} is false.</li>
+     *     <li>keeping only the ones emitted with a message containing the {@code filterProperty}'s String otherwise.</li>
      * </ul>
      *
      * @return the {@code StringProperty} indicating the filter applied on messages
@@ -246,7 +305,202 @@ class LogViewerModel implements LoggerListener {
     }
 
     /**
-     * Returns the name of every thread that has ever occurred in a log message.
+     * Returns a {@code ReadOnlyBooleanProperty} indicating if the filters are being applied in the background.
+     * While this is true, {@link #getFilteredLogs() getFilteredLogs} still contains the result of the previous
+     * filters for existing messages (new messages are filtered with the current filters).
+     *
+     * @return a {@code ReadOnlyBooleanProperty} indicating true if the filters are being applied
+     */
+    public ReadOnlyBooleanProperty getFilteringProperty() {
+        return filteredLogs.getEvaluatingProperty();
+    }
+
+    /**
+     * Returns a {@code ReadOnlyDoubleProperty} containing the progress (between 0 and 1) of the filters
+     * being applied in the background.
+     *
+     * @return the {@code ReadOnlyDoubleProperty} containing the progress of the filters being applied
+     */
+    public ReadOnlyDoubleProperty getFilteringProgressProperty() {
+        return filteredLogs.getEvaluationProgressProperty();
+    }
+
+    /**
+     * Returns a {@code ReadOnlyBooleanProperty} indicating if the last filters were too expensive to apply
+     * (for example, a regular expression that backtracks catastrophically). In that case,
+     * {@link #getFilteredLogs() getFilteredLogs} keeps the result of the previous filters.
+     *
+     * @return a {@code ReadOnlyBooleanProperty} indicating true if the last filters were aborted
+     */
+    public ReadOnlyBooleanProperty getFilterAbortedProperty() {
+        return filteredLogs.getEvaluationAbortedProperty();
+    }
+
+    /**
+     * Returns an {@code ObjectProperty} containing the range of timestamps of the messages of
+     * {@link #getFilteredLogs() getFilteredLogs}. Messages are found with the timestamp index of the store,
+     * so changing the range doesn't require reading all messages. By default, the range is null and
+     * messages are not filtered by time.
+     *
+     * @return the {@code ObjectProperty} containing the time range of the displayed messages, or null
+     */
+    public ObjectProperty<LogTimeRange> getTimeRangeProperty() {
+        return timeRangeProperty;
+    }
+
+    /**
+     * Returns an {@code ObjectProperty} containing the duration of a sliding time window: when it is set,
+     * only the messages logged during this duration before the current time are displayed. Every second,
+     * the messages that left the window are removed from the beginning of {@link #getFilteredLogs() getFilteredLogs}
+     * without evaluating the filters again, and new messages are added at the end as usual. By default, the
+     * duration is null and there is no time window.
+     * <p>
+     * Messages are removed in the order they were added, so a message added after a more recent message
+     * is removed when the more recent message leaves the window. This window is applied in addition
+     * to {@link #getTimeRangeProperty() getTimeRangeProperty}.
+     *
+     * @return the {@code ObjectProperty} containing the duration of the time window, or null
+     */
+    public ObjectProperty<Duration> getTimeWindowProperty() {
+        return timeWindowProperty;
+    }
+
+    /**
+     * Find the first displayed message logged at or after a time of the day, with a binary search on the
+     * timestamp index of the store. The day is the one of the most recent message, or the day before if
+     * the time is after the most recent message and messages were logged on that day.
+     *
+     * @param time  the time of the day to look for, in the default time zone
+     * @return the index in {@link #getFilteredLogs() getFilteredLogs} of the first message logged at or after
+     * the provided time (or of the last message if there is none), or -1 if no message is displayed
+     */
+    public int findFilteredLogIndex(LocalTime time) {
+        if (filteredLogs.isEmpty()) {
+            return -1;
+        }
+
+        ZonedDateTime lastDateTime = Instant.ofEpochMilli(allLogs.getTimestamp(allLogs.size() - 1)).atZone(ZoneId.systemDefault());
+        ZonedDateTime dateTime = lastDateTime.with(time);
+        if (dateTime.isAfter(lastDateTime) && dateTime.minusDays(1).toInstant().toEpochMilli() >= allLogs.getTimestamp(0)) {
+            dateTime = dateTime.minusDays(1);
+        }
+
+        long sequenceNumber = allLogs.getFirstSequenceNumber() + allLogs.seek(dateTime.toInstant().toEpochMilli());
+        return Math.min(filteredLogs.getIndexAtOrAfter(sequenceNumber), filteredLogs.size() - 1);
+    }
+
+    /**
+     * Returns a {@code StringProperty} containing the text to find in the messages of {@link #getFilteredLogs() getFilteredLogs}
+     * (ignoring case). Contrary to {@link #getFilterProperty() getFilterProperty}, this doesn't change the displayed
+     * messages: the matching messages are found in the background, and kept up to date as messages are added.
+     * By default, the text is empty and no message is found.
+     *
+     * @return the {@code StringProperty} containing the text to find
+     */
+    public StringProperty getFindProperty() {
+        return findProperty;
+    }
+
+    /**
+     * @return a {@code ReadOnlyIntegerProperty} containing the number of displayed messages found to contain
+     * the text of {@link #getFindProperty() getFindProperty}
+     */
+    public ReadOnlyIntegerProperty getFindMatchCountProperty() {
+        return logFinder.getMatchCountProperty();
+    }
+
+    /**
+     * @return a {@code ReadOnlyBooleanProperty} indicating true if the displayed messages are being searched
+     * in the background. In that case, {@link #getFindMatchCountProperty() getFindMatchCountProperty} only
+     * counts the matches found so far
+     */
+    public ReadOnlyBooleanProperty getFindingProperty() {
+        return logFinder.getSearchingProperty();
+    }
+
+    /**
+     * @param index  the index of a message of {@link #getFilteredLogs() getFilteredLogs}
+     * @return whether the message was found to contain the text of {@link #getFindProperty() getFindProperty}
+     */
+    public boolean isFindMatch(int index) {
+        return logFinder.isMatch(index);
+    }
+
+    /**
+     * @param index  the index of a message of {@link #getFilteredLogs() getFilteredLogs}
+     * @return the number of matches before the message, which is the (zero-based) number of the match if the
+     * message is a match
+     */
+    public int getFindMatchNumber(int index) {
+        return logFinder.getMatchNumber(index);
+    }
+
+    /**
+     * Find the previous message containing the text of {@link #getFindProperty() getFindProperty}, with a binary search.
+     *
+     * @param index  the index in {@link #getFilteredLogs() getFilteredLogs} to start from (excluded), or the size
+     *               of {@link #getFilteredLogs() getFilteredLogs} to find the last match
+     * @return the index in {@link #getFilteredLogs() getFilteredLogs} of the last match before {@code index},
+     * or -1 if there is none
+     */
+    public int findPreviousMatchIndex(int index) {
+        return logFinder.getPreviousMatch(index);
+    }
+
+    /**
+     * Find the next message containing the text of {@link #getFindProperty() getFindProperty}, with a binary search.
+     *
+     * @param index  the index in {@link #getFilteredLogs() getFilteredLogs} to start from (excluded), or -1
+     *               to find the first match
+     * @return the index in {@link #getFilteredLogs() getFilteredLogs} of the first match after {@code index},
+     * or -1 if there is none
+     */
+    public int findNextMatchIndex(int index) {
+        return logFinder.getNextMatch(index);
+    }
+
+    /**
+     * Find the previous displayed message of a level. This is a binary search on the positions of the
+     * displayed messages of each level, so it doesn't go through the messages in between.
+     *
+     * @param level  the level of the message to find
+     * @param index  the index in {@link #getFilteredLogs() getFilteredLogs} to start from (excluded), or the size
+     *               of {@link #getFilteredLogs() getFilteredLogs} to find the last message of the level
+     * @return the index in {@link #getFilteredLogs() getFilteredLogs} of the last message of the provided
+     * level before {@code index}, or -1 if there is none
+     */
+    public int findPreviousFilteredLogIndex(Level level, int index) {
+        return filteredLogs.getPreviousIndex(level, index);
+    }
+
+    /**
+     * Find the next displayed message of a level. This is a binary search on the positions of the
+     * displayed messages of each level, so it doesn't go through the messages in between.
+     *
+     * @param level  the level of the message to find
+     * @param index  the index in {@link #getFilteredLogs() getFilteredLogs} to start from (excluded), or -1
+     *               to find the first message of the level
+     * @return the index in {@link #getFilteredLogs() getFilteredLogs} of the first message of the provided
+     * level after {@code index}, or -1 if there is none
+     */
+    public int findNextFilteredLogIndex(Level level, int index) {
+        return filteredLogs.getNextIndex(level, index);
+    }
+
+    /**
+     * Returns an {@code ObjectProperty} containing the retention policy applied to log messages.
+     * When it is exceeded, the oldest messages are discarded in bulk.
+     * By default, no message is discarded.
+     *
+     * @return the {@code ObjectProperty} containing the current retention policy. Its value must not be null
+     */
+    public ObjectProperty<LogRetentionPolicy> getRetentionPolicyProperty() {
+        return retentionPolicyProperty;
+    }
+
+    /**
+     * Returns the name of every thread that has occurred in a log message since the logs were last
+     * cleared (threads currently displayed are kept when logs are cleared).
      *
      * @return an {@code ObservableSet} containing all thread names
      */
@@ -255,31 +509,100 @@ class LogViewerModel implements LoggerListener {
     }
 
     /**
-     * Remove all current log messages
+     * Remove all current log messages. This takes constant time: the counts, indexes and
+     * filtered messages are reset without going through the removed messages.
      */
     public void clearAllLogs() {
+        pendingLogs.clear();
         allLogs.clear();
+
+        if (displayAllThreadsProperty.get()) {
+            allThreads.clear();
+        } else {
+            allThreads.retainAll(displayedThreads);
+        }
+        // Thread ids are reset with the store, so the predicate must not use the previous ones
+        filteredLogs.replacePredicate(createPredicate());
     }
 
     /**
-     * Save all currently displayed logs to the given file.
+     * Save all currently displayed logs to the given file in the background. The displayed logs are
+     * the ones of {@link #getFilteredLogs() getFilteredLogs} when this function is called: messages
+     * added or filtered out later don't change the file. If the name of the file ends with ".gz",
+     * the file is compressed with GZIP.
      *
      * @param file  the file to save the logs to
-     * @throws FileNotFoundException when the file couldn't be written to
+     * @param format  the format of the file
+     * @return the running task saving the logs, which can be cancelled
      */
-    public void saveDisplayedLogsToFile(File file) throws FileNotFoundException {
-        try (PrintWriter writer = new PrintWriter(file)) {
-            for (LogMessage logMessage: filteredLogs) {
-                writer.println(logMessage.toReadableString());
-            }
-        }
+    public LogExportTask saveDisplayedLogsToFile(File file, LogFormat format) {
+        LogExportTask task = new LogExportTask(
+                allLogs.getRows(),
+                filteredLogs.getSequenceNumbers(),
+                file.toPath(),
+                format,
+                file.getName().toLowerCase().endsWith(".gz")
+        );
+        exportExecutor.execute(task);
+        return task;
+    }
+
+    private void appendLogs(List<LogMessage> logMessages) {
+        // A single change event, whatever the number of messages (including evicted messages)
+        allLogs.append(logMessages, System.currentTimeMillis());
     }
 
     private void setUpListeners() {
+        retentionTimeline.setCycleCount(Animation.INDEFINITE);
+        retentionPolicyProperty.addListener((p, o, n) -> {
+            allLogs.setRetentionPolicy(n, System.currentTimeMillis());
+
+            // Without a timer, old messages would only be discarded when new messages arrive
+            if (n.maxAge() == null) {
+                retentionTimeline.stop();
+            } else {
+                retentionTimeline.play();
+            }
+        });
+
         filterByRegexProperty.addListener((l, o, n) -> updateLogMessageFilter());
-        filterProperty.addListener((l, o, n) -> updateLogMessageFilter());
-        displayedLogLevels.addListener((SetChangeListener<? super Level>) change -> updateLogMessageFilter());
-        displayedThreads.addListener((SetChangeListener<? super String>) change -> updateLogMessageFilter());
+        filterByQueryProperty.addListener((l, o, n) -> updateLogMessageFilter());
+        filterProperty.addListener((l, o, n) -> updateTextFilter(o, n));
+        timeRangeProperty.addListener((l, o, n) -> updateTimeRange(o, n));
+        findProperty.addListener((l, o, n) -> logFinder.setPredicate(createFindPredicate()));
+        timeWindowTimeline.setCycleCount(Animation.INDEFINITE);
+        timeWindowProperty.addListener((l, o, n) -> updateTimeWindow(o, n));
+        displayedLogLevels.addListener((SetChangeListener<? super Level>) change -> {
+            // Only the rows of the toggled level can change, and they are given by the level bitmaps.
+            // The text filter only needs to be evaluated on the rows of a level that is shown again
+            if (change.wasAdded()) {
+                SequenceBitmap candidates = allLogs.getLevelBitmap(change.getElementAdded());
+                filteredLogs.widenPredicate(
+                        createPredicate(),
+                        restrict(restrict(candidates, getDisplayedThreadMessages()), getDisplayedTimeMessages()),
+                        getTextCheck()
+                );
+            }
+            if (change.wasRemoved()) {
+                filteredLogs.narrowPredicate(createPredicate(), getDisplayedLevelMessages());
+            }
+        });
+        displayedThreads.addListener((SetChangeListener<? super String>) change -> {
+            // Threads are not checked when all threads are displayed
+            if (!displayAllThreadsProperty.get()) {
+                if (change.wasAdded()) {
+                    int threadId = allLogs.getThreadNames().getId(change.getElementAdded());
+                    filteredLogs.widenPredicate(
+                            createPredicate(),
+                            restrict(allLogs.getThreadBitmap(threadId).and(getDisplayedLevelMessages()), getDisplayedTimeMessages()),
+                            getTextCheck()
+                    );
+                }
+                if (change.wasRemoved()) {
+                    filteredLogs.narrowPredicate(createPredicate(), getDisplayedThreadMessages());
+                }
+            }
+        });
 
         allLogs.addListener((ListChangeListener<? super LogMessage>) change -> {
             while (change.next()) {
@@ -288,37 +611,259 @@ class LogViewerModel implements LoggerListener {
                     // We expect this to be called often, the name is usually in the set already,
                     // and observable sets don't seem to support batch updates anyway
                     // ('addAll' seems to just call 'add' in a loop)
-                    for (var item : change.getAddedSubList()) {
-                        allThreads.add(item.threadName());
+                    // Thread names are read from the store directly to avoid creating the log messages
+                    for (int i=change.getFrom(); i<change.getTo(); ++i) {
+                        allThreads.add(allLogs.getThreadName(i));
                     }
                 }
             }
         });
 
         allThreads.addListener((SetChangeListener<? super String>) change -> {
+            // No need to refilter: the messages of the new thread were already filtered
+            // when they were added, and the set of displayed threads doesn't change otherwise
             if (change.wasAdded() && displayAllThreadsProperty.get()) {
                 displayedThreads.add(change.getElementAdded());
             }
-
-            updateLogMessageFilter();
+            if (change.wasRemoved() && displayAllThreadsProperty.get()) {
+                displayedThreads.remove(change.getElementRemoved());
+            }
         });
 
         displayAllThreadsProperty.addListener(change -> {
             if (displayAllThreadsProperty.get()) {
                 displayedThreads.addAll(allThreads);
+                filteredLogs.widenPredicate(
+                        createPredicate(),
+                        restrict(getDisplayedLevelMessages(), getDisplayedTimeMessages()),
+                        getTextCheck()
+                );
+            } else {
+                // All threads are still displayed at this point, so the result doesn't change
+                filteredLogs.replacePredicate(createPredicate());
             }
         });
     }
 
+    private void updateTextFilter(String oldFilter, String newFilter) {
+        if (filterByQueryProperty.get() || filterByRegexProperty.get()) {
+            updateLogMessageFilter();
+        } else {
+            String oldFilterLower = Objects.toString(oldFilter, "").toLowerCase();
+            String newFilterLower = Objects.toString(newFilter, "").toLowerCase();
+
+            if (newFilterLower.contains(oldFilterLower)) {
+                // The filter was narrowed (e.g. text appended), so only visible messages can be removed
+                filteredLogs.narrowPredicate(createPredicate(), createTextPredicate());
+            } else if (oldFilterLower.contains(newFilterLower)) {
+                // The filter was widened (e.g. text deleted), so only hidden messages
+                // of the displayed levels, threads and times can be added
+                SequenceBitmap candidates = getDisplayedLevelMessages();
+                filteredLogs.widenPredicate(
+                        createPredicate(),
+                        restrict(restrict(candidates, getDisplayedThreadMessages()), getDisplayedTimeMessages()),
+                        getTextCheck()
+                );
+            } else {
+                updateLogMessageFilter();
+            }
+        }
+    }
+
+    private void updateTimeRange(LogTimeRange oldRange, LogTimeRange newRange) {
+        if (newRange == null || (oldRange != null && newRange.contains(oldRange))) {
+            // The range was widened, so only hidden messages of the displayed levels, threads and times can be added
+            filteredLogs.widenPredicate(
+                    createPredicate(),
+                    restrict(restrict(getDisplayedLevelMessages(), getDisplayedThreadMessages()), getDisplayedTimeMessages()),
+                    getTextCheck()
+            );
+        } else if (oldRange == null || oldRange.contains(newRange)) {
+            // The range was narrowed, so visible messages are kept if they are within the new range
+            filteredLogs.narrowPredicate(createPredicate(), getDisplayedTimeMessages());
+        } else {
+            updateLogMessageFilter();
+        }
+    }
+
+    private void updateTimeWindow(Duration oldWindow, Duration newWindow) {
+        if (newWindow == null) {
+            timeWindowTimeline.stop();
+            timeWindowStart = Long.MIN_VALUE;
+        } else {
+            timeWindowStart = System.currentTimeMillis() - (long) newWindow.toMillis();
+            timeWindowTimeline.play();
+        }
+
+        if (newWindow == null || (oldWindow != null && newWindow.greaterThan(oldWindow))) {
+            // The window was widened, so only hidden messages of the displayed levels, threads and times can be added
+            filteredLogs.widenPredicate(
+                    createPredicate(),
+                    restrict(restrict(getDisplayedLevelMessages(), getDisplayedThreadMessages()), getDisplayedTimeMessages()),
+                    getTextCheck()
+            );
+        } else {
+            // The window was narrowed, so visible messages are kept if they are within the new window
+            filteredLogs.narrowPredicate(createPredicate(), getDisplayedTimeMessages());
+        }
+    }
+
+    /**
+     * Move the start of the time window to the current time minus its duration. The predicates read
+     * the start of the window when they are evaluated, so only the messages that left the window are
+     * removed, and messages that enter it (i.e. new messages) are added when they arrive.
+     */
+    private void slideTimeWindow() {
+        Duration timeWindow = timeWindowProperty.get();
+        if (timeWindow != null) {
+            long start = System.currentTimeMillis() - (long) timeWindow.toMillis();
+            timeWindowStart = start;
+            filteredLogs.removeHead((rows, i) -> rows.getTimestamp(i) >= start);
+        }
+    }
+
     private void updateLogMessageFilter() {
-        Predicate<LogMessage> filterPredicate = filterByRegexProperty.get() ?
-                LogMessagePredicates.createPredicateFromRegex(filterProperty.get()) :
-                LogMessagePredicates.createPredicateContainsIgnoreCase(filterProperty.get());
-
-        filteredLogs.setPredicate(
-                filterPredicate.and(
-                        logMessage -> displayedLogLevels.contains(logMessage.level()) && displayedThreads.contains(logMessage.threadName())
-                )
-        );
+        filteredLogs.setPredicate(createPredicate());
+    }
+
+    /**
+     * @return the bitmap restricted to the displayed messages, or the bitmap itself if {@code displayedMessages} is null
+     */
+    private static SequenceBitmap restrict(SequenceBitmap messages, SequenceBitmap displayedMessages) {
+        return displayedMessages == null ? messages : messages.and(displayedMessages);
+    }
+
+    /**
+     * @return the messages of the displayed levels, from the level bitmaps of the store
+     */
+    private SequenceBitmap getDisplayedLevelMessages() {
+        SequenceBitmap messages = new SequenceBitmap();
+        for (Level level: displayedLogLevels) {
+            messages = messages.or(allLogs.getLevelBitmap(level));
+        }
+        return messages;
+    }
+
+    /**
+     * @return the messages of the displayed threads, from the thread bitmaps of the store,
+     * or null if all threads are displayed
+     */
+    private SequenceBitmap getDisplayedThreadMessages() {
+        if (displayAllThreadsProperty.get()) {
+            return null;
+        }
+
+        SequenceBitmap messages = new SequenceBitmap();
+        for (String threadName: displayedThreads) {
+            messages = messages.or(allLogs.getThreadBitmap(allLogs.getThreadNames().getId(threadName)));
+        }
+        return messages;
+    }
+
+    /**
+     * @return the messages within the displayed time range and time window, from the timestamp index
+     * of the store, or null if messages are not filtered by time
+     */
+    private SequenceBitmap getDisplayedTimeMessages() {
+        LogTimeRange timeRange = timeRangeProperty.get();
+        if (timeRange == null && timeWindowProperty.get() == null) {
+            return null;
+        }
+
+        long from = timeRange == null ? timeWindowStart : Math.max(timeRange.from(), timeWindowStart);
+        long to = timeRange == null ? Long.MAX_VALUE : timeRange.to();
+        return from > to ? new SequenceBitmap() : allLogs.getTimeRangeBitmap(from, to);
+    }
+
+    /**
+     * @return the text predicate, or null if there is no text filter
+     */
+    private LogRowPredicate getTextCheck() {
+        LogRowPredicate textPredicate = createTextPredicate();
+        return textPredicate == LogRowPredicate.ALWAYS_TRUE ? null : textPredicate;
+    }
+
+    /**
+     * Create the predicate corresponding to the current filters. The cheapest checks
+     * (level, thread and time) are done first, and the text of the message is only decoded if they pass.
+     */
+    private LogRowPredicate createPredicate() {
+        return createLevelPredicate().and(createThreadPredicate()).and(createTimePredicate()).and(createTextPredicate());
+    }
+
+    private LogRowPredicate createTimePredicate() {
+        LogTimeRange timeRange = timeRangeProperty.get();
+        if (timeWindowProperty.get() == null) {
+            return timeRange == null ? LogRowPredicate.ALWAYS_TRUE : (rows, i) -> timeRange.contains(rows.getTimestamp(i));
+        }
+
+        return (rows, i) -> {
+            long timestamp = rows.getTimestamp(i);
+            return timestamp >= timeWindowStart && (timeRange == null || timeRange.contains(timestamp));
+        };
+    }
+
+    private LogRowPredicate createLevelPredicate() {
+        boolean[] displayedLevels = new boolean[Level.values().length];
+        for (Level level: displayedLogLevels) {
+            displayedLevels[level.ordinal()] = true;
+        }
+        return (rows, i) -> displayedLevels[rows.getLevel(i).ordinal()];
+    }
+
+    private LogRowPredicate createThreadPredicate() {
+        if (displayAllThreadsProperty.get()) {
+            return LogRowPredicate.ALWAYS_TRUE;
+        }
+
+        // Threads known at this point are looked up by id, other threads by name
+        Set<String> threadNames = new HashSet<>(displayedThreads);
+        StringDictionary threadDictionary = allLogs.getThreadNames();
+        boolean[] displayedThreadIds = new boolean[threadDictionary.size()];
+        for (int id=0; id<displayedThreadIds.length; ++id) {
+            displayedThreadIds[id] = threadNames.contains(threadDictionary.get(id));
+        }
+        return (rows, i) -> {
+            int threadId = rows.getThreadId(i);
+            return threadId >= 0 && threadId < displayedThreadIds.length ?
+                    displayedThreadIds[threadId] :
+                    threadNames.contains(rows.getThreadName(i));
+        };
+    }
+
+    /**
+     * @return the predicate of the messages containing the text to find, or null if there is no text to find
+     */
+    private LogRowPredicate createFindPredicate() {
+        String text = findProperty.get();
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+
+        Predicate<String> messagePredicate = LogMessagePredicates.createMessagePredicateContainsIgnoreCase(text);
+        return (rows, i) -> messagePredicate.test(rows.getMessage(i));
+    }
+
+    private LogRowPredicate createTextPredicate() {
+        String filter = filterProperty.get();
+        if (filter == null || filter.isEmpty()) {
+            return LogRowPredicate.ALWAYS_TRUE;
+        }
+
+        if (filterByQueryProperty.get()) {
+            try {
+                return LogQuery.parse(filter).toRowPredicate();
+            } catch (IllegalArgumentException e) {
+                // Like an invalid regex, an invalid query doesn't match any message
+                return (rows, i) -> false;
+            }
+        } else if (filterByRegexProperty.get()) {
+            // Matching messages must contain the required literal of the regex (if any), which allows using the index
+            return LogMessagePredicates.createRowPredicateFromRegex(filter);
+        } else {
+            // Matching messages must contain the filter, which allows large stores to use an index
+            Predicate<String> messagePredicate = LogMessagePredicates.createMessagePredicateContainsIgnoreCase(filter);
+            return LogRowPredicate.withRequiredText((rows, i) -> messagePredicate.test(rows.getMessage(i)), filter);
+        }
     }
 }
@@ -0,0 +1,235 @@
+package qupath.ui.logviewer.ui.main;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds the literals that any text matching a regular expression must contain.
+ * <p>
+ * For example, a text matching {@code Tile.*failed} must contain "Tile" and "failed", and a text matching
+ * {@code \bOOM\b} must contain "OOM". These literals can be searched with a fast substring search before
+ * running the regular expression.
+ * <p>
+ * The analysis is conservative: groups, character classes and optional characters are skipped, and no
+ * literal is returned if the expression contains a top-level alternation, inline flags (which may make it
+ * case-insensitive) or constructs that are not understood.
+ */
+final class RegexLiterals {
+
+    private RegexLiterals() {}
+
+    /**
+     * Get the literals that any text matching a regular expression must contain.
+     *
+     * @param regex  the regular expression
+     * @return the literals required by the regular expression, in order of appearance. The list is empty if
+     * no literal could be found
+     */
+    public static List<String> getRequiredLiterals(String regex) {
+        try {
+            return parse(regex);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * @param regex  the regular expression
+     * @return the longest literal that any text matching the regular expression must contain, or null if there is none
+     */
+    public static String getLongestRequiredLiteral(String regex) {
+        return getRequiredLiterals(regex).stream()
+                .max(Comparator.comparingInt(String::length))
+                .orElse(null);
+    }
+
+    private static List<String> parse(String regex) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        int i = 0;
+
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            // Position in the current run of the characters of the atom being parsed, or -1 if it isn't literal
+            int atomStart = -1;
+
+            switch (c) {
+                case '\\' -> {
+                    char next = regex.charAt(i + 1);
+                    if (next == 'Q') {
+                        int end = regex.indexOf("\\E", i + 2);
+                        String quoted = end < 0 ? regex.substring(i + 2) : regex.substring(i + 2, end);
+                        run.append(quoted);
+                        // A quantifier following a quote only applies to its last character
+                        atomStart = quoted.isEmpty() ? -1 : run.length() - 1;
+                        i = end < 0 ? regex.length() : end + 2;
+                    } else if (!Character.isLetterOrDigit(next)) {
+                        atomStart = run.length();
+                        run.append(next);
+                        i += 2;
+                    } else {
+                        flush(run, literals);
+                        i = skipEscape(regex, i);
+                    }
+                }
+                case '[' -> {
+                    flush(run, literals);
+                    i = skipCharacterClass(regex, i);
+                }
+                case '(' -> {
+                    if (regex.charAt(i + 1) == '?' && (Character.isLetter(regex.charAt(i + 2)) || regex.charAt(i + 2) == '-')) {
+                        throw new IllegalArgumentException("Inline flags are not supported");
+                    }
+                    flush(run, literals);
+                    i = skipGroup(regex, i);
+                }
+                case '|' -> throw new IllegalArgumentException("Top-level alternations don't have required literals");
+                case '.', '^', '$' -> {
+                    flush(run, literals);
+                    i++;
+                }
+                case '*', '+', '?', '{', ')' -> throw new IllegalArgumentException("Unexpected character " + c);
+                default -> {
+                    atomStart = run.length();
+                    run.append(c);
+                    i++;
+                    if (Character.isHighSurrogate(c) && i < regex.length() && Character.isLowSurrogate(regex.charAt(i))) {
+                        run.append(regex.charAt(i));
+                        i++;
+                    }
+                }
+            }
+
+            i = parseQuantifier(regex, i, run, atomStart, literals);
+        }
+
+        flush(run, literals);
+        return literals;
+    }
+
+    /**
+     * Parse the quantifier (if any) following an atom. An atom that can be absent is removed from the
+     * current run, and an atom that can be repeated ends the current run.
+     *
+     * @return the index following the quantifier
+     */
+    private static int parseQuantifier(String regex, int i, StringBuilder run, int atomStart, List<String> literals) {
+        if (i >= regex.length()) {
+            return i;
+        }
+
+        int minimum;
+        switch (regex.charAt(i)) {
+            case '*', '?' -> {
+                minimum = 0;
+                i++;
+            }
+            case '+' -> {
+                minimum = 1;
+                i++;
+            }
+            case '{' -> {
+                int end = regex.indexOf('}', i);
+                String bounds = regex.substring(i + 1, end);
+                int comma = bounds.indexOf(',');
+                minimum = Integer.parseInt(comma < 0 ? bounds : bounds.substring(0, comma));
+                i = end + 1;
+            }
+            default -> {
+                return i;
+            }
+        }
+
+        if (i < regex.length() && (regex.charAt(i) == '?' || regex.charAt(i) == '+')) {
+            // Reluctant and possessive quantifiers have the same minimum
+            i++;
+        }
+
+        if (atomStart >= 0 && minimum == 0) {
+            run.setLength(atomStart);
+        }
+        flush(run, literals);
+        return i;
+    }
+
+    /**
+     * Skip an escape sequence starting with a letter or a digit. Only escapes matching a single
+     * (unknown) character or nothing are supported.
+     */
+    private static int skipEscape(String regex, int i) {
+        char c = regex.charAt(i + 1);
+        return switch (c) {
+            case 'd', 'D', 's', 'S', 'w', 'W', 'b', 'B', 'A', 'z', 'Z', 'G', 'h', 'H', 'v', 'V', 'R', 'X',
+                    't', 'n', 'r', 'f', 'a', 'e' -> i + 2;
+            case 'p', 'P' -> regex.charAt(i + 2) == '{' ? indexAfter(regex, "}", i + 2) : i + 3;
+            default -> throw new IllegalArgumentException("Unsupported escape \\" + c);
+        };
+    }
+
+    private static int skipCharacterClass(String regex, int i) {
+        int j = i + 1;
+        if (regex.charAt(j) == '^') {
+            j++;
+        }
+        if (regex.charAt(j) == ']') {
+            j++;
+        }
+
+        while (regex.charAt(j) != ']') {
+            if (regex.charAt(j) == '\\') {
+                j = skipEscapedCharacter(regex, j);
+            } else if (regex.charAt(j) == '[') {
+                j = skipCharacterClass(regex, j);
+            } else {
+                j++;
+            }
+        }
+        return j + 1;
+    }
+
+    private static int skipGroup(String regex, int i) {
+        int depth = 0;
+        int j = i;
+
+        do {
+            switch (regex.charAt(j)) {
+                case '\\' -> j = skipEscapedCharacter(regex, j);
+                case '[' -> j = skipCharacterClass(regex, j);
+                case '(' -> {
+                    depth++;
+                    j++;
+                }
+                case ')' -> {
+                    depth--;
+                    j++;
+                }
+                default -> j++;
+            }
+        } while (depth > 0);
+
+        return j;
+    }
+
+    /**
+     * Skip an escaped character, or a quote (which may contain characters that would otherwise be special).
+     */
+    private static int skipEscapedCharacter(String regex, int i) {
+        return regex.charAt(i + 1) == 'Q' ? indexAfter(regex, "\\E", i + 2) : i + 2;
+    }
+
+    private static int indexAfter(String regex, String text, int from) {
+        int index = regex.indexOf(text, from);
+        if (index < 0) {
+            throw new IllegalArgumentException("Missing " + text);
+        }
+        return index + text.length();
+    }
+
+    private static void flush(StringBuilder run, List<String> literals) {
+        if (!run.isEmpty()) {
+            literals.add(run.toString());
+            run.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package qupath.ui.logviewer.ui.main;
+
+import java.util.Arrays;
+
+/**
+ * Searches a fixed text in strings with the Boyer-Moore-Horspool algorithm.
+ * <p>
+ * The text is preprocessed once into a table giving, for the last character of the current
+ * window, how far the window can be shifted. Characters are hashed on their low byte, and
+ * colliding characters keep the smallest shift, which is always safe.
+ * <p>
+ * The search can ignore case: characters are then folded (like {@link String#regionMatches(boolean, int, String, int, int)}
+ * does) as they are read, so that no lowercase copy of the searched strings is created.
+ * <p>
+ * Instances are immutable and can be used from several threads.
+ */
+final class SubstringMatcher {
+
+    private static final int TABLE_SIZE = 256;
+    private final char[] pattern;
+    private final int[] shifts = new int[TABLE_SIZE];
+    private final boolean ignoreCase;
+
+    /**
+     * Create a matcher searching the provided text, taking case into account.
+     *
+     * @param text  the text to search
+     */
+    public SubstringMatcher(String text) {
+        this(text, false);
+    }
+
+    /**
+     * Create a matcher searching the provided text.
+     *
+     * @param text  the text to search
+     * @param ignoreCase  whether the case of characters should be ignored
+     */
+    public SubstringMatcher(String text, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        pattern = text.toCharArray();
+        if (ignoreCase) {
+            for (int i=0; i<pattern.length; ++i) {
+                pattern[i] = fold(pattern[i]);
+            }
+        }
+
+        Arrays.fill(shifts, pattern.length);
+        for (int i=0; i<pattern.length-1; ++i) {
+            shifts[pattern[i] & (TABLE_SIZE - 1)] = pattern.length - 1 - i;
+        }
+    }
+
+    /**
+     * @param string  the string to search in
+     * @return whether the string contains the text of this matcher
+     */
+    public boolean isContainedIn(String string) {
+        return indexIn(string) >= 0;
+    }
+
+    /**
+     * @param string  the string to search in
+     * @return the index of the first occurrence of the text of this matcher in the string, or -1 if there is none
+     */
+    public int indexIn(String string) {
+        int m = pattern.length;
+        if (m == 0) {
+            return 0;
+        }
+        if (m == 1 && !ignoreCase) {
+            return string.indexOf(pattern[0]);
+        }
+
+        char last = pattern[m - 1];
+        int lastStart = string.length() - m;
+        int i = 0;
+        while (i <= lastStart) {
+            char c = charAt(string, i + m - 1);
+            if (c == last) {
+                int j = m - 2;
+                while (j >= 0 && charAt(string, i + j) == pattern[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return i;
+                }
+            }
+            i += shifts[c & (TABLE_SIZE - 1)];
+        }
+        return -1;
+    }
+
+    /**
+     * Fold the case of a character, so that characters differing only by case are equal once folded.
+     *
+     * @param c  the character to fold
+     * @return the folded character
+     */
+    public static char fold(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private char charAt(String string, int index) {
+        return ignoreCase ? fold(string.charAt(index)) : string.charAt(index);
+    }
+}
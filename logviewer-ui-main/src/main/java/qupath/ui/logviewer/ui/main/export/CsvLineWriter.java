@@ -0,0 +1,89 @@
+package qupath.ui.logviewer.ui.main.export;
+
+import qupath.ui.logviewer.api.LogMessage;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * A {@link LogLineWriter} writing comma-separated values as described by RFC 4180: lines end with CRLF,
+ * and fields containing a comma, a double quote or a line break are enclosed in double quotes (with
+ * double quotes doubled).
+ * <p>
+ * The columns are the timestamp in milliseconds since the epoch, the level, the thread, the logger,
+ * the message, and the class, message and printed stack trace (including causes) of the throwable.
+ * The throwable columns are empty if the message doesn't have a throwable.
+ */
+final class CsvLineWriter implements LogLineWriter {
+
+    private static final String HEADER = "timestamp,level,thread,logger,message,throwableClass,throwableMessage,stackTrace";
+    private static final String LINE_SEPARATOR = "\r\n";
+
+    @Override
+    public void appendHeader(StringBuilder output) {
+        output.append(HEADER).append(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void appendLine(StringBuilder output, LogMessage logMessage) {
+        output.append(logMessage.timestamp()).append(',');
+        if (logMessage.level() != null) {
+            output.append(logMessage.level().name());
+        }
+        output.append(',');
+        appendField(output, logMessage.threadName());
+        output.append(',');
+        appendField(output, logMessage.loggerName());
+        output.append(',');
+        appendField(output, logMessage.message());
+        output.append(',');
+
+        Throwable throwable = logMessage.throwable();
+        if (throwable == null) {
+            output.append(",,");
+        } else {
+            appendField(output, throwable.getClass().getName());
+            output.append(',');
+            appendField(output, throwable.getMessage());
+            output.append(',');
+
+            StringWriter sw = new StringWriter();
+            try (var pw = new PrintWriter(sw)) {
+                throwable.printStackTrace(pw);
+            }
+            appendField(output, sw.toString());
+        }
+        output.append(LINE_SEPARATOR);
+    }
+
+    private static void appendField(StringBuilder output, String value) {
+        if (value == null) {
+            return;
+        }
+
+        if (!needsQuotes(value)) {
+            output.append(value);
+            return;
+        }
+
+        output.append('"');
+        for (int i=0; i<value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                output.append('"');
+            }
+            output.append(c);
+        }
+        output.append('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i=0; i<value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,92 @@
+package qupath.ui.logviewer.ui.main.export;
+
+import qupath.ui.logviewer.api.LogMessage;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * A {@link LogLineWriter} writing one JSON object per line, for example:
+ * <pre>
+ * {"timestamp":1700000000000,"level":"ERROR","thread":"main","logger":"a.B","message":"Failed","throwable":{"class":"java.io.IOException","message":"Closed","stackTrace":["a.B.run(B.java:12)"],"cause":null}}
+ * </pre>
+ * The throwable is {@code null} if the message doesn't have one. Causes are nested in the same way,
+ * and a cause already written for the message is written as {@code null} to avoid cycles.
+ */
+final class JsonLinesWriter implements LogLineWriter {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    @Override
+    public void appendLine(StringBuilder output, LogMessage logMessage) {
+        output.append("{\"timestamp\":").append(logMessage.timestamp());
+        output.append(",\"level\":");
+        appendString(output, logMessage.level() == null ? null : logMessage.level().name());
+        output.append(",\"thread\":");
+        appendString(output, logMessage.threadName());
+        output.append(",\"logger\":");
+        appendString(output, logMessage.loggerName());
+        output.append(",\"message\":");
+        appendString(output, logMessage.message());
+        output.append(",\"throwable\":");
+        if (logMessage.throwable() == null) {
+            output.append("null");
+        } else {
+            appendThrowable(output, logMessage.throwable(), Collections.newSetFromMap(new IdentityHashMap<>()));
+        }
+        output.append('}').append('\n');
+    }
+
+    private static void appendThrowable(StringBuilder output, Throwable throwable, Set<Throwable> written) {
+        if (throwable == null || !written.add(throwable)) {
+            output.append("null");
+            return;
+        }
+
+        output.append("{\"class\":");
+        appendString(output, throwable.getClass().getName());
+        output.append(",\"message\":");
+        appendString(output, throwable.getMessage());
+        output.append(",\"stackTrace\":[");
+        StackTraceElement[] stackTrace = throwable.getStackTrace();
+        for (int i=0; i<stackTrace.length; ++i) {
+            if (i > 0) {
+                output.append(',');
+            }
+            appendString(output, stackTrace[i].toString());
+        }
+        output.append("],\"cause\":");
+        appendThrowable(output, throwable.getCause(), written);
+        output.append('}');
+    }
+
+    private static void appendString(StringBuilder output, String value) {
+        if (value == null) {
+            output.append("null");
+            return;
+        }
+
+        output.append('"');
+        for (int i=0; i<value.length(); ++i) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> output.append("\\\"");
+                case '\\' -> output.append("\\\\");
+                case '\n' -> output.append("\\n");
+                case '\r' -> output.append("\\r");
+                case '\t' -> output.append("\\t");
+                case '\b' -> output.append("\\b");
+                case '\f' -> output.append("\\f");
+                default -> {
+                    if (c < 0x20) {
+                        output.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+                    } else {
+                        output.append(c);
+                    }
+                }
+            }
+        }
+        output.append('"');
+    }
+}
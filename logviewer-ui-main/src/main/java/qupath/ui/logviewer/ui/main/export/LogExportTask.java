@@ -0,0 +1,178 @@
+package qupath.ui.logviewer.ui.main.export;
+
+import javafx.concurrent.Task;
+import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.ui.main.store.LogRows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A {@link Task} writing log messages to a file in a {@link LogFormat}.
+ * <p>
+ * The messages are given as a snapshot (the rows of a store and the sequence numbers of the messages to write)
+ * taken on the JavaFX Application Thread, so that messages added or filtered out while the task is running
+ * don't change the result. Messages evicted from the store before they are written can't be read anymore,
+ * so they are skipped (see {@link #getNumberOfSkippedMessages()}).
+ * <p>
+ * Lines are encoded in a large buffer which is written to a {@link FileChannel}, optionally through a
+ * GZIP stream. The progress of the task is updated as messages are written, and the file is deleted
+ * if the task is cancelled.
+ */
+public class LogExportTask extends Task<Integer> {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int PROGRESS_INTERVAL = 4096;
+    private final LogRows rows;
+    private final long[] sequenceNumbers;
+    private final Path path;
+    private final LogFormat format;
+    private final boolean compressed;
+    private volatile int numberOfSkippedMessages = 0;
+
+    /**
+     * Creates a task writing messages to a file.
+     *
+     * @param rows  the rows containing the messages to write
+     * @param sequenceNumbers  the sequence numbers of the messages to write, in the order they should be written.
+     *                         This array must not be modified afterwards
+     * @param path  the path of the file to write. It is replaced if it already exists
+     * @param format  the format of the file to write
+     * @param compressed  whether to compress the file with GZIP
+     */
+    public LogExportTask(LogRows rows, long[] sequenceNumbers, Path path, LogFormat format, boolean compressed) {
+        this.rows = rows;
+        this.sequenceNumbers = sequenceNumbers;
+        this.path = path;
+        this.format = format;
+        this.compressed = compressed;
+    }
+
+    /**
+     * @return the path of the file written by this task
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the number of messages that were evicted from the store before being written,
+     * and are therefore missing from the file
+     */
+    public int getNumberOfSkippedMessages() {
+        return numberOfSkippedMessages;
+    }
+
+    /**
+     * Write the messages.
+     *
+     * @return the number of messages written, or null if the task was cancelled
+     * @throws IOException when the file cannot be written
+     */
+    @Override
+    protected Integer call() throws IOException {
+        int numberOfWrittenMessages;
+        try {
+            numberOfWrittenMessages = write();
+        } catch (IOException e) {
+            // Cancelling the task interrupts it, which closes the channel
+            if (!isCancelled()) {
+                throw e;
+            }
+            numberOfWrittenMessages = 0;
+        }
+
+        if (isCancelled()) {
+            Files.deleteIfExists(path);
+            return null;
+        }
+        updateProgress(sequenceNumbers.length, sequenceNumbers.length);
+        return numberOfWrittenMessages;
+    }
+
+    private int write() throws IOException {
+        int numberOfWrittenMessages = 0;
+
+        try (
+                FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                OutputStream output = compressed ? new GZIPOutputStream(Channels.newOutputStream(channel), 1 << 16) : Channels.newOutputStream(channel)
+        ) {
+            LogLineWriter writer = format.createLineWriter();
+            CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            StringBuilder line = new StringBuilder();
+
+            writer.appendHeader(line);
+            encode(CharBuffer.wrap(line), encoder, buffer, output);
+
+            for (int i=0; i<sequenceNumbers.length; ++i) {
+                if (i % PROGRESS_INTERVAL == 0) {
+                    if (isCancelled()) {
+                        break;
+                    }
+                    updateProgress(i, sequenceNumbers.length);
+                }
+
+                LogMessage logMessage = readLogMessage(sequenceNumbers[i]);
+                if (logMessage == null) {
+                    numberOfSkippedMessages++;
+                } else {
+                    line.setLength(0);
+                    writer.appendLine(line, logMessage);
+                    encode(CharBuffer.wrap(line), encoder, buffer, output);
+                    numberOfWrittenMessages++;
+                }
+            }
+
+            buffer.flip();
+            output.write(buffer.array(), buffer.position(), buffer.remaining());
+        }
+        return numberOfWrittenMessages;
+    }
+
+    /**
+     * @return the message, or null if it was evicted from the store (in which case what was read is invalid)
+     */
+    private LogMessage readLogMessage(long sequenceNumber) {
+        LogMessage logMessage;
+        try {
+            logMessage = rows.getLogMessage(sequenceNumber);
+        } catch (RuntimeException e) {
+            logMessage = null;
+        }
+        return rows.isEvicted(sequenceNumber) ? null : logMessage;
+    }
+
+    /**
+     * Encode characters in the buffer, writing the buffer to the output each time it is full.
+     */
+    private static void encode(CharBuffer characters, CharsetEncoder encoder, ByteBuffer buffer, OutputStream output) throws IOException {
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(characters, buffer, true);
+            if (result.isOverflow()) {
+                buffer.flip();
+                output.write(buffer.array(), buffer.position(), buffer.remaining());
+                buffer.clear();
+            } else if (result.isUnderflow()) {
+                return;
+            } else {
+                result.throwException();
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package qupath.ui.logviewer.ui.main.export;
+
+/**
+ * The formats in which log messages can be written to a file by a {@link LogExportTask}.
+ */
+public enum LogFormat {
+
+    /**
+     * One message per line in the format of {@link qupath.ui.logviewer.api.LogMessage#toReadableString()}.
+     */
+    TEXT(".log"),
+
+    /**
+     * One JSON object per line, with the timestamp in milliseconds since the epoch
+     * and the throwable (if any) as a nested object.
+     */
+    JSON_LINES(".jsonl"),
+
+    /**
+     * Comma-separated values as described by RFC 4180, with a header line, the timestamp
+     * in milliseconds since the epoch and the throwable (if any) split in several columns.
+     */
+    CSV(".csv");
+
+    private final String extension;
+
+    LogFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * @return the usual extension of files of this format, including the leading dot
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @return a new writer of lines of this format. Writers are not thread-safe
+     */
+    LogLineWriter createLineWriter() {
+        return switch (this) {
+            case TEXT -> new TextLineWriter();
+            case JSON_LINES -> new JsonLinesWriter();
+            case CSV -> new CsvLineWriter();
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package qupath.ui.logviewer.ui.main.export;
+
+import qupath.ui.logviewer.api.LogMessage;
+
+/**
+ * Append log messages to a buffer in a file format, one message after the other.
+ * <p>
+ * Fields are appended (and escaped if needed) character by character to the provided buffer,
+ * so that no intermediate string is created for the usual fields of a message.
+ * Implementations are not thread-safe.
+ */
+interface LogLineWriter {
+
+    /**
+     * Append what comes before the first message of a file. Nothing by default.
+     *
+     * @param output  the buffer to append to
+     */
+    default void appendHeader(StringBuilder output) {}
+
+    /**
+     * Append a message followed by a line separator.
+     *
+     * @param output  the buffer to append to
+     * @param logMessage  the message to append
+     */
+    void appendLine(StringBuilder output, LogMessage logMessage);
+}
@@ -0,0 +1,15 @@
+package qupath.ui.logviewer.ui.main.export;
+
+import qupath.ui.logviewer.api.LogMessage;
+
+/**
+ * A {@link LogLineWriter} using the format of {@link LogMessage#toReadableString()}, with the
+ * line separator of the platform.
+ */
+final class TextLineWriter implements LogLineWriter {
+
+    @Override
+    public void appendLine(StringBuilder output, LogMessage logMessage) {
+        logMessage.appendTo(output).append(System.lineSeparator());
+    }
+}
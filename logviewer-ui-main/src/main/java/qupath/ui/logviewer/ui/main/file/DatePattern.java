@@ -0,0 +1,347 @@
+package qupath.ui.logviewer.ui.main.file;
+
+import java.text.DateFormatSymbols;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A date pattern (as used by {@link java.text.SimpleDateFormat} and logging layouts) compiled to parse
+ * dates character by character.
+ * <p>
+ * Patterns only made of numeric fields ({@code yyyy}, {@code yy}, {@code M}, {@code MM}, {@code d},
+ * {@code dd}, {@code H}, {@code HH}, {@code h}, {@code hh}, {@code mm}, {@code ss}, {@code S...}),
+ * abbreviated month names ({@code MMM}), AM/PM markers ({@code a}) and literals are parsed without
+ * creating any object, and the start of the current hour in epoch milliseconds is cached, since
+ * consecutive log lines usually share it. Other patterns (for example with time zones) are parsed
+ * with a {@link DateTimeFormatter}, and their length is determined by what follows the date.
+ * <p>
+ * Fields missing from the pattern (usually the date of patterns that only contain the time) are
+ * taken from a default date. This class is thread-safe.
+ */
+final class DatePattern {
+
+    private enum TokenType {
+        YEAR_4, YEAR_2, MONTH, MONTH_TEXT, DAY, HOUR_OF_DAY, CLOCK_HOUR, MINUTE, SECOND, FRACTION, AM_PM, LITERAL
+    }
+
+    private record Token(TokenType type, int minDigits, int maxDigits, char literal) {}
+
+    private record HourStart(long key, long epochMilli) {}
+
+    private final Token[] tokens;
+    private final DateTimeFormatter formatter;
+    private final LocalDate defaultDate;
+    private final ZoneId zone;
+    private final String[] shortMonths;
+    private final String[] amPmStrings;
+    private volatile HourStart lastHourStart = new HourStart(-1, 0);
+
+    private DatePattern(Token[] tokens, DateTimeFormatter formatter, LocalDate defaultDate, ZoneId zone, Locale locale) {
+        this.tokens = tokens;
+        this.formatter = formatter;
+        this.defaultDate = defaultDate;
+        this.zone = zone;
+
+        DateFormatSymbols symbols = DateFormatSymbols.getInstance(locale);
+        this.shortMonths = symbols.getShortMonths();
+        this.amPmStrings = symbols.getAmPmStrings();
+    }
+
+    /**
+     * Compile a date pattern.
+     *
+     * @param pattern  the pattern of dates, or one of the names "ISO8601", "ABSOLUTE" and "DATE" of log4j
+     * @param defaultDate  the date to use when the pattern doesn't contain the year, month or day
+     * @param zone  the time zone of the dates
+     * @param locale  the locale of the names of months and AM/PM markers
+     * @return the compiled pattern
+     * @throws IllegalArgumentException when the pattern is invalid
+     */
+    public static DatePattern compile(String pattern, LocalDate defaultDate, ZoneId zone, Locale locale) {
+        String expandedPattern = switch (pattern) {
+            case "ISO8601" -> "yyyy-MM-dd HH:mm:ss,SSS";
+            case "ABSOLUTE" -> "HH:mm:ss,SSS";
+            case "DATE" -> "dd MMM yyyy HH:mm:ss,SSS";
+            default -> pattern;
+        };
+
+        Token[] tokens = compileTokens(expandedPattern);
+        if (tokens != null) {
+            return new DatePattern(tokens, null, defaultDate, zone, locale);
+        } else {
+            return new DatePattern(null, new DateTimeFormatterBuilder()
+                    .appendPattern(expandedPattern)
+                    .toFormatter(locale), defaultDate, zone, locale);
+        }
+    }
+
+    /**
+     * @return whether dates have a fixed structure known by this class, which means that their end
+     * is found by {@link #match(CharSequence, int, int)}. Otherwise, their end must be found by the caller
+     */
+    public boolean isCompiled() {
+        return tokens != null;
+    }
+
+    /**
+     * Check that a date starts at the provided position, without creating any object if
+     * the pattern {@link #isCompiled() is compiled}.
+     *
+     * @param text  the text containing the date
+     * @param from  the position where the date starts
+     * @param to  the position after the date if the pattern is not compiled, or the end of the text otherwise
+     * @return the position after the date, or -1 if there is no valid date
+     */
+    public int match(CharSequence text, int from, int to) {
+        if (tokens == null) {
+            return parseWithFormatter(text, from, to) == Long.MIN_VALUE ? -1 : to;
+        }
+
+        int position = from;
+        for (Token token: tokens) {
+            position = switch (token.type()) {
+                case LITERAL -> position < to && text.charAt(position) == token.literal() ? position + 1 : -1;
+                case MONTH_TEXT -> skipText(text, position, to, shortMonths);
+                case AM_PM -> skipText(text, position, to, amPmStrings);
+                default -> skipDigits(text, position, to, token);
+            };
+            if (position < 0) {
+                return -1;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Parse a date.
+     *
+     * @param text  the text containing the date
+     * @param from  the position where the date starts
+     * @param to  the position after the date if the pattern is not compiled, or the end of the text otherwise
+     * @return the number of milliseconds since the epoch of the date, or {@link Long#MIN_VALUE} if there is no valid date
+     */
+    public long parse(CharSequence text, int from, int to) {
+        if (tokens == null) {
+            return parseWithFormatter(text, from, to);
+        }
+
+        int year = defaultDate.getYear();
+        int month = defaultDate.getMonthValue();
+        int day = defaultDate.getDayOfMonth();
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        int millisecond = 0;
+        int amPm = -1;
+
+        int position = from;
+        for (Token token: tokens) {
+            if (token.type() == TokenType.LITERAL) {
+                if (position >= to || text.charAt(position) != token.literal()) {
+                    return Long.MIN_VALUE;
+                }
+                position++;
+            } else if (token.type() == TokenType.MONTH_TEXT || token.type() == TokenType.AM_PM) {
+                String[] names = token.type() == TokenType.MONTH_TEXT ? shortMonths : amPmStrings;
+                int index = matchText(text, position, to, names);
+                if (index < 0) {
+                    return Long.MIN_VALUE;
+                }
+                position += names[index].length();
+                if (token.type() == TokenType.MONTH_TEXT) {
+                    month = index + 1;
+                } else {
+                    amPm = index;
+                }
+            } else {
+                int end = skipDigits(text, position, to, token);
+                if (end < 0) {
+                    return Long.MIN_VALUE;
+                }
+                int value = 0;
+                for (int i=position; i<end; ++i) {
+                    value = 10 * value + (text.charAt(i) - '0');
+                }
+
+                switch (token.type()) {
+                    case YEAR_4 -> year = value;
+                    case YEAR_2 -> year = 2000 + value;
+                    case MONTH -> month = value;
+                    case DAY -> day = value;
+                    case HOUR_OF_DAY, CLOCK_HOUR -> hour = value;
+                    case MINUTE -> minute = value;
+                    case SECOND -> second = value;
+                    case FRACTION -> {
+                        // Keep the first three digits of the fraction of second
+                        for (int i=end-position; i<3; ++i) {
+                            value *= 10;
+                        }
+                        for (int i=3; i<end-position; ++i) {
+                            value /= 10;
+                        }
+                        millisecond = value;
+                    }
+                    default -> throw new IllegalStateException("Unexpected token " + token);
+                }
+                position = end;
+            }
+        }
+
+        if (amPm >= 0) {
+            hour = hour % 12 + 12 * amPm;
+        }
+        if (month < 1 || month > 12 || day < 1 || day > 31 || hour > 23 || minute > 59 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+        return getHourStart(year, month, day, hour) + minute * 60_000L + second * 1000L + millisecond;
+    }
+
+    private long getHourStart(int year, int month, int day, int hour) {
+        long key = (((long) year * 13 + month) * 32 + day) * 24 + hour;
+        HourStart hourStart = lastHourStart;
+
+        if (hourStart.key() != key) {
+            try {
+                hourStart = new HourStart(
+                        key,
+                        LocalDateTime.of(year, month, day, hour, 0).atZone(zone).toInstant().toEpochMilli()
+                );
+            } catch (DateTimeException e) {
+                // For example, February 30
+                return Long.MIN_VALUE;
+            }
+            lastHourStart = hourStart;
+        }
+        return hourStart.epochMilli();
+    }
+
+    private long parseWithFormatter(CharSequence text, int from, int to) {
+        try {
+            TemporalAccessor temporal = formatter.parse(text.subSequence(from, to));
+
+            LocalDate date = temporal.query(TemporalQueries.localDate());
+            if (date == null) {
+                date = LocalDate.of(
+                        temporal.isSupported(ChronoField.YEAR) ? temporal.get(ChronoField.YEAR) : defaultDate.getYear(),
+                        temporal.isSupported(ChronoField.MONTH_OF_YEAR) ? temporal.get(ChronoField.MONTH_OF_YEAR) : defaultDate.getMonthValue(),
+                        temporal.isSupported(ChronoField.DAY_OF_MONTH) ? temporal.get(ChronoField.DAY_OF_MONTH) : defaultDate.getDayOfMonth()
+                );
+            }
+            LocalTime time = temporal.query(TemporalQueries.localTime());
+            LocalDateTime dateTime = date.atTime(time == null ? LocalTime.MIDNIGHT : time);
+
+            if (temporal.isSupported(ChronoField.OFFSET_SECONDS)) {
+                return dateTime.toInstant(ZoneOffset.ofTotalSeconds(temporal.get(ChronoField.OFFSET_SECONDS))).toEpochMilli();
+            } else {
+                ZoneId parsedZone = temporal.query(TemporalQueries.zoneId());
+                return dateTime.atZone(parsedZone == null ? zone : parsedZone).toInstant().toEpochMilli();
+            }
+        } catch (DateTimeException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private static int skipDigits(CharSequence text, int from, int to, Token token) {
+        int position = from;
+        while (position < to && position - from < token.maxDigits() && isDigit(text.charAt(position))) {
+            position++;
+        }
+        return position - from >= token.minDigits() ? position : -1;
+    }
+
+    private static int skipText(CharSequence text, int from, int to, String[] names) {
+        int index = matchText(text, from, to, names);
+        return index < 0 ? -1 : from + names[index].length();
+    }
+
+    private static int matchText(CharSequence text, int from, int to, String[] names) {
+        for (int i=0; i<names.length; ++i) {
+            String name = names[i];
+            if (!name.isEmpty() && from + name.length() <= to && regionMatches(text, from, name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(CharSequence text, int from, String name) {
+        for (int i=0; i<name.length(); ++i) {
+            if (text.charAt(from + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * @return the tokens of the pattern, or null if the pattern contains fields not supported by this class
+     */
+    private static Token[] compileTokens(String pattern) {
+        List<Token> tokens = new ArrayList<>();
+
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+
+            if (c == '\'') {
+                int end = pattern.indexOf('\'', i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException(String.format("Unterminated quote in the date pattern %s", pattern));
+                }
+                if (end == i + 1) {
+                    tokens.add(new Token(TokenType.LITERAL, 0, 0, '\''));
+                }
+                for (int j=i+1; j<end; ++j) {
+                    tokens.add(new Token(TokenType.LITERAL, 0, 0, pattern.charAt(j)));
+                }
+                i = end + 1;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                int count = 1;
+                while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+                    count++;
+                }
+
+                Token token = switch (c) {
+                    case 'y' -> count == 2 ? new Token(TokenType.YEAR_2, 2, 2, c) : new Token(TokenType.YEAR_4, 4, 4, c);
+                    case 'M' -> count >= 4 ? null : count == 3 ? new Token(TokenType.MONTH_TEXT, 0, 0, c) : new Token(TokenType.MONTH, count, 2, c);
+                    case 'd' -> count > 2 ? null : new Token(TokenType.DAY, count, 2, c);
+                    case 'H' -> count > 2 ? null : new Token(TokenType.HOUR_OF_DAY, count, 2, c);
+                    case 'h' -> count > 2 ? null : new Token(TokenType.CLOCK_HOUR, count, 2, c);
+                    case 'm' -> count > 2 ? null : new Token(TokenType.MINUTE, count, 2, c);
+                    case 's' -> count > 2 ? null : new Token(TokenType.SECOND, count, 2, c);
+                    case 'S' -> new Token(TokenType.FRACTION, count, count, c);
+                    case 'a' -> count > 1 ? null : new Token(TokenType.AM_PM, 0, 0, c);
+                    default -> null;
+                };
+                if (token == null) {
+                    return null;
+                }
+                tokens.add(token);
+                i += count;
+            } else {
+                tokens.add(new Token(TokenType.LITERAL, 0, 0, c));
+                i++;
+            }
+        }
+
+        boolean clockHour = tokens.stream().anyMatch(token -> token.type() == TokenType.CLOCK_HOUR);
+        boolean amPm = tokens.stream().anyMatch(token -> token.type() == TokenType.AM_PM);
+        return clockHour == amPm ? tokens.toArray(Token[]::new) : null;
+    }
+}
@@ -0,0 +1,134 @@
+package qupath.ui.logviewer.ui.main.file;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * The offsets of the lines of a file split in memory-mapped segments.
+ * <p>
+ * The file is divided in chunks that are scanned in parallel for line feeds. The start of a line is
+ * stored in the chunk containing the line feed before it (or in the first chunk for the first line),
+ * as an int relative to the start of the chunk, so the index takes 4 bytes per line.
+ * <p>
+ * This class is immutable once created and therefore thread-safe.
+ */
+final class LineIndex {
+
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private final long fileSize;
+    private final long chunkSize;
+    private final int[][] lineStarts;
+    // Index of the first line of each chunk, followed by the number of lines
+    private final int[] firstLines;
+
+    private LineIndex(long fileSize, long chunkSize, int[][] lineStarts) {
+        this.fileSize = fileSize;
+        this.chunkSize = chunkSize;
+        this.lineStarts = lineStarts;
+        this.firstLines = new int[lineStarts.length + 1];
+
+        long numberOfLines = 0;
+        for (int chunk=0; chunk<lineStarts.length; ++chunk) {
+            firstLines[chunk] = (int) numberOfLines;
+            numberOfLines += lineStarts[chunk].length;
+            if (numberOfLines > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The file contains more than " + Integer.MAX_VALUE + " lines");
+            }
+        }
+        firstLines[lineStarts.length] = (int) numberOfLines;
+    }
+
+    /**
+     * Index the lines of a file. Chunks are scanned in parallel on the common fork join pool.
+     *
+     * @param segments  the memory-mapped segments of the file. All segments except the last one must have
+     *                  a size of {@code segmentSize}
+     * @param segmentSize  the size of each segment (except the last one), which must be a multiple of {@code chunkSize}
+     * @param chunkSize  the size of the chunks scanned in parallel
+     * @param fileSize  the size of the file
+     * @param progress  a function called with the fraction of the file indexed so far, from any thread
+     * @return the index of the lines of the file
+     * @throws IllegalArgumentException when the file contains more than {@link Integer#MAX_VALUE} lines
+     */
+    public static LineIndex build(ByteBuffer[] segments, int segmentSize, int chunkSize, long fileSize, DoubleConsumer progress) {
+        int numberOfChunks = (int) ((fileSize + chunkSize - 1) / chunkSize);
+        AtomicInteger numberOfIndexedChunks = new AtomicInteger(0);
+
+        int[][] lineStarts = IntStream.range(0, numberOfChunks)
+                .parallel()
+                .mapToObj(chunk -> {
+                    int[] chunkLineStarts = indexChunk(segments, segmentSize, chunkSize, fileSize, chunk);
+                    progress.accept((double) numberOfIndexedChunks.incrementAndGet() / numberOfChunks);
+                    return chunkLineStarts;
+                })
+                .toArray(int[][]::new);
+
+        return new LineIndex(fileSize, chunkSize, lineStarts);
+    }
+
+    /**
+     * @return the number of lines of the file
+     */
+    public int size() {
+        return firstLines[lineStarts.length];
+    }
+
+    /**
+     * @param line  the index of the line
+     * @return the offset in the file of the first character of the line
+     */
+    public long getStart(int line) {
+        int low = 0;
+        int high = lineStarts.length - 1;
+        // Find the last chunk whose first line is at or before the provided line
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (firstLines[middle] <= line) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low * chunkSize + lineStarts[low][line - firstLines[low]];
+    }
+
+    /**
+     * @param line  the index of the line
+     * @return the offset in the file after the last character of the line, including its line terminator if it has one
+     */
+    public long getEnd(int line) {
+        return line + 1 < size() ? getStart(line + 1) : fileSize;
+    }
+
+    private static int[] indexChunk(ByteBuffer[] segments, int segmentSize, int chunkSize, long fileSize, int chunk) {
+        long chunkStart = (long) chunk * chunkSize;
+        int chunkLength = (int) Math.min(chunkSize, fileSize - chunkStart);
+        ByteBuffer segment = segments[(int) (chunkStart / segmentSize)];
+        int positionInSegment = (int) (chunkStart % segmentSize);
+
+        int[] lineStarts = new int[64];
+        int numberOfLines = 0;
+        if (chunk == 0) {
+            lineStarts[numberOfLines++] = 0;
+        }
+
+        byte[] buffer = new byte[Math.min(READ_BUFFER_SIZE, chunkLength)];
+        for (int from=0; from<chunkLength; from+=buffer.length) {
+            int length = Math.min(buffer.length, chunkLength - from);
+            segment.get(positionInSegment + from, buffer, 0, length);
+
+            for (int i=0; i<length; ++i) {
+                if (buffer[i] == '\n' && chunkStart + from + i + 1 < fileSize) {
+                    if (numberOfLines == lineStarts.length) {
+                        lineStarts = Arrays.copyOf(lineStarts, 2 * numberOfLines);
+                    }
+                    lineStarts[numberOfLines++] = from + i + 1;
+                }
+            }
+        }
+        return Arrays.copyOf(lineStarts, numberOfLines);
+    }
+}
@@ -0,0 +1,55 @@
+package qupath.ui.logviewer.ui.main.file;
+
+import java.util.Objects;
+
+/**
+ * A view of bytes as characters, where each byte is a character (as in ISO-8859-1).
+ * It is used to check lines of a file without decoding them.
+ */
+final class LineView implements CharSequence {
+
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+
+    /**
+     * Creates a view of bytes. The bytes are not copied.
+     *
+     * @param bytes  the array containing the bytes of the view
+     * @param offset  the position in the array of the first byte of the view
+     * @param length  the number of bytes of the view
+     */
+    public LineView(byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        Objects.checkIndex(index, length);
+        return (char) (bytes[offset + index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        Objects.checkFromToIndex(start, end, length);
+        return new LineView(bytes, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i=0; i<length; ++i) {
+            sb.append(charAt(i));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package qupath.ui.logviewer.ui.main.file;
+
+import javafx.collections.ObservableListBase;
+import qupath.ui.logviewer.api.LogMessage;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.DoubleConsumer;
+
+/**
+ * An unmodifiable list of the messages of a {@link MappedLogFile}.
+ * <p>
+ * The lines starting a message are found when this list is created
+ * (see {@link LogLineParser#isMessageStart(CharSequence)}), and the following lines belong to the same
+ * message. Messages are only parsed when they are requested (for example when a row becomes visible
+ * in a table), and the last parsed messages are cached, so browsing a large file only parses the
+ * lines that are displayed.
+ * <p>
+ * This class is not thread-safe and should only be used from the JavaFX Application Thread.
+ */
+public class LogFileList extends ObservableListBase<LogMessage> {
+
+    private static final int CACHE_SIZE = 1024;
+    private final MappedLogFile file;
+    private final LogLineParser parser;
+    private final MessageIndex messageIndex;
+    private final int[] cachedIndices = new int[CACHE_SIZE];
+    private final LogMessage[] cachedMessages = new LogMessage[CACHE_SIZE];
+
+    /**
+     * Creates a list of the messages of a file. Every line of the file is checked by the parser,
+     * so this can take some time with large files and shouldn't be called from the JavaFX Application Thread.
+     *
+     * @param file  the file containing the messages
+     * @param parser  the parser creating a message from the lines of the file
+     * @param progress  a function called with the fraction of the lines checked so far, from any thread
+     * @throws IllegalStateException when the file is closed
+     */
+    public LogFileList(MappedLogFile file, LogLineParser parser, DoubleConsumer progress) {
+        this.file = file;
+        this.parser = parser;
+        this.messageIndex = MessageIndex.build(file, parser, progress);
+
+        Arrays.fill(cachedIndices, -1);
+    }
+
+    @Override
+    public LogMessage get(int index) {
+        Objects.checkIndex(index, size());
+
+        int slot = index & (CACHE_SIZE - 1);
+        if (cachedIndices[slot] != index) {
+            cachedMessages[slot] = parser.parse(file.getText(messageIndex.getFirstLine(index), messageIndex.getEndLine(index)));
+            cachedIndices[slot] = index;
+        }
+        return cachedMessages[slot];
+    }
+
+    @Override
+    public int size() {
+        return messageIndex.size();
+    }
+
+    /**
+     * @return the file containing the messages of this list
+     */
+    public MappedLogFile getFile() {
+        return file;
+    }
+
+    /**
+     * @return the parser creating the messages of this list
+     */
+    public LogLineParser getParser() {
+        return parser;
+    }
+}
@@ -0,0 +1,547 @@
+package qupath.ui.logviewer.ui.main.file;
+
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A {@link LogLineParser} for files written with a layout pattern of logback or reload4j
+ * (for example {@code %d{HH:mm:ss.SSS} [%thread] %-5level %logger - %msg%n}).
+ * <p>
+ * The pattern is compiled once into a sequence of literals and fields, which is then matched
+ * character by character against lines without regular expressions or intermediate strings:
+ * <ul>
+ *     <li>Dates ({@code %d}, {@code %date}) are parsed by a compiled {@link DatePattern}.</li>
+ *     <li>Threads ({@code %t}, {@code %thread}), levels ({@code %p}, {@code %le}, {@code %level}),
+ *     loggers ({@code %c}, {@code %lo}, {@code %logger}) and messages ({@code %m}, {@code %msg},
+ *     {@code %message}) end where the next literal starts (or at the end of the line). Messages end at
+ *     the last occurrence of the next literal, since they can contain anything.</li>
+ *     <li>Throwable conversions ({@code %ex}, {@code %throwable}...) are ignored, since stack traces are
+ *     written on the following lines.</li>
+ *     <li>Other conversions are skipped like threads. Composite conversions such as
+ *     {@code %highlight(%-5level)} are replaced by their content.</li>
+ *     <li>Fields with a minimal width (such as {@code %-5level}) can be surrounded by padding spaces, and a space
+ *     in a literal matches one or more spaces.</li>
+ * </ul>
+ * A pattern can contain {@code %n} before its end, in which case a message starts with one line per part
+ * of the pattern. This is how {@link #JUL_PATTERN} describes the two lines written by
+ * {@link java.util.logging.SimpleFormatter}.
+ * <p>
+ * A line matching the first line of the pattern starts a new message, and the following lines that don't
+ * match it (for example stack traces) are continuation lines, which are added to the message. Levels can
+ * be named as in SLF4J, log4j (FATAL) or java.util.logging (SEVERE, WARNING, CONFIG, FINE, FINER, FINEST).
+ * <p>
+ * This class is thread-safe.
+ */
+public final class LogLayoutParser implements LogLineParser {
+
+    /**
+     * The pattern of the default configuration of logback
+     */
+    public static final String LOGBACK_PATTERN = "%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n";
+    /**
+     * The conversion pattern of the reload4j documentation
+     */
+    public static final String RELOAD4J_PATTERN = "%d [%t] %-5p %c - %m%n";
+    /**
+     * The default format of {@link java.util.logging.SimpleFormatter}, written as a layout pattern.
+     * The logger is the source of the message (usually its class and method)
+     */
+    public static final String JUL_PATTERN = "%d{MMM dd, yyyy h:mm:ss a} %logger%n%level: %msg%n";
+    /**
+     * The patterns tried by {@link #detectPattern(MappedLogFile, LocalDate)}
+     */
+    public static final List<String> PRESETS = List.of(LOGBACK_PATTERN, RELOAD4J_PATTERN, JUL_PATTERN);
+    private static final int DETECTION_LINES = 1000;
+    private static final String[] LEVEL_NAMES = {
+            "TRACE", "DEBUG", "INFO", "WARN", "ERROR", "FATAL", "SEVERE", "WARNING", "CONFIG", "FINE", "FINER", "FINEST"
+    };
+    private static final Level[] LEVELS = {
+            Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR, Level.ERROR, Level.ERROR, Level.WARN,
+            Level.INFO, Level.DEBUG, Level.TRACE, Level.TRACE
+    };
+    private final String pattern;
+    private final Element[][] lines;
+    // Index of the first element of each line in the bounds of a match
+    private final int[] lineOffsets;
+    private final int numberOfElements;
+
+    private enum FieldType {
+        DATE, THREAD, LEVEL, LOGGER, MESSAGE, OTHER
+    }
+
+    private sealed interface Element permits Literal, Field {}
+
+    private record Literal(String text) implements Element {}
+
+    private record Field(FieldType type, boolean padded, DatePattern datePattern) implements Element {}
+
+    private LogLayoutParser(String pattern, Element[][] lines) {
+        this.pattern = pattern;
+        this.lines = lines;
+        this.lineOffsets = new int[lines.length];
+
+        int offset = 0;
+        for (int i=0; i<lines.length; ++i) {
+            lineOffsets[i] = offset;
+            offset += lines[i].length;
+        }
+        this.numberOfElements = offset;
+    }
+
+    /**
+     * Compile a layout pattern. Dates are read in the default time zone, and month names
+     * in the default locale.
+     *
+     * @param pattern  the layout pattern that was used to write the log file
+     * @param defaultDate  the date of messages whose date pattern doesn't contain the date (only the time)
+     * @return a parser of the lines written with the provided pattern
+     * @throws IllegalArgumentException when the pattern is invalid
+     */
+    public static LogLayoutParser compile(String pattern, LocalDate defaultDate) {
+        return compile(pattern, defaultDate, ZoneId.systemDefault(), Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    /**
+     * Compile a layout pattern.
+     *
+     * @param zone  the time zone of dates without time zone
+     * @param locale  the locale of the names of months and AM/PM markers
+     */
+    static LogLayoutParser compile(String pattern, LocalDate defaultDate, ZoneId zone, Locale locale) {
+        return new LogLayoutParser(pattern, compileLines(pattern, defaultDate, zone, locale));
+    }
+
+    /**
+     * Find which of the {@link #PRESETS} was used to write a file, by counting the number of messages
+     * found with each of them at the beginning of the file.
+     *
+     * @param file  the file to analyze
+     * @param defaultDate  the date of messages whose date pattern doesn't contain the date
+     * @return the preset finding the most messages, or null if none of them finds any message
+     */
+    public static String detectPattern(MappedLogFile file, LocalDate defaultDate) {
+        int numberOfLines = Math.min(file.getNumberOfLines(), DETECTION_LINES);
+        String bestPattern = null;
+        int bestNumberOfMessages = 0;
+
+        for (String preset: PRESETS) {
+            LogLayoutParser parser = compile(preset, defaultDate);
+
+            int numberOfMessages = 0;
+            for (int i=0; i<numberOfLines; ++i) {
+                if (file.testLine(i, parser::isMessageStart)) {
+                    numberOfMessages++;
+                }
+            }
+
+            if (numberOfMessages > bestNumberOfMessages) {
+                bestPattern = preset;
+                bestNumberOfMessages = numberOfMessages;
+            }
+        }
+        return bestPattern;
+    }
+
+    /**
+     * @return the layout pattern compiled by this parser
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Parse the text of a message. If its first lines don't match the pattern, the whole text is
+     * parsed with {@link LogLineParser#PLAIN}.
+     *
+     * @param text  the lines of the message, separated by {@code \n}
+     * @return the parsed message
+     */
+    @Override
+    public LogMessage parse(String text) {
+        int[] bounds = new int[2 * numberOfElements];
+        int lineStart = 0;
+        int lineEnd = -1;
+
+        for (int i=0; i<lines.length; ++i) {
+            if (lineStart > text.length()) {
+                return PLAIN.parse(text);
+            }
+            lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+
+            if (!match(lines[i], text, lineStart, lineEnd, bounds, 2 * lineOffsets[i])) {
+                return PLAIN.parse(text);
+            }
+            lineStart = lineEnd + 1;
+        }
+
+        long timestamp = 0;
+        String threadName = "";
+        Level level = Level.INFO;
+        String loggerName = "";
+        String message = null;
+        for (int i=0; i<lines.length; ++i) {
+            for (int j=0; j<lines[i].length; ++j) {
+                if (lines[i][j] instanceof Field field) {
+                    int start = bounds[2 * (lineOffsets[i] + j)];
+                    int end = bounds[2 * (lineOffsets[i] + j) + 1];
+
+                    switch (field.type()) {
+                        case DATE -> {
+                            long date = field.datePattern().parse(text, start, end);
+                            timestamp = date == Long.MIN_VALUE ? 0 : date;
+                        }
+                        case THREAD -> threadName = text.substring(start, end);
+                        case LEVEL -> level = parseLevel(text, start, end);
+                        case LOGGER -> loggerName = text.substring(start, end);
+                        case MESSAGE -> message = end == lineEnd && i == lines.length - 1 ?
+                                // The continuation lines directly follow the message
+                                text.substring(start) :
+                                text.substring(start, end) + text.substring(lineEnd);
+                        case OTHER -> {}
+                    }
+                }
+            }
+        }
+        if (message == null) {
+            message = lineEnd < text.length() ? text.substring(lineEnd + 1) : "";
+        }
+
+        return new LogMessage(loggerName, timestamp, threadName, level, message, null);
+    }
+
+    /**
+     * @param line  the line to check
+     * @return whether the line matches the first line of the pattern
+     */
+    @Override
+    public boolean isMessageStart(CharSequence line) {
+        return match(lines[0], line, 0, line.length(), null, 0);
+    }
+
+    /**
+     * Match a line with the elements of a line of the pattern.
+     *
+     * @param bounds  where to write the start and end of each element, or null to only check the line
+     * @param offset  the position in {@code bounds} of the start of the first element
+     * @return whether the line matches the elements
+     */
+    private static boolean match(Element[] elements, CharSequence text, int from, int to, int[] bounds, int offset) {
+        int position = from;
+
+        for (int i=0; i<elements.length; ++i) {
+            if (elements[i] instanceof Literal literal) {
+                position = matchLiteral(literal.text(), text, position, to);
+                if (position < 0) {
+                    return false;
+                }
+            } else if (elements[i] instanceof Field field) {
+                if (field.padded()) {
+                    position = skipSpaces(text, position, to);
+                }
+                int start = position;
+                int end;
+
+                if (field.type() == FieldType.DATE && field.datePattern().isCompiled()) {
+                    end = field.datePattern().match(text, start, to);
+                } else {
+                    Element next = i + 1 < elements.length ? elements[i + 1] : null;
+                    if (next instanceof Literal literal) {
+                        end = field.type() == FieldType.MESSAGE ?
+                                findLast(literal.text(), text, start, to) :
+                                findFirst(literal.text(), text, start, to);
+                    } else if (next == null) {
+                        end = to;
+                    } else {
+                        end = findSpace(text, start, to);
+                    }
+                }
+                if (end < 0) {
+                    return false;
+                }
+
+                int valueEnd = field.padded() ? trimSpaces(text, start, end) : end;
+                if (field.type() == FieldType.LEVEL && parseLevel(text, start, valueEnd) == null) {
+                    return false;
+                }
+                if (field.type() == FieldType.DATE && !field.datePattern().isCompiled() && field.datePattern().match(text, start, valueEnd) < 0) {
+                    return false;
+                }
+
+                if (bounds != null) {
+                    bounds[offset + 2 * i] = start;
+                    bounds[offset + 2 * i + 1] = valueEnd;
+                }
+                position = end;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the position after the literal, or -1 if the literal doesn't start at the provided position.
+     * Spaces of the literal match one or more spaces
+     */
+    private static int matchLiteral(String literal, CharSequence text, int from, int to) {
+        int position = from;
+        int i = 0;
+
+        while (i < literal.length()) {
+            char c = literal.charAt(i);
+            if (position >= to || text.charAt(position) != c) {
+                return -1;
+            }
+
+            if (c == ' ') {
+                while (position < to && text.charAt(position) == ' ') {
+                    position++;
+                }
+                while (i < literal.length() && literal.charAt(i) == ' ') {
+                    i++;
+                }
+            } else {
+                position++;
+                i++;
+            }
+        }
+        return position;
+    }
+
+    private static int findFirst(String literal, CharSequence text, int from, int to) {
+        char first = literal.charAt(0);
+        for (int i=from; i<to; ++i) {
+            if (text.charAt(i) == first && matchLiteral(literal, text, i, to) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int findLast(String literal, CharSequence text, int from, int to) {
+        char first = literal.charAt(0);
+        for (int i=to-1; i>=from; --i) {
+            if (text.charAt(i) == first && matchLiteral(literal, text, i, to) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int findSpace(CharSequence text, int from, int to) {
+        int position = from;
+        while (position < to && text.charAt(position) != ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    private static int skipSpaces(CharSequence text, int from, int to) {
+        int position = from;
+        while (position < to && text.charAt(position) == ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    private static int trimSpaces(CharSequence text, int from, int to) {
+        int position = to;
+        while (position > from && text.charAt(position - 1) == ' ') {
+            position--;
+        }
+        return position;
+    }
+
+    private static Level parseLevel(CharSequence text, int from, int to) {
+        for (int i=0; i<LEVEL_NAMES.length; ++i) {
+            String name = LEVEL_NAMES[i];
+
+            if (to - from == name.length()) {
+                int j = 0;
+                while (j < name.length() && Character.toUpperCase(text.charAt(from + j)) == name.charAt(j)) {
+                    j++;
+                }
+                if (j == name.length()) {
+                    return LEVELS[i];
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Element[][] compileLines(String pattern, LocalDate defaultDate, ZoneId zone, Locale locale) {
+        List<Element[]> lines = new ArrayList<>();
+        List<Element> elements = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int depth = 0;
+
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+
+            if (c == '\\' && i + 1 < pattern.length()) {
+                literal.append(pattern.charAt(i + 1));
+                i += 2;
+            } else if (c == ')' && depth > 0) {
+                depth--;
+                i = skipOptions(pattern, i + 1);
+            } else if (c != '%') {
+                literal.append(c);
+                i++;
+            } else if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '%') {
+                literal.append('%');
+                i += 2;
+            } else {
+                // Format modifier, for example -5 or .10
+                int j = i + 1;
+                if (j < pattern.length() && pattern.charAt(j) == '-') {
+                    j++;
+                }
+                int widthStart = j;
+                while (j < pattern.length() && Character.isDigit(pattern.charAt(j))) {
+                    j++;
+                }
+                boolean padded = j > widthStart;
+                if (j < pattern.length() && pattern.charAt(j) == '.') {
+                    j++;
+                    if (j < pattern.length() && pattern.charAt(j) == '-') {
+                        j++;
+                    }
+                    while (j < pattern.length() && Character.isDigit(pattern.charAt(j))) {
+                        j++;
+                    }
+                }
+
+                int wordStart = j;
+                while (j < pattern.length() && Character.isLetter(pattern.charAt(j))) {
+                    j++;
+                }
+                String word = pattern.substring(wordStart, j);
+
+                // Composite conversion, for example %highlight(...): only its content is kept
+                if (j < pattern.length() && pattern.charAt(j) == '(') {
+                    depth++;
+                    i = j + 1;
+                    continue;
+                }
+                if (word.isEmpty()) {
+                    throw new IllegalArgumentException(String.format("Missing conversion word at position %d of %s", i, pattern));
+                }
+
+                String option = null;
+                if (j < pattern.length() && pattern.charAt(j) == '{') {
+                    int optionEnd = pattern.indexOf('}', j);
+                    if (optionEnd < 0) {
+                        throw new IllegalArgumentException(String.format("Unterminated option at position %d of %s", j, pattern));
+                    }
+                    option = pattern.substring(j + 1, optionEnd);
+                    j = skipOptions(pattern, j);
+                }
+                i = j;
+
+                if (word.equals("n")) {
+                    addLiteral(literal, elements);
+                    lines.add(elements.toArray(Element[]::new));
+                    elements = new ArrayList<>();
+                    continue;
+                }
+
+                FieldType type = switch (word) {
+                    case "d", "date" -> FieldType.DATE;
+                    case "t", "thread" -> FieldType.THREAD;
+                    case "p", "le", "level" -> FieldType.LEVEL;
+                    case "c", "lo", "logger" -> FieldType.LOGGER;
+                    case "m", "msg", "message" -> FieldType.MESSAGE;
+                    case "ex", "exception", "throwable", "xEx", "xException", "xThrowable", "rEx", "rootException",
+                            "nopex", "nopexception" -> null;
+                    default -> FieldType.OTHER;
+                };
+                if (type != null) {
+                    addLiteral(literal, elements);
+                    elements.add(new Field(
+                            type,
+                            padded,
+                            type == FieldType.DATE ? compileDatePattern(option, defaultDate, zone, locale) : null
+                    ));
+                }
+            }
+        }
+
+        if (depth > 0) {
+            throw new IllegalArgumentException(String.format("Unbalanced parentheses in %s", pattern));
+        }
+        addLiteral(literal, elements);
+        if (!elements.isEmpty()) {
+            lines.add(elements.toArray(Element[]::new));
+        }
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("The pattern is empty");
+        }
+        return lines.toArray(Element[][]::new);
+    }
+
+    private static void addLiteral(StringBuilder literal, List<Element> elements) {
+        if (!literal.isEmpty()) {
+            elements.add(new Literal(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    private static int skipOptions(String pattern, int from) {
+        int position = from;
+        while (position < pattern.length() && pattern.charAt(position) == '{') {
+            int end = pattern.indexOf('}', position);
+            if (end < 0) {
+                throw new IllegalArgumentException(String.format("Unterminated option at position %d of %s", position, pattern));
+            }
+            position = end + 1;
+        }
+        return position;
+    }
+
+    /**
+     * Compile the option of a date conversion, which is a date pattern optionally followed by a comma
+     * and a time zone (for example {@code HH:mm:ss, UTC}). Date patterns containing a comma can be quoted.
+     */
+    private static DatePattern compileDatePattern(String option, LocalDate defaultDate, ZoneId zone, Locale locale) {
+        if (option == null || option.isBlank()) {
+            return DatePattern.compile("ISO8601", defaultDate, zone, locale);
+        }
+
+        String datePattern = option;
+        ZoneId dateZone = zone;
+        if (option.startsWith("\"") && option.indexOf('"', 1) > 0) {
+            int end = option.indexOf('"', 1);
+            datePattern = option.substring(1, end);
+            int comma = option.indexOf(',', end);
+            if (comma > 0) {
+                dateZone = parseZone(option.substring(comma + 1).trim(), zone);
+            }
+        } else if (option.lastIndexOf(',') > 0) {
+            int comma = option.lastIndexOf(',');
+            ZoneId optionZone = parseZone(option.substring(comma + 1).trim(), null);
+            // Without a valid time zone after it, the comma is part of the pattern (e.g. HH:mm:ss,SSS)
+            if (optionZone != null) {
+                datePattern = option.substring(0, comma);
+                dateZone = optionZone;
+            }
+        }
+        return DatePattern.compile(datePattern.trim(), defaultDate, dateZone, locale);
+    }
+
+    private static ZoneId parseZone(String zone, ZoneId defaultZone) {
+        try {
+            return ZoneId.of(zone);
+        } catch (DateTimeException e) {
+            return defaultZone;
+        }
+    }
+}
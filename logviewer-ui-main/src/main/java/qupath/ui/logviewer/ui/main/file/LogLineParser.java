@@ -0,0 +1,46 @@
+package qupath.ui.logviewer.ui.main.file;
+
+import qupath.ui.logviewer.api.LogMessage;
+
+/**
+ * Create a {@link LogMessage} from the lines of a log file.
+ * <p>
+ * A message can span several lines (for example when it contains a stack trace): the lines of a file
+ * for which {@link #isMessageStart(CharSequence)} returns false are continuation lines belonging to the
+ * previous message.
+ */
+@FunctionalInterface
+public interface LogLineParser {
+
+    /**
+     * A parser using the whole text as the message. The level is the first word of the text
+     * naming a level (for example "WARN"), or INFO if there is none. The other fields are
+     * empty, and the timestamp is 0. Every line is a new message.
+     */
+    LogLineParser PLAIN = new PlainLineParser();
+
+    /**
+     * Parse the text of a log message.
+     *
+     * @param text  the lines of the message (its first line and its continuation lines), separated by
+     *              {@code \n} and without line terminator at the end
+     * @return the message described by the text. Fields that are not present in the text
+     * should be empty (or 0 for the timestamp)
+     */
+    LogMessage parse(String text);
+
+    /**
+     * Indicate whether a line of a file starts a new message. This is called for every line of
+     * a file, possibly from several threads at the same time, so it must be thread-safe and fast.
+     * <p>
+     * The line is given as a view of the bytes of the file, where each byte is a character. Multibyte
+     * characters therefore appear as several characters, but ASCII characters are preserved.
+     * By default, every line starts a new message.
+     *
+     * @param line  the line to check, without its line terminator
+     * @return whether the line starts a new message, or is a continuation of the previous one
+     */
+    default boolean isMessageStart(CharSequence line) {
+        return true;
+    }
+}
@@ -0,0 +1,216 @@
+package qupath.ui.logviewer.ui.main.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.function.DoubleConsumer;
+import java.util.function.Predicate;
+
+/**
+ * A text file mapped in memory and indexed by line, so that any line can be read without
+ * reading the whole file.
+ * <p>
+ * The file is mapped with {@link FileChannel#map(FileChannel.MapMode, long, long)} in segments smaller
+ * than 2 GB (the limit of a mapped buffer), and its lines are indexed in parallel when this object
+ * is created (see {@link LineIndex}). After that, the only memory used on the heap is the index
+ * (4 bytes per line): the content of the file stays in the page cache of the operating system,
+ * and each line is decoded (as UTF-8) when it is requested.
+ * <p>
+ * Lines are terminated by {@code \n} or {@code \r\n}. Text longer than {@link #MAX_TEXT_LENGTH}
+ * bytes is truncated.
+ * <p>
+ * This class is thread-safe. The file must not be modified while it is mapped.
+ */
+public class MappedLogFile implements Closeable {
+
+    /**
+     * The maximal number of bytes of the text returned by {@link #getLine(int)} and {@link #getText(int, int)}
+     */
+    public static final int MAX_TEXT_LENGTH = 1 << 20;
+    private static final int SEGMENT_SIZE = 1 << 30;
+    private static final int CHUNK_SIZE = 1 << 24;
+    private static final ThreadLocal<byte[]> lineBuffer = ThreadLocal.withInitial(() -> new byte[256]);
+    private final Path path;
+    private final int segmentSize;
+    private final long fileSize;
+    private final LineIndex lineIndex;
+    private volatile ByteBuffer[] segments;
+
+    /**
+     * Map and index a file. This can take a few seconds with large files, so it shouldn't
+     * be called from the JavaFX Application Thread.
+     *
+     * @param path  the path of the file to open
+     * @param progress  a function called with the fraction of the file indexed so far, from any thread
+     * @throws IOException when the file cannot be read
+     * @throws IllegalArgumentException when the file contains more than {@link Integer#MAX_VALUE} lines
+     */
+    public MappedLogFile(Path path, DoubleConsumer progress) throws IOException {
+        this(path, SEGMENT_SIZE, CHUNK_SIZE, progress);
+    }
+
+    /**
+     * Map and index a file with segments and chunks of the provided size.
+     *
+     * @param segmentSize  the size of the mapped segments, which must be a multiple of {@code chunkSize}
+     * @param chunkSize  the size of the chunks indexed in parallel
+     */
+    MappedLogFile(Path path, int segmentSize, int chunkSize, DoubleConsumer progress) throws IOException {
+        if (chunkSize <= 0 || segmentSize % chunkSize != 0) {
+            throw new IllegalArgumentException(String.format("The segment size %d is not a multiple of the chunk size %d", segmentSize, chunkSize));
+        }
+        this.path = path;
+        this.segmentSize = segmentSize;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            fileSize = channel.size();
+
+            // Mapped buffers stay valid once the channel is closed
+            segments = new ByteBuffer[(int) ((fileSize + segmentSize - 1) / segmentSize)];
+            for (int i=0; i<segments.length; ++i) {
+                long position = (long) i * segmentSize;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segmentSize, fileSize - position));
+            }
+        }
+
+        lineIndex = LineIndex.build(segments, segmentSize, chunkSize, fileSize, progress);
+    }
+
+    /**
+     * @return the path of the file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the number of lines of the file. A line terminator at the end of the file
+     * doesn't start a new line
+     */
+    public int getNumberOfLines() {
+        return lineIndex.size();
+    }
+
+    /**
+     * Read a line of the file.
+     *
+     * @param index  the index of the line
+     * @return the content of the line, without its line terminator
+     * @throws IndexOutOfBoundsException when the index is out of bounds
+     * @throws IllegalStateException when this file is closed
+     */
+    public String getLine(int index) {
+        return getText(index, index + 1);
+    }
+
+    /**
+     * Read consecutive lines of the file.
+     *
+     * @param fromLine  the index of the first line to read, inclusive
+     * @param toLine  the index of the last line to read, exclusive
+     * @return the content of the lines separated by {@code \n}, without the line terminator of the last line
+     * @throws IndexOutOfBoundsException when the indices are out of bounds or {@code fromLine >= toLine}
+     * @throws IllegalStateException when this file is closed
+     */
+    public String getText(int fromLine, int toLine) {
+        Objects.checkFromToIndex(fromLine, toLine, getNumberOfLines());
+        if (fromLine == toLine) {
+            throw new IndexOutOfBoundsException("No line between " + fromLine + " and " + toLine);
+        }
+        ByteBuffer[] segments = getSegments();
+
+        long start = lineIndex.getStart(fromLine);
+        long end = getContentEnd(segments, start, lineIndex.getEnd(toLine - 1));
+
+        byte[] bytes = new byte[(int) Math.min(end - start, MAX_TEXT_LENGTH)];
+        readBytes(segments, start, bytes, bytes.length);
+
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        return toLine - fromLine > 1 && text.indexOf('\r') >= 0 ? text.replace("\r\n", "\n") : text;
+    }
+
+    /**
+     * Check a line of the file without decoding it. The line is given to the predicate as a view
+     * of its bytes, where each byte is a character (so only ASCII characters are preserved).
+     * The bytes are copied in a buffer reused by each thread, so the view must not be used once
+     * the predicate returns.
+     *
+     * @param index  the index of the line
+     * @param predicate  the predicate to apply to the line, without its line terminator
+     * @return the result of the predicate
+     * @throws IndexOutOfBoundsException when the index is out of bounds
+     * @throws IllegalStateException when this file is closed
+     */
+    public boolean testLine(int index, Predicate<CharSequence> predicate) {
+        Objects.checkIndex(index, getNumberOfLines());
+        ByteBuffer[] segments = getSegments();
+
+        long start = lineIndex.getStart(index);
+        long end = getContentEnd(segments, start, lineIndex.getEnd(index));
+        int length = (int) Math.min(end - start, MAX_TEXT_LENGTH);
+
+        byte[] buffer = lineBuffer.get();
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, 2 * buffer.length)];
+            lineBuffer.set(buffer);
+        }
+        readBytes(segments, start, buffer, length);
+        return predicate.test(new LineView(buffer, 0, length));
+    }
+
+    /**
+     * Release the mapped segments of the file. The memory is actually unmapped once the segments
+     * are garbage collected.
+     */
+    @Override
+    public void close() {
+        segments = null;
+    }
+
+    private ByteBuffer[] getSegments() {
+        ByteBuffer[] segments = this.segments;
+        if (segments == null) {
+            throw new IllegalStateException(String.format("The file %s is closed", path));
+        }
+        return segments;
+    }
+
+    /**
+     * Copy bytes of the file to an array, reading from several segments if needed.
+     */
+    private void readBytes(ByteBuffer[] segments, long start, byte[] bytes, int numberOfBytes) {
+        int length = 0;
+        while (length < numberOfBytes) {
+            long position = start + length;
+            ByteBuffer segment = segments[(int) (position / segmentSize)];
+            int positionInSegment = (int) (position % segmentSize);
+            int bytesToRead = Math.min(numberOfBytes - length, segment.limit() - positionInSegment);
+
+            segment.get(positionInSegment, bytes, length, bytesToRead);
+            length += bytesToRead;
+        }
+    }
+
+    /**
+     * @return the offset of the end of a line, excluding its line terminator
+     */
+    private long getContentEnd(ByteBuffer[] segments, long start, long end) {
+        long contentEnd = end;
+        if (contentEnd > start && getByte(segments, contentEnd - 1) == '\n') {
+            contentEnd--;
+        }
+        if (contentEnd > start && getByte(segments, contentEnd - 1) == '\r') {
+            contentEnd--;
+        }
+        return contentEnd;
+    }
+
+    private byte getByte(ByteBuffer[] segments, long position) {
+        return segments[(int) (position / segmentSize)].get((int) (position % segmentSize));
+    }
+}
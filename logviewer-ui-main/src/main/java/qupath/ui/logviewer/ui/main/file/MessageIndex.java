@@ -0,0 +1,130 @@
+package qupath.ui.logviewer.ui.main.file;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * The lines of a {@link MappedLogFile} starting a message, according to
+ * {@link LogLineParser#isMessageStart(CharSequence)}.
+ * <p>
+ * The lines are divided in chunks that are checked in parallel. A chunk where every line starts a message
+ * (the usual case) doesn't use any memory. Otherwise, the lines starting a message are stored as ints relative
+ * to the start of the chunk. The first line of the file always starts a message.
+ * <p>
+ * This class is immutable once created and therefore thread-safe.
+ */
+final class MessageIndex {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private final int numberOfLines;
+    // Lines starting a message in each chunk, or null when every line of the chunk starts a message
+    private final int[][] messageStarts;
+    // Index of the first message of each chunk, followed by the number of messages
+    private final int[] firstMessages;
+
+    private MessageIndex(int numberOfLines, int[][] messageStarts) {
+        this.numberOfLines = numberOfLines;
+        this.messageStarts = messageStarts;
+        this.firstMessages = new int[messageStarts.length + 1];
+
+        int numberOfMessages = 0;
+        for (int chunk=0; chunk<messageStarts.length; ++chunk) {
+            firstMessages[chunk] = numberOfMessages;
+            numberOfMessages += messageStarts[chunk] == null ?
+                    Math.min(CHUNK_SIZE, numberOfLines - chunk * CHUNK_SIZE) :
+                    messageStarts[chunk].length;
+        }
+        firstMessages[messageStarts.length] = numberOfMessages;
+    }
+
+    /**
+     * Find the messages of a file. Chunks are checked in parallel on the common fork join pool.
+     *
+     * @param file  the file containing the messages
+     * @param parser  the parser determining which lines start a message
+     * @param progress  a function called with the fraction of the file checked so far, from any thread
+     * @return the index of the messages of the file
+     * @throws IllegalStateException when the file is closed
+     */
+    public static MessageIndex build(MappedLogFile file, LogLineParser parser, DoubleConsumer progress) {
+        int numberOfLines = file.getNumberOfLines();
+        int numberOfChunks = (numberOfLines + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        AtomicInteger numberOfCheckedChunks = new AtomicInteger(0);
+
+        int[][] messageStarts = IntStream.range(0, numberOfChunks)
+                .parallel()
+                .mapToObj(chunk -> {
+                    int[] chunkMessageStarts = indexChunk(file, parser, numberOfLines, chunk);
+                    progress.accept((double) numberOfCheckedChunks.incrementAndGet() / numberOfChunks);
+                    return chunkMessageStarts;
+                })
+                .toArray(int[][]::new);
+
+        return new MessageIndex(numberOfLines, messageStarts);
+    }
+
+    /**
+     * @return the number of messages of the file
+     */
+    public int size() {
+        return firstMessages[messageStarts.length];
+    }
+
+    /**
+     * @param message  the index of the message
+     * @return the index of the first line of the message
+     */
+    public int getFirstLine(int message) {
+        int low = 0;
+        int high = messageStarts.length - 1;
+        // Find the last chunk whose first message is at or before the provided message
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (firstMessages[middle] <= message) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        int messageInChunk = message - firstMessages[low];
+        return low * CHUNK_SIZE + (messageStarts[low] == null ? messageInChunk : messageStarts[low][messageInChunk]);
+    }
+
+    /**
+     * @param message  the index of the message
+     * @return the index of the line following the last line of the message
+     */
+    public int getEndLine(int message) {
+        return message + 1 < size() ? getFirstLine(message + 1) : numberOfLines;
+    }
+
+    private static int[] indexChunk(MappedLogFile file, LogLineParser parser, int numberOfLines, int chunk) {
+        int chunkStart = chunk * CHUNK_SIZE;
+        int chunkLength = Math.min(CHUNK_SIZE, numberOfLines - chunkStart);
+
+        int[] messageStarts = null;
+        int numberOfMessages = 0;
+        for (int i=0; i<chunkLength; ++i) {
+            int line = chunkStart + i;
+            boolean messageStart = line == 0 || file.testLine(line, parser::isMessageStart);
+
+            if (messageStart && messageStarts != null) {
+                messageStarts[numberOfMessages] = i;
+            }
+            if (!messageStart && messageStarts == null) {
+                // First continuation line of the chunk: all previous lines started a message
+                messageStarts = new int[chunkLength];
+                for (int j=0; j<i; ++j) {
+                    messageStarts[j] = j;
+                }
+            }
+            if (messageStart) {
+                numberOfMessages++;
+            }
+        }
+        return messageStarts == null ? null : Arrays.copyOf(messageStarts, numberOfMessages);
+    }
+}
@@ -0,0 +1,36 @@
+package qupath.ui.logviewer.ui.main.file;
+
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+
+/**
+ * The {@link LogLineParser#PLAIN} parser. Levels are only searched at the beginning of the text,
+ * where log layouts usually put them.
+ */
+final class PlainLineParser implements LogLineParser {
+
+    private static final int LEVEL_SEARCH_LENGTH = 128;
+    private static final Level[] LEVELS = Level.values();
+
+    @Override
+    public LogMessage parse(String text) {
+        return new LogMessage("", 0, "", findLevel(text), text, null);
+    }
+
+    private static Level findLevel(String text) {
+        int end = Math.min(text.length(), LEVEL_SEARCH_LENGTH);
+        int wordStart = 0;
+
+        for (int i=0; i<=end; ++i) {
+            if (i == end || !Character.isLetter(text.charAt(i))) {
+                for (Level level: LEVELS) {
+                    if (i - wordStart == level.name().length() && text.startsWith(level.name(), wordStart)) {
+                        return level;
+                    }
+                }
+                wordStart = i + 1;
+            }
+        }
+        return Level.INFO;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Provides read-only access to large log files, without loading them in memory.
+ */
+package qupath.ui.logviewer.ui.main.file;
@@ -0,0 +1,132 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A change made of removals and additions, whose removed elements are not copied. Contrary to the changes
+ * built by {@link javafx.collections.ObservableListBase}, the removed elements can therefore be given as
+ * a view that only creates the elements that listeners actually read (see {@link LogRowList}).
+ * <p>
+ * The most common changes (removing elements at the beginning of a list and/or adding elements at its end,
+ * for example when a list is cleared, or when elements are appended and the oldest ones evicted) can be
+ * created directly. Other changes are built with {@link #addRemoval(int, List)} and {@link #addAddition(int, int)}.
+ *
+ * @param <E> the type of the elements of the list
+ */
+class BulkChange<E> extends ListChangeListener.Change<E> {
+
+    private final List<int[]> ranges = new ArrayList<>();
+    private final List<List<E>> removedLists = new ArrayList<>();
+    private int cursor = -1;
+
+    /**
+     * Create an empty change, to be completed with {@link #addRemoval(int, List)} and {@link #addAddition(int, int)}.
+     *
+     * @param list  the list that was changed
+     */
+    public BulkChange(ObservableList<E> list) {
+        super(list);
+    }
+
+    /**
+     * Create a change removing elements at the beginning of a list and adding elements at its end.
+     *
+     * @param list  the list that was changed
+     * @param removed  the elements that were removed at the beginning of the list (possibly none)
+     * @param addedFrom  the index of the first added element in the list after the change
+     * @param addedTo  the index following the last added element in the list after the change
+     *                 (equal to {@code addedFrom} if no element was added)
+     */
+    public BulkChange(ObservableList<E> list, List<E> removed, int addedFrom, int addedTo) {
+        this(list);
+
+        addRemoval(0, removed);
+        addAddition(addedFrom, addedTo);
+    }
+
+    /**
+     * Report that elements were removed. Sub-changes must be added in increasing order of index.
+     *
+     * @param index  the index (in the list after the change) where the elements were removed
+     * @param removed  the removed elements, which are not copied. Nothing is reported if it is empty
+     */
+    public void addRemoval(int index, List<E> removed) {
+        if (!removed.isEmpty()) {
+            ranges.add(new int[] {index, index});
+            removedLists.add(removed);
+        }
+    }
+
+    /**
+     * Report that elements were added. Sub-changes must be added in increasing order of index.
+     * If elements were removed at the same index just before, both are reported as a replacement.
+     *
+     * @param from  the index of the first added element in the list after the change
+     * @param to  the index following the last added element in the list after the change.
+     *            Nothing is reported if it is equal to {@code from}
+     */
+    public void addAddition(int from, int to) {
+        if (to > from) {
+            int[] lastRange = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+
+            if (lastRange != null && lastRange[0] == from && lastRange[1] == from) {
+                lastRange[1] = to;
+            } else {
+                ranges.add(new int[] {from, to});
+                removedLists.add(List.of());
+            }
+        }
+    }
+
+    /**
+     * @return whether this change doesn't contain any sub-change
+     */
+    public boolean isEmpty() {
+        return ranges.isEmpty();
+    }
+
+    @Override
+    public boolean next() {
+        cursor++;
+        return cursor < ranges.size();
+    }
+
+    @Override
+    public void reset() {
+        cursor = -1;
+    }
+
+    @Override
+    public int getFrom() {
+        checkState();
+        return ranges.get(cursor)[0];
+    }
+
+    @Override
+    public int getTo() {
+        checkState();
+        return ranges.get(cursor)[1];
+    }
+
+    @Override
+    public List<E> getRemoved() {
+        checkState();
+        return removedLists.get(cursor);
+    }
+
+    @Override
+    protected int[] getPermutation() {
+        checkState();
+        return new int[0];
+    }
+
+    private void checkState() {
+        if (cursor < 0 || cursor >= ranges.size()) {
+            throw new IllegalStateException("Invalid change state: next() must be called before inspecting the change");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package qupath.ui.logviewer.ui.main.store;
+
+/**
+ * Thrown by a {@link LogRowPredicate} that cannot be evaluated, for example because it takes too long.
+ * The evaluation is then aborted, and {@link FilteredLogList} keeps its previous content.
+ */
+public class EvaluationAbortedException extends RuntimeException {
+
+    /**
+     * Create the exception.
+     *
+     * @param message  the reason why the evaluation was aborted
+     */
+    public EvaluationAbortedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,1014 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableListBase;
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * An <a href="https://docs.oracle.com/javase/8/javafx/api/javafx/collections/ObservableList.html">ObservableList</a>
+ * containing the messages of a {@link LogStore} that match a {@link LogRowPredicate}.
+ * <p>
+ * Only the sequence numbers of the matching messages are stored. Messages appended to the store are
+ * filtered as they arrive, and evicted messages are removed. Contrary to a
+ * <a href="https://docs.oracle.com/javase/8/javafx/api/javafx/collections/transformation/FilteredList.html">FilteredList</a>,
+ * the predicate can be changed without re-evaluating all messages when the caller knows how the
+ * new predicate relates to the previous one (see {@link #narrowPredicate(LogRowPredicate, LogRowPredicate)}
+ * and {@link #widenPredicate(LogRowPredicate, LogRowPredicate)}). When the messages to keep or to consider are
+ * known in advance (e.g. with the level and thread bitmaps of {@link LogStore}), they can be provided as a
+ * {@link SequenceBitmap} instead, so that no other message is read.
+ * <p>
+ * When the store contains many messages, a new predicate is evaluated in the background: it is immediately
+ * applied to the messages appended to the store, but the previous result is kept for existing messages until
+ * the evaluation completes, at which point the new result is published as a single change. Large evaluations
+ * are split into chunks evaluated in parallel, and predicates requiring a text (see
+ * {@link LogRowPredicate#getRequiredText()}) only evaluate the candidates given by a {@link TrigramIndex}.
+ * Evaluations start after a short delay and are cancelled when a new predicate is set, so that predicates
+ * changing quickly (e.g. while typing a filter) are not all evaluated.
+ * <p>
+ * A predicate can abort its evaluation by throwing an {@link EvaluationAbortedException}. The predicate
+ * whose result is currently published is then restored, and the content of this list is kept (messages
+ * appended in the meantime are filtered again with the restored predicate). Predicates are notified before
+ * each evaluation, including the filtering of each batch of appended messages (see
+ * {@link LogRowPredicate#onEvaluationStart()}), so that a time budget applies to one evaluation.
+ * <p>
+ * Changes are always reported as a single change event. This class is not thread-safe and
+ * should only be used from the JavaFX Application Thread.
+ */
+public class FilteredLogList extends ObservableListBase<LogMessage> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int SYNCHRONOUS_EVALUATION_LIMIT = 10_000;
+    private static final long EVALUATION_DELAY_MILLIS = 150;
+    private static final int CANCELLATION_CHECK_INTERVAL = 4096;
+    private static final int PARALLEL_EVALUATION_THRESHOLD = 50_000;
+    private static final int PARALLEL_CHUNK_SIZE = 16_384;
+    private static final long[] NO_SEQUENCE_NUMBERS = new long[0];
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-viewer-filter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ReadOnlyBooleanWrapper evaluating = new ReadOnlyBooleanWrapper(false);
+    private final ReadOnlyDoubleWrapper evaluationProgress = new ReadOnlyDoubleWrapper(0);
+    private final ReadOnlyBooleanWrapper evaluationAborted = new ReadOnlyBooleanWrapper(false);
+    private final LogStore store;
+    private volatile long generation = 0;
+    private ScheduledFuture<?> pendingEvaluation;
+    private final AtomicBoolean indexUpdateScheduled = new AtomicBoolean(false);
+    private volatile boolean indexEnabled = false;
+    private volatile LogRows rowsToIndex;
+    private TrigramIndex trigramIndex;
+    private LogRowPredicate predicate = LogRowPredicate.ALWAYS_TRUE;
+    // The predicate that gave the current content, which is up to date for messages before publishedEnd
+    private LogRowPredicate publishedPredicate = LogRowPredicate.ALWAYS_TRUE;
+    private long publishedEnd;
+    private long[] sequenceNumbers = new long[INITIAL_CAPACITY];
+    private int head = 0;
+    private int size = 0;
+    private final LevelPositions levelPositions = new LevelPositions();
+
+    /**
+     * Creates a list containing all messages of the provided store.
+     *
+     * @param store  the store containing the messages to filter
+     */
+    public FilteredLogList(LogStore store) {
+        this.store = store;
+
+        store.addListener(this::onStoreChanged);
+        LogRows rows = store.getRows();
+        for (long sequenceNumber = rows.getFirstSequenceNumber(); sequenceNumber < rows.getEndSequenceNumber(); ++sequenceNumber) {
+            add(rows, sequenceNumber);
+        }
+        publishedEnd = rows.getEndSequenceNumber();
+    }
+
+    @Override
+    public LogMessage get(int index) {
+        return store.get(getStoreIndex(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index  the index of a message of this list
+     * @return the sequence number of the message in the store
+     * @throws IndexOutOfBoundsException when the index is out of bounds
+     */
+    public long getSequenceNumber(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return sequenceNumbers[head + index];
+    }
+
+    /**
+     * Copy the sequence numbers of the messages of this list. With {@link LogStore#getRows()}, this gives
+     * a snapshot of this list that can be read from another thread.
+     *
+     * @return a new array containing the sequence numbers of the messages of this list, in increasing order
+     */
+    public long[] getSequenceNumbers() {
+        return Arrays.copyOfRange(sequenceNumbers, head, head + size);
+    }
+
+    /**
+     * @param index  the index of a message of this list
+     * @return the index of the same message in the store
+     * @throws IndexOutOfBoundsException when the index is out of bounds
+     */
+    public int getStoreIndex(int index) {
+        return (int) (getSequenceNumber(index) - store.getFirstSequenceNumber());
+    }
+
+    /**
+     * Find a message by sequence number with a binary search.
+     *
+     * @param sequenceNumber  the sequence number of a message of the store
+     * @return the index of the first message of this list whose sequence number is greater than or
+     * equal to {@code sequenceNumber}, or the size of this list if there is none
+     */
+    public int getIndexAtOrAfter(long sequenceNumber) {
+        return lowerBound(sequenceNumbers, head, head + size, sequenceNumber) - head;
+    }
+
+    /**
+     * Get the level of a message without creating it.
+     *
+     * @param index  the index of a message of this list
+     * @return the level of the message
+     * @throws IndexOutOfBoundsException when the index is out of bounds
+     */
+    public Level getLevel(int index) {
+        return store.getLevel(getStoreIndex(index));
+    }
+
+    /**
+     * Find the previous message of a level with a binary search on the positions of the messages of each level.
+     *
+     * @param level  the level of the message to find
+     * @param index  the index of this list to start from (excluded). It can be the size of this list
+     *               to find the last message of the level
+     * @return the index of the last message of the provided level before {@code index}, or -1 if there is none
+     */
+    public int getPreviousIndex(Level level, int index) {
+        long sequenceNumber = index >= size ? Long.MAX_VALUE : index < 0 ? Long.MIN_VALUE : getSequenceNumber(index);
+        long previous = levelPositions.findPrevious(level, sequenceNumber);
+        return previous < 0 ? -1 : getIndexAtOrAfter(previous);
+    }
+
+    /**
+     * Find the next message of a level with a binary search on the positions of the messages of each level.
+     *
+     * @param level  the level of the message to find
+     * @param index  the index of this list to start from (excluded). It can be -1 to find the first
+     *               message of the level
+     * @return the index of the first message of the provided level after {@code index}, or -1 if there is none
+     */
+    public int getNextIndex(Level level, int index) {
+        long sequenceNumber = index < 0 ? Long.MIN_VALUE : index >= size ? Long.MAX_VALUE : getSequenceNumber(index);
+        long next = levelPositions.findNext(level, sequenceNumber);
+        return next < 0 ? -1 : getIndexAtOrAfter(next);
+    }
+
+    /**
+     * @return the store containing the messages of this list
+     */
+    LogStore getStore() {
+        return store;
+    }
+
+    /**
+     * @return the predicate currently used to filter messages
+     */
+    public LogRowPredicate getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * @return whether a predicate is being evaluated in the background
+     */
+    public ReadOnlyBooleanProperty getEvaluatingProperty() {
+        return evaluating.getReadOnlyProperty();
+    }
+
+    /**
+     * @return the progress (between 0 and 1) of the evaluation currently running in the background
+     */
+    public ReadOnlyDoubleProperty getEvaluationProgressProperty() {
+        return evaluationProgress.getReadOnlyProperty();
+    }
+
+    /**
+     * @return whether the last predicate set was aborted (see {@link EvaluationAbortedException}). This is reset
+     * when a new predicate is set
+     */
+    public ReadOnlyBooleanProperty getEvaluationAbortedProperty() {
+        return evaluationAborted.getReadOnlyProperty();
+    }
+
+    /**
+     * Set the predicate used to filter messages, and evaluate it on all messages of the store.
+     *
+     * @param predicate  the new predicate
+     */
+    public void setPredicate(LogRowPredicate predicate) {
+        evaluate(predicate, predicate, predicate);
+    }
+
+    /**
+     * Set a predicate that can only reject messages accepted by the current predicate.
+     * Only the messages currently in this list are evaluated, with a predicate that must
+     * give the same result as the new predicate on these messages (but can be cheaper).
+     * <p>
+     * If an evaluation is running, the current content of this list is not final, so
+     * all messages are evaluated instead.
+     *
+     * @param predicate  the new predicate
+     * @param check  the predicate to evaluate on the messages currently in this list
+     */
+    public void narrowPredicate(LogRowPredicate predicate, LogRowPredicate check) {
+        if (evaluating.get()) {
+            setPredicate(predicate);
+        } else {
+            evaluate(predicate, check, null);
+        }
+    }
+
+    /**
+     * Set a predicate that can only accept more messages than the current predicate.
+     * The messages currently in this list are kept without being evaluated, and the other
+     * messages are evaluated with the new predicate only if they match {@code candidates}.
+     * <p>
+     * If an evaluation is running, the current content of this list is not final, so
+     * all messages are evaluated instead.
+     *
+     * @param predicate  the new predicate
+     * @param candidates  a cheap predicate that is true for all messages that may have to be added
+     */
+    public void widenPredicate(LogRowPredicate predicate, LogRowPredicate candidates) {
+        if (evaluating.get()) {
+            setPredicate(predicate);
+        } else {
+            evaluate(predicate, null, candidates.and(predicate));
+        }
+    }
+
+    /**
+     * Set a predicate that can only reject messages accepted by the current predicate, and that
+     * accepts a message currently in this list if and only if it belongs to the provided bitmap.
+     * No message is evaluated.
+     * <p>
+     * If an evaluation is running, the current content of this list is not final, so
+     * all messages are evaluated instead.
+     *
+     * @param predicate  the new predicate
+     * @param messagesToKeep  the sequence numbers of the messages that still match the new predicate
+     */
+    public void narrowPredicate(LogRowPredicate predicate, SequenceBitmap messagesToKeep) {
+        if (evaluating.get()) {
+            setPredicate(predicate);
+        } else {
+            startEvaluation(predicate);
+
+            long[] newSequenceNumbers = new long[Math.max(INITIAL_CAPACITY, size)];
+            int newSize = 0;
+            for (int i=head; i<head+size; ++i) {
+                if (messagesToKeep.contains(sequenceNumbers[i])) {
+                    newSequenceNumbers[newSize++] = sequenceNumbers[i];
+                }
+            }
+            publish(new Evaluation(newSequenceNumbers, newSize));
+        }
+    }
+
+    /**
+     * Set a predicate that can only accept more messages than the current predicate.
+     * The messages currently in this list are kept without being evaluated, and only the
+     * messages of the provided bitmap are considered for addition: they are added if they
+     * match {@code check}, or without evaluation if {@code check} is null.
+     * <p>
+     * If an evaluation is running, the current content of this list is not final, so
+     * all messages are evaluated instead.
+     *
+     * @param predicate  the new predicate
+     * @param candidates  the sequence numbers of all messages that may have to be added
+     * @param check  the predicate to evaluate on the candidates (which must give the same
+     *               result as the new predicate on them), or null if all candidates match the new predicate
+     */
+    public void widenPredicate(LogRowPredicate predicate, SequenceBitmap candidates, LogRowPredicate check) {
+        if (evaluating.get()) {
+            setPredicate(predicate);
+        } else if (check == null) {
+            startEvaluation(predicate);
+
+            long[] candidateSequenceNumbers = candidates.toArray(store.getFirstSequenceNumber(), store.getRows().getEndSequenceNumber());
+            publish(union(new Evaluation(candidateSequenceNumbers, candidateSequenceNumbers.length)));
+        } else {
+            evaluate(
+                    predicate,
+                    null,
+                    check,
+                    candidates.toArray(store.getFirstSequenceNumber(), store.getRows().getEndSequenceNumber())
+            );
+        }
+    }
+
+    /**
+     * Set a predicate that gives the same result as the current predicate on all messages
+     * of the store. No message is evaluated (and an evaluation already running is not
+     * cancelled), but the new predicate is used for messages appended later.
+     *
+     * @param predicate  the new predicate
+     */
+    public void replacePredicate(LogRowPredicate predicate) {
+        if (this.predicate == publishedPredicate) {
+            publishedPredicate = predicate;
+        }
+        this.predicate = predicate;
+    }
+
+    /**
+     * Remove the first messages of this list that don't match {@code check}, stopping at the first message
+     * that matches it. This is meant for a predicate that rejects more and more of the oldest messages over time
+     * (e.g. a sliding time window), so that it is not evaluated again on all messages: only the removed messages
+     * and the first kept one are read, and they are reported as a single change. The predicate is not changed.
+     * <p>
+     * Messages that don't match {@code check} but are after a message that matches it are kept. If an evaluation
+     * is running, its result may contain messages that don't match {@code check} anymore, which are removed
+     * by the next call.
+     *
+     * @param check  the predicate that the first message of this list should match
+     */
+    public void removeHead(LogRowPredicate check) {
+        check.onEvaluationStart();
+        LogRows rows = store.getRows();
+        int numberToRemove = 0;
+        while (numberToRemove < size && !check.test(rows, sequenceNumbers[head + numberToRemove])) {
+            numberToRemove++;
+        }
+
+        if (numberToRemove > 0) {
+            // The removed sequence numbers stay before the head, where they are not modified during the change
+            List<LogMessage> removed = LogRowList.of(rows, sequenceNumbers, head, head + numberToRemove);
+            head += numberToRemove;
+            size -= numberToRemove;
+            levelPositions.removeBefore(size == 0 ? rows.getEndSequenceNumber() : sequenceNumbers[head]);
+
+            fireChange(new BulkChange<>(this, removed, size, size));
+        }
+    }
+
+    private void evaluate(LogRowPredicate predicate, LogRowPredicate visibleTest, LogRowPredicate hiddenTest) {
+        evaluate(predicate, visibleTest, hiddenTest, null);
+    }
+
+    /**
+     * Evaluate a new predicate. Messages currently in this list are kept if they match {@code visibleTest}
+     * (all of them if it is null), and other messages are added if they match {@code hiddenTest} (none
+     * of them if it is null).
+     * <p>
+     * If {@code hiddenCandidates} is not null, all messages currently in this list are kept, and only
+     * these candidates are evaluated with {@code hiddenTest}.
+     */
+    private void evaluate(LogRowPredicate predicate, LogRowPredicate visibleTest, LogRowPredicate hiddenTest, long[] hiddenCandidates) {
+        long evaluationGeneration = startEvaluation(predicate);
+        boolean keepVisible = hiddenCandidates != null;
+        if (visibleTest != null) {
+            visibleTest.onEvaluationStart();
+        }
+        if (hiddenTest != null && hiddenTest != visibleTest) {
+            hiddenTest.onEvaluationStart();
+        }
+
+        LogRows rows = store.getRows();
+        if ((keepVisible ? hiddenCandidates.length : store.size()) <= SYNCHRONOUS_EVALUATION_LIMIT) {
+            evaluating.set(false);
+            try {
+                if (keepVisible) {
+                    publish(union(compute(rows, NO_SEQUENCE_NUMBERS, 0, 0, hiddenCandidates, null, hiddenTest, evaluationGeneration, false)));
+                } else {
+                    publish(compute(rows, sequenceNumbers, head, head + size, null, visibleTest, hiddenTest, evaluationGeneration, false));
+                }
+            } catch (EvaluationAbortedException e) {
+                abortEvaluation();
+            }
+        } else {
+            // Messages appended from now on are filtered with the new predicate,
+            // so only messages before this boundary need to be evaluated
+            long boundary = rows.getEndSequenceNumber();
+            long[] visibleSequenceNumbers = keepVisible ? NO_SEQUENCE_NUMBERS : Arrays.copyOfRange(sequenceNumbers, head, head + size);
+
+            evaluating.set(true);
+            evaluationProgress.set(0);
+            pendingEvaluation = executor.schedule(
+                    () -> {
+                        long[] candidates = keepVisible ? hiddenCandidates : getCandidates(rows, predicate.getRequiredText());
+                        Evaluation evaluation;
+                        try {
+                            evaluation = compute(
+                                    rows,
+                                    visibleSequenceNumbers,
+                                    0,
+                                    visibleSequenceNumbers.length,
+                                    candidates,
+                                    visibleTest,
+                                    hiddenTest,
+                                    evaluationGeneration,
+                                    true
+                            );
+                        } catch (EvaluationAbortedException e) {
+                            Platform.runLater(() -> {
+                                if (evaluationGeneration == generation) {
+                                    abortEvaluation();
+                                }
+                            });
+                            return;
+                        }
+                        if (evaluation != null) {
+                            Platform.runLater(() -> onEvaluationCompleted(evaluation, boundary, evaluationGeneration, keepVisible));
+                        }
+                    },
+                    EVALUATION_DELAY_MILLIS,
+                    TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    /**
+     * Set the predicate used for the messages appended from now on, and cancel the evaluation
+     * of the previous predicate if it is still running.
+     *
+     * @return the generation of the new evaluation
+     */
+    private long startEvaluation(LogRowPredicate predicate) {
+        this.predicate = predicate;
+        evaluationAborted.set(false);
+        if (pendingEvaluation != null) {
+            pendingEvaluation.cancel(false);
+            pendingEvaluation = null;
+        }
+        return ++generation;
+    }
+
+    /**
+     * Use the trigram index to find the messages that may contain the provided text. The index is
+     * created the first time it is needed, and then kept up to date as messages are appended.
+     * This must be called from the executor thread.
+     *
+     * @return the sorted sequence numbers of the candidate messages, or null if the index can't be used
+     */
+    private long[] getCandidates(LogRows rows, String requiredText) {
+        if (!TrigramIndex.canQuery(requiredText)) {
+            return null;
+        }
+
+        if (trigramIndex == null) {
+            trigramIndex = new TrigramIndex();
+            indexEnabled = true;
+        }
+        trigramIndex.update(rows);
+        return trigramIndex.query(requiredText, rows.getFirstSequenceNumber(), rows.getEndSequenceNumber());
+    }
+
+    /**
+     * Index the messages appended to the store in the background, if the index is used.
+     * Only one update is scheduled at a time, and it indexes all messages appended until it runs.
+     */
+    private void scheduleIndexUpdate() {
+        if (indexEnabled) {
+            rowsToIndex = store.getRows();
+
+            if (indexUpdateScheduled.compareAndSet(false, true)) {
+                executor.execute(() -> {
+                    indexUpdateScheduled.set(false);
+                    trigramIndex.update(rowsToIndex);
+                });
+            }
+        }
+    }
+
+    /**
+     * Compute the sequence numbers of the messages of {@code rows} matching the provided tests. This can be
+     * called from any thread, and returns null if the evaluation was superseded by another one.
+     * <p>
+     * If {@code candidates} is not null, only these messages are evaluated. They must include all messages
+     * that may match the tests, except messages currently visible that are kept without evaluation.
+     * <p>
+     * In the background, large evaluations are split into chunks evaluated in parallel on the
+     * common fork/join pool, and the results of the chunks are concatenated in order.
+     */
+    private Evaluation compute(
+            LogRows rows,
+            long[] visible,
+            int visibleFrom,
+            int visibleTo,
+            long[] candidates,
+            LogRowPredicate visibleTest,
+            LogRowPredicate hiddenTest,
+            long evaluationGeneration,
+            boolean inBackground
+    ) {
+        long first = rows.getFirstSequenceNumber();
+        long end = rows.getEndSequenceNumber();
+        long numberOfIterations = hiddenTest == null ? visibleTo - visibleFrom : end - first;
+        if (candidates != null && ((visibleTest == null && visibleTo > visibleFrom) || candidates.length >= numberOfIterations)) {
+            // Visible messages kept without evaluation are not part of the candidates,
+            // and candidates are useless if there are more of them than messages to evaluate
+            candidates = null;
+        }
+        if (candidates != null) {
+            numberOfIterations = candidates.length;
+        }
+        Progress progress = inBackground ? new Progress(numberOfIterations, evaluationGeneration) : null;
+
+        if (!inBackground || numberOfIterations < PARALLEL_EVALUATION_THRESHOLD) {
+            int candidatesTo = candidates == null ? 0 : candidates.length;
+            return computeChunk(rows, visible, visibleFrom, visibleTo, candidates, 0, candidatesTo, first, end, visibleTest, hiddenTest, evaluationGeneration, progress);
+        }
+
+        long[] chunkCandidates = candidates;
+        int numberOfChunks = (int) ((numberOfIterations + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE);
+        List<Evaluation> chunks = IntStream.range(0, numberOfChunks).parallel().mapToObj(chunk -> {
+            if (chunkCandidates != null) {
+                int from = chunk * PARALLEL_CHUNK_SIZE;
+                int to = Math.min(from + PARALLEL_CHUNK_SIZE, chunkCandidates.length);
+                return computeChunk(
+                        rows,
+                        visible,
+                        lowerBound(visible, visibleFrom, visibleTo, chunkCandidates[from]),
+                        visibleTo,
+                        chunkCandidates,
+                        from,
+                        to,
+                        first,
+                        end,
+                        visibleTest,
+                        hiddenTest,
+                        evaluationGeneration,
+                        progress
+                );
+            } else if (hiddenTest == null) {
+                int from = visibleFrom + chunk * PARALLEL_CHUNK_SIZE;
+                int to = Math.min(from + PARALLEL_CHUNK_SIZE, visibleTo);
+                return computeChunk(rows, visible, from, to, null, 0, 0, first, end, visibleTest, null, evaluationGeneration, progress);
+            } else {
+                long from = first + (long) chunk * PARALLEL_CHUNK_SIZE;
+                long to = Math.min(from + PARALLEL_CHUNK_SIZE, end);
+                return computeChunk(
+                        rows,
+                        visible,
+                        lowerBound(visible, visibleFrom, visibleTo, from),
+                        lowerBound(visible, visibleFrom, visibleTo, to),
+                        null,
+                        0,
+                        0,
+                        from,
+                        to,
+                        visibleTest,
+                        hiddenTest,
+                        evaluationGeneration,
+                        progress
+                );
+            }
+        }).toList();
+
+        if (chunks.contains(null)) {
+            return null;
+        }
+        long[] result = new long[Math.max(INITIAL_CAPACITY, chunks.stream().mapToInt(Evaluation::size).sum())];
+        int resultSize = 0;
+        for (Evaluation chunk: chunks) {
+            System.arraycopy(chunk.sequenceNumbers(), 0, result, resultSize, chunk.size());
+            resultSize += chunk.size();
+        }
+        return new Evaluation(result, resultSize);
+    }
+
+    /**
+     * Evaluate the candidates between {@code candidatesFrom} and {@code candidatesTo} if {@code candidates}
+     * is not null. Otherwise, evaluate the messages whose sequence number is between {@code sequenceNumberFrom}
+     * and {@code sequenceNumberTo}, or only the visible messages between {@code visibleFrom} and {@code visibleTo}
+     * if {@code hiddenTest} is null.
+     */
+    private Evaluation computeChunk(
+            LogRows rows,
+            long[] visible,
+            int visibleFrom,
+            int visibleTo,
+            long[] candidates,
+            int candidatesFrom,
+            int candidatesTo,
+            long sequenceNumberFrom,
+            long sequenceNumberTo,
+            LogRowPredicate visibleTest,
+            LogRowPredicate hiddenTest,
+            long evaluationGeneration,
+            Progress progress
+    ) {
+        long capacity;
+        if (candidates != null) {
+            capacity = candidatesTo - candidatesFrom;
+        } else if (hiddenTest == null) {
+            capacity = visibleTo - visibleFrom;
+        } else {
+            capacity = sequenceNumberTo - sequenceNumberFrom;
+        }
+        long[] result = new long[(int) Math.max(16, capacity)];
+        int resultSize = 0;
+        long iteration = 0;
+
+        int i = visibleFrom;
+        int candidate = candidatesFrom;
+        long nextSequenceNumber = sequenceNumberFrom;
+        while (true) {
+            long sequenceNumber;
+            if (candidates != null) {
+                if (candidate == candidatesTo) {
+                    break;
+                }
+                sequenceNumber = candidates[candidate++];
+            } else if (hiddenTest == null) {
+                if (i == visibleTo) {
+                    break;
+                }
+                sequenceNumber = visible[i];
+            } else {
+                if (nextSequenceNumber == sequenceNumberTo) {
+                    break;
+                }
+                sequenceNumber = nextSequenceNumber++;
+            }
+
+            if (++iteration % CANCELLATION_CHECK_INTERVAL == 0) {
+                if (generation != evaluationGeneration) {
+                    return null;
+                }
+                if (progress != null) {
+                    progress.advance(CANCELLATION_CHECK_INTERVAL);
+                }
+            }
+
+            while (i < visibleTo && visible[i] < sequenceNumber) {
+                i++;
+            }
+            boolean isVisible = i < visibleTo && visible[i] == sequenceNumber;
+            if (isVisible) {
+                i++;
+            }
+
+            if (isVisible ?
+                    visibleTest == null || test(visibleTest, rows, sequenceNumber) :
+                    hiddenTest != null && test(hiddenTest, rows, sequenceNumber)
+            ) {
+                result[resultSize++] = sequenceNumber;
+            }
+        }
+
+        return new Evaluation(result, resultSize);
+    }
+
+    private static int lowerBound(long[] values, int from, int to, long value) {
+        int index = Arrays.binarySearch(values, from, to, value);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Merge the result of a background evaluation with the messages appended since it started
+     * (or with all messages of this list if {@code keepVisible} is true), and publish it, unless the
+     * evaluation was superseded by another one.
+     */
+    private void onEvaluationCompleted(Evaluation evaluation, long boundary, long evaluationGeneration, boolean keepVisible) {
+        if (evaluationGeneration != generation) {
+            return;
+        }
+        pendingEvaluation = null;
+
+        if (keepVisible) {
+            publish(union(evaluation));
+            evaluationProgress.set(1);
+            evaluating.set(false);
+            return;
+        }
+
+        long first = store.getFirstSequenceNumber();
+        long[] newSequenceNumbers = new long[Math.max(INITIAL_CAPACITY, evaluation.size() + size)];
+        int newSize = 0;
+        for (int i=0; i<evaluation.size(); ++i) {
+            if (evaluation.sequenceNumbers()[i] >= first) {
+                newSequenceNumbers[newSize++] = evaluation.sequenceNumbers()[i];
+            }
+        }
+        for (int i=head; i<head+size; ++i) {
+            if (sequenceNumbers[i] >= boundary) {
+                newSequenceNumbers[newSize++] = sequenceNumbers[i];
+            }
+        }
+
+        publish(new Evaluation(newSequenceNumbers, newSize));
+        evaluationProgress.set(1);
+        evaluating.set(false);
+    }
+
+    /**
+     * Merge sorted sequence numbers with the content of this list. Sequence numbers of evicted messages are ignored.
+     */
+    private Evaluation union(Evaluation evaluation) {
+        long first = store.getFirstSequenceNumber();
+        long[] additions = evaluation.sequenceNumbers();
+        long[] result = new long[Math.max(INITIAL_CAPACITY, size + evaluation.size())];
+        int resultSize = 0;
+
+        int i = head;
+        int j = lowerBound(additions, 0, evaluation.size(), first);
+        while (i < head + size || j < evaluation.size()) {
+            long sequenceNumber;
+            if (j == evaluation.size() || (i < head + size && sequenceNumbers[i] <= additions[j])) {
+                sequenceNumber = sequenceNumbers[i++];
+            } else {
+                sequenceNumber = additions[j++];
+            }
+
+            if (resultSize == 0 || result[resultSize - 1] != sequenceNumber) {
+                result[resultSize++] = sequenceNumber;
+            }
+        }
+
+        return new Evaluation(result, resultSize);
+    }
+
+    /**
+     * Restore the predicate whose result is currently published after the evaluation of a new predicate was
+     * aborted. The published messages are kept, and the messages appended since the result was published
+     * (which were filtered with the aborted predicate) are evaluated again.
+     */
+    private void abortEvaluation() {
+        startEvaluation(publishedPredicate);
+        evaluating.set(false);
+
+        LogRows rows = store.getRows();
+        long from = Math.max(rows.getFirstSequenceNumber(), publishedEnd);
+        long end = rows.getEndSequenceNumber();
+        long[] newSequenceNumbers = new long[(int) Math.max(INITIAL_CAPACITY, size + end - from)];
+        int newSize = 0;
+        for (int i=head; i<head+size && sequenceNumbers[i] < from; ++i) {
+            newSequenceNumbers[newSize++] = sequenceNumbers[i];
+        }
+        predicate.onEvaluationStart();
+        for (long sequenceNumber = from; sequenceNumber < end; ++sequenceNumber) {
+            boolean matches;
+            try {
+                matches = predicate.test(rows, sequenceNumber);
+            } catch (RuntimeException e) {
+                // The restored predicate can also be aborted, as the appended messages may be too expensive
+                matches = false;
+            }
+            if (matches) {
+                newSequenceNumbers[newSize++] = sequenceNumber;
+            }
+        }
+
+        publish(new Evaluation(newSequenceNumbers, newSize));
+        evaluationAborted.set(true);
+    }
+
+    /**
+     * Evaluate a predicate on a message that may be evicted concurrently, in which case
+     * reading it can fail. The result for such a message doesn't matter as it won't be published.
+     * Aborted evaluations are propagated.
+     */
+    private static boolean test(LogRowPredicate predicate, LogRows rows, long sequenceNumber) {
+        try {
+            return predicate.test(rows, sequenceNumber);
+        } catch (EvaluationAbortedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void onStoreChanged(ListChangeListener.Change<? extends LogMessage> change) {
+        if (store.isEmpty()) {
+            LogRowList removedFromStore = null;
+            while (change.next()) {
+                if (change.wasRemoved()) {
+                    removedFromStore = (LogRowList) change.getRemoved();
+                }
+            }
+            onStoreCleared(removedFromStore);
+            return;
+        }
+
+        // The store reports evicted messages as a view, which is not copied
+        LogRowList evictedFromStore = null;
+        List<int[]> addedRanges = new ArrayList<>();
+        while (change.next()) {
+            if (change.wasRemoved()) {
+                evictedFromStore = (LogRowList) change.getRemoved();
+            }
+            if (change.wasAdded()) {
+                addedRanges.add(new int[] {change.getFrom(), change.getTo()});
+            }
+        }
+
+        LogRows rows = store.getRows();
+        long firstSequenceNumber = rows.getFirstSequenceNumber();
+        int numberRemoved = 0;
+        while (numberRemoved < size && sequenceNumbers[head + numberRemoved] < firstSequenceNumber) {
+            numberRemoved++;
+        }
+        // Copied because the sequence numbers can be moved when messages are added below
+        List<LogMessage> removed = numberRemoved == 0 ?
+                List.of() :
+                evictedFromStore.select(Arrays.copyOfRange(sequenceNumbers, head, head + numberRemoved), 0, numberRemoved);
+
+        int sizeBeforeAddition = size - numberRemoved;
+        head += numberRemoved;
+        size -= numberRemoved;
+        levelPositions.removeBefore(firstSequenceNumber);
+        boolean aborted = false;
+        try {
+            if (!addedRanges.isEmpty()) {
+                predicate.onEvaluationStart();
+            }
+            for (int[] range: addedRanges) {
+                for (int i=range[0]; i<range[1]; ++i) {
+                    long sequenceNumber = firstSequenceNumber + i;
+                    if (predicate.test(rows, sequenceNumber)) {
+                        add(rows, sequenceNumber);
+                    }
+                }
+            }
+        } catch (EvaluationAbortedException e) {
+            aborted = true;
+        }
+        if (!aborted && predicate == publishedPredicate) {
+            publishedEnd = rows.getEndSequenceNumber();
+        }
+
+        if (!addedRanges.isEmpty()) {
+            scheduleIndexUpdate();
+        }
+
+        if (!removed.isEmpty() || size > sizeBeforeAddition) {
+            fireChange(new BulkChange<>(this, removed, sizeBeforeAddition, size));
+        }
+
+        if (aborted) {
+            abortEvaluation();
+        }
+    }
+
+    /**
+     * Remove all messages of this list in constant time, and discard the evaluation and the
+     * index of the previous content. The removed messages are reported as a view on the messages
+     * removed from the store.
+     */
+    private void onStoreCleared(LogRowList removedFromStore) {
+        startEvaluation(predicate);
+        evaluating.set(false);
+        publishedPredicate = predicate;
+        publishedEnd = store.getRows().getEndSequenceNumber();
+        if (indexEnabled) {
+            executor.execute(() -> trigramIndex = new TrigramIndex());
+        }
+
+        if (size > 0) {
+            long[] previousSequenceNumbers = sequenceNumbers;
+            int previousHead = head;
+            int previousSize = size;
+
+            sequenceNumbers = new long[INITIAL_CAPACITY];
+            head = 0;
+            size = 0;
+            levelPositions.clear();
+
+            // The previous sequence numbers are not modified anymore, so they don't need to be copied
+            fireChange(new BulkChange<>(
+                    this,
+                    removedFromStore.select(previousSequenceNumbers, previousHead, previousHead + previousSize),
+                    0,
+                    0
+            ));
+        }
+    }
+
+    private void add(LogRows rows, long sequenceNumber) {
+        if (head + size == sequenceNumbers.length) {
+            if (head >= sequenceNumbers.length / 2) {
+                System.arraycopy(sequenceNumbers, head, sequenceNumbers, 0, size);
+            } else {
+                sequenceNumbers = Arrays.copyOfRange(sequenceNumbers, head, head + 2 * sequenceNumbers.length);
+            }
+            head = 0;
+        }
+        sequenceNumbers[head + size] = sequenceNumber;
+        size++;
+        levelPositions.add(rows.getLevel(sequenceNumber), sequenceNumber);
+    }
+
+    /**
+     * Replace the content of this list with the result of the current predicate, and report the
+     * difference with the previous content as a single change. Both contents are sorted, so they are
+     * merged in one pass. Removed messages are reported as views on the previous content, so they are
+     * only created if listeners read them.
+     */
+    private void publish(Evaluation evaluation) {
+        publishedPredicate = predicate;
+        publishedEnd = store.getRows().getEndSequenceNumber();
+
+        long[] newSequenceNumbers = evaluation.sequenceNumbers();
+        int newSize = evaluation.size();
+        long[] oldSequenceNumbers = sequenceNumbers;
+        int oldHead = head;
+        int oldEnd = head + size;
+
+        sequenceNumbers = newSequenceNumbers;
+        head = 0;
+        size = newSize;
+        LogRows rows = store.getRows();
+        levelPositions.clear();
+        for (int k=0; k<newSize; ++k) {
+            levelPositions.add(rows.getLevel(newSequenceNumbers[k]), newSequenceNumbers[k]);
+        }
+
+        // The old sequence numbers are not modified anymore, so removed messages are reported as views on them
+        BulkChange<LogMessage> change = new BulkChange<>(this);
+        int i = oldHead;
+        int j = 0;
+        while (i < oldEnd || j < newSize) {
+            if (j == newSize || (i < oldEnd && oldSequenceNumbers[i] < newSequenceNumbers[j])) {
+                int from = i;
+                while (i < oldEnd && (j == newSize || oldSequenceNumbers[i] < newSequenceNumbers[j])) {
+                    i++;
+                }
+                change.addRemoval(j, LogRowList.of(rows, oldSequenceNumbers, from, i));
+            } else if (i == oldEnd || newSequenceNumbers[j] < oldSequenceNumbers[i]) {
+                int from = j;
+                while (j < newSize && (i == oldEnd || newSequenceNumbers[j] < oldSequenceNumbers[i])) {
+                    j++;
+                }
+                change.addAddition(from, j);
+            } else {
+                i++;
+                j++;
+            }
+        }
+        if (!change.isEmpty()) {
+            fireChange(change);
+        }
+    }
+
+    private record Evaluation(long[] sequenceNumbers, int size) {}
+
+    /**
+     * Reports the progress of a background evaluation to the JavaFX Application Thread,
+     * at most once per percent. It can be updated from several threads.
+     */
+    private class Progress {
+
+        private final AtomicLong numberOfEvaluatedRows = new AtomicLong(0);
+        private final AtomicInteger reportedPercent = new AtomicInteger(0);
+        private final long numberOfRows;
+        private final long evaluationGeneration;
+
+        public Progress(long numberOfRows, long evaluationGeneration) {
+            this.numberOfRows = numberOfRows;
+            this.evaluationGeneration = evaluationGeneration;
+        }
+
+        public void advance(long numberOfRowsEvaluated) {
+            int percent = (int) (100 * numberOfEvaluatedRows.addAndGet(numberOfRowsEvaluated) / numberOfRows);
+            int previousPercent = reportedPercent.get();
+
+            if (percent > previousPercent && reportedPercent.compareAndSet(previousPercent, percent)) {
+                Platform.runLater(() -> {
+                    if (generation == evaluationGeneration) {
+                        evaluationProgress.set(percent / 100d);
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import org.slf4j.event.Level;
+
+import java.util.Arrays;
+
+/**
+ * The sequence numbers of the messages of a {@link FilteredLogList}, grouped by level and sorted, so that
+ * the previous or next message of a level is found by binary search.
+ * <p>
+ * Messages are added in the order of their sequence numbers, and only removed from the beginning
+ * (see {@link #removeBefore(long)}) or all at once. This class is not thread-safe.
+ */
+final class LevelPositions {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final Level[] LEVELS = Level.values();
+    private final long[][] sequenceNumbers = new long[LEVELS.length][INITIAL_CAPACITY];
+    private final int[] heads = new int[LEVELS.length];
+    private final int[] ends = new int[LEVELS.length];
+
+    /**
+     * Add a message. Messages must be added in the order of their sequence numbers.
+     *
+     * @param level  the level of the message
+     * @param sequenceNumber  the sequence number of the message
+     */
+    public void add(Level level, long sequenceNumber) {
+        int l = level.ordinal();
+        if (ends[l] == sequenceNumbers[l].length) {
+            int size = ends[l] - heads[l];
+            if (heads[l] >= sequenceNumbers[l].length / 2) {
+                System.arraycopy(sequenceNumbers[l], heads[l], sequenceNumbers[l], 0, size);
+            } else {
+                sequenceNumbers[l] = Arrays.copyOfRange(sequenceNumbers[l], heads[l], heads[l] + 2 * sequenceNumbers[l].length);
+            }
+            heads[l] = 0;
+            ends[l] = size;
+        }
+        sequenceNumbers[l][ends[l]++] = sequenceNumber;
+    }
+
+    /**
+     * Remove the messages whose sequence number is lower than the provided one.
+     *
+     * @param sequenceNumber  the first sequence number that must be kept
+     */
+    public void removeBefore(long sequenceNumber) {
+        for (int l=0; l<LEVELS.length; ++l) {
+            heads[l] = lowerBound(l, sequenceNumber);
+        }
+    }
+
+    /**
+     * Remove all messages.
+     */
+    public void clear() {
+        Arrays.fill(heads, 0);
+        Arrays.fill(ends, 0);
+    }
+
+    /**
+     * @param level  the level of the message to find
+     * @param sequenceNumber  the sequence number to start from (excluded)
+     * @return the greatest sequence number of a message of the provided level lower than {@code sequenceNumber},
+     * or -1 if there is none
+     */
+    public long findPrevious(Level level, long sequenceNumber) {
+        int l = level.ordinal();
+        int i = lowerBound(l, sequenceNumber);
+        return i > heads[l] ? sequenceNumbers[l][i - 1] : -1;
+    }
+
+    /**
+     * @param level  the level of the message to find
+     * @param sequenceNumber  the sequence number to start from (excluded)
+     * @return the lowest sequence number of a message of the provided level greater than {@code sequenceNumber},
+     * or -1 if there is none
+     */
+    public long findNext(Level level, long sequenceNumber) {
+        int l = level.ordinal();
+        int i = sequenceNumber == Long.MAX_VALUE ? ends[l] : lowerBound(l, sequenceNumber + 1);
+        return i < ends[l] ? sequenceNumbers[l][i] : -1;
+    }
+
+    private int lowerBound(int level, long sequenceNumber) {
+        int low = heads[level];
+        int high = ends[level];
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sequenceNumbers[level][middle] < sequenceNumber) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
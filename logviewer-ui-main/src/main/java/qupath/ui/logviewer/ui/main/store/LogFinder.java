@@ -0,0 +1,273 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.collections.ListChangeListener;
+import qupath.ui.logviewer.api.LogMessage;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Find the messages of a {@link FilteredLogList} that match a {@link LogRowPredicate}, without changing
+ * the content of the list.
+ * <p>
+ * The sequence numbers of the matching messages are kept sorted, so that the previous or next match
+ * of a message and the number of a match are found by binary search. When the predicate is set, the
+ * messages of a large list are evaluated in the background, and the matches are added in chunks as they
+ * are found. After that, the matches follow the list: messages appended to the list are evaluated
+ * when they arrive, and messages removed from the beginning of the list are removed from the matches.
+ * Other changes (e.g. a new filter) start a new evaluation.
+ * <p>
+ * This class is not thread-safe and should only be used from the JavaFX Application Thread.
+ */
+public class LogFinder {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int SYNCHRONOUS_SEARCH_LIMIT = 10_000;
+    private static final int CHUNK_SIZE = 16_384;
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-viewer-find");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ReadOnlyBooleanWrapper searching = new ReadOnlyBooleanWrapper(false);
+    private final ReadOnlyIntegerWrapper matchCount = new ReadOnlyIntegerWrapper(0);
+    private final FilteredLogList logs;
+    private LogRowPredicate predicate = null;
+    private volatile long generation = 0;
+    // Messages of the list from this sequence number are not evaluated by the running search
+    private long searchEnd;
+    private long[] matches = new long[INITIAL_CAPACITY];
+    private int head = 0;
+    private int size = 0;
+
+    /**
+     * Creates a finder without predicate, following the provided list.
+     *
+     * @param logs  the list whose messages should be searched
+     */
+    public LogFinder(FilteredLogList logs) {
+        this.logs = logs;
+
+        logs.addListener(this::onListChanged);
+    }
+
+    /**
+     * Set the predicate that messages should match, and search the messages of the list (in the background
+     * if the list is large).
+     *
+     * @param predicate  the predicate that messages should match, or null to not search any message
+     */
+    public void setPredicate(LogRowPredicate predicate) {
+        this.predicate = predicate;
+        long searchGeneration = ++generation;
+        head = 0;
+        size = 0;
+        matchCount.set(0);
+
+        if (predicate == null || logs.size() <= SYNCHRONOUS_SEARCH_LIMIT) {
+            searching.set(false);
+            searchEnd = Long.MIN_VALUE;
+            if (predicate != null) {
+                LogRows rows = logs.getStore().getRows();
+                for (int i=0; i<logs.size(); ++i) {
+                    if (test(predicate, rows, logs.getSequenceNumber(i))) {
+                        add(logs.getSequenceNumber(i));
+                    }
+                }
+                matchCount.set(size);
+            }
+        } else {
+            searching.set(true);
+            searchEnd = logs.getSequenceNumber(logs.size() - 1) + 1;
+            long[] sequenceNumbers = new long[logs.size()];
+            for (int i=0; i<sequenceNumbers.length; ++i) {
+                sequenceNumbers[i] = logs.getSequenceNumber(i);
+            }
+            LogRows rows = logs.getStore().getRows();
+
+            executor.execute(() -> search(rows, sequenceNumbers, predicate, searchGeneration));
+        }
+    }
+
+    /**
+     * @return whether the messages of the list are being searched in the background
+     */
+    public ReadOnlyBooleanProperty getSearchingProperty() {
+        return searching.getReadOnlyProperty();
+    }
+
+    /**
+     * @return the number of messages of the list found to match the predicate
+     */
+    public ReadOnlyIntegerProperty getMatchCountProperty() {
+        return matchCount.getReadOnlyProperty();
+    }
+
+    /**
+     * @param index  the index of a message of the list
+     * @return whether the message was found to match the predicate
+     */
+    public boolean isMatch(int index) {
+        int position = lowerBound(logs.getSequenceNumber(index));
+        return position < head + size && matches[position] == logs.getSequenceNumber(index);
+    }
+
+    /**
+     * @param index  the index of a message of the list
+     * @return the number of matches before the message, which is the (zero-based) number of the
+     * match if the message is a match
+     */
+    public int getMatchNumber(int index) {
+        return lowerBound(logs.getSequenceNumber(index)) - head;
+    }
+
+    /**
+     * @param index  the index of the list to start from (excluded), or the size of the list to find the last match
+     * @return the index in the list of the last match before {@code index}, or -1 if there is none
+     */
+    public int getPreviousMatch(int index) {
+        int position = index >= logs.size() ? head + size : index < 0 ? head : lowerBound(logs.getSequenceNumber(index));
+        return position > head ? logs.getIndexAtOrAfter(matches[position - 1]) : -1;
+    }
+
+    /**
+     * @param index  the index of the list to start from (excluded), or -1 to find the first match
+     * @return the index in the list of the first match after {@code index}, or -1 if there is none
+     */
+    public int getNextMatch(int index) {
+        int position = index < 0 ? head : index >= logs.size() ? head + size : lowerBound(logs.getSequenceNumber(index) + 1);
+        return position < head + size ? logs.getIndexAtOrAfter(matches[position]) : -1;
+    }
+
+    private void search(LogRows rows, long[] sequenceNumbers, LogRowPredicate predicate, long searchGeneration) {
+        for (int from=0; from<sequenceNumbers.length; from+=CHUNK_SIZE) {
+            if (searchGeneration != generation) {
+                return;
+            }
+
+            int to = Math.min(sequenceNumbers.length, from + CHUNK_SIZE);
+            long[] chunk = new long[to - from];
+            int chunkSize = 0;
+            for (int i=from; i<to; ++i) {
+                if (test(predicate, rows, sequenceNumbers[i])) {
+                    chunk[chunkSize++] = sequenceNumbers[i];
+                }
+            }
+
+            long[] chunkMatches = Arrays.copyOf(chunk, chunkSize);
+            boolean last = to == sequenceNumbers.length;
+            Platform.runLater(() -> onChunkSearched(chunkMatches, last, searchGeneration));
+        }
+    }
+
+    private void onChunkSearched(long[] chunkMatches, boolean last, long searchGeneration) {
+        if (searchGeneration != generation) {
+            return;
+        }
+
+        // Messages removed from the list in the meantime are skipped
+        long firstSequenceNumber = logs.isEmpty() ? Long.MAX_VALUE : logs.getSequenceNumber(0);
+        for (long sequenceNumber: chunkMatches) {
+            if (sequenceNumber >= firstSequenceNumber) {
+                add(sequenceNumber);
+            }
+        }
+
+        if (last) {
+            // Messages appended to the list during the search were not evaluated
+            LogRows rows = logs.getStore().getRows();
+            for (int i=logs.getIndexAtOrAfter(searchEnd); i<logs.size(); ++i) {
+                if (test(predicate, rows, logs.getSequenceNumber(i))) {
+                    add(logs.getSequenceNumber(i));
+                }
+            }
+            searchEnd = Long.MIN_VALUE;
+        }
+        matchCount.set(size);
+        if (last) {
+            searching.set(false);
+        }
+    }
+
+    private void onListChanged(ListChangeListener.Change<? extends LogMessage> change) {
+        if (predicate == null) {
+            return;
+        }
+
+        boolean onlyAtEnds = true;
+        int firstAdded = -1;
+        while (change.next()) {
+            if (change.wasRemoved() && !change.wasAdded() && change.getFrom() == 0) {
+                continue;
+            }
+            if (change.wasAdded() && !change.wasRemoved() && change.getTo() == logs.size()) {
+                firstAdded = change.getFrom();
+                continue;
+            }
+            onlyAtEnds = false;
+        }
+
+        if (!onlyAtEnds) {
+            setPredicate(predicate);
+            return;
+        }
+
+        // Removed messages are at the beginning of the list, so their matches are at the beginning too
+        int newHead = logs.isEmpty() ? head + size : lowerBound(logs.getSequenceNumber(0));
+        size -= newHead - head;
+        head = newHead;
+
+        // While searching, appended messages are evaluated at the end of the search
+        if (firstAdded >= 0 && !searching.get()) {
+            LogRows rows = logs.getStore().getRows();
+            for (int i=firstAdded; i<logs.size(); ++i) {
+                if (test(predicate, rows, logs.getSequenceNumber(i))) {
+                    add(logs.getSequenceNumber(i));
+                }
+            }
+        }
+        matchCount.set(size);
+    }
+
+    private void add(long sequenceNumber) {
+        if (head + size == matches.length) {
+            if (head >= matches.length / 2) {
+                System.arraycopy(matches, head, matches, 0, size);
+            } else {
+                matches = Arrays.copyOfRange(matches, head, head + 2 * matches.length);
+            }
+            head = 0;
+        }
+        matches[head + size] = sequenceNumber;
+        size++;
+    }
+
+    private int lowerBound(long sequenceNumber) {
+        int low = head;
+        int high = head + size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (matches[middle] < sequenceNumber) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean test(LogRowPredicate predicate, LogRows rows, long sequenceNumber) {
+        try {
+            return predicate.test(rows, sequenceNumber);
+        } catch (RuntimeException e) {
+            // Evicted messages can't be read reliably, and a predicate failing on a message doesn't match it
+            return false;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+
+import java.util.AbstractList;
+import java.util.Objects;
+
+/**
+ * A read-only list of some messages of {@link LogRows}, given by their sequence numbers.
+ * <p>
+ * Messages are only created when {@link #get(int)} is called, and {@link #getLevel(int)} doesn't create any.
+ * This is used to report removed messages without creating all of them. The list is only valid as long as
+ * the columns of the rows are not modified (for messages evicted from a {@link LogStore}, while the change
+ * reporting them is being processed).
+ */
+public final class LogRowList extends AbstractList<LogMessage> {
+
+    private final LogRows rows;
+    private final long firstSequenceNumber;
+    // The sequence numbers of the messages, or null if they are consecutive from firstSequenceNumber
+    private final long[] sequenceNumbers;
+    private final int from;
+    private final int size;
+
+    private LogRowList(LogRows rows, long firstSequenceNumber, long[] sequenceNumbers, int from, int size) {
+        this.rows = rows;
+        this.firstSequenceNumber = firstSequenceNumber;
+        this.sequenceNumbers = sequenceNumbers;
+        this.from = from;
+        this.size = size;
+    }
+
+    /**
+     * Create a view of consecutive messages.
+     *
+     * @param rows  the rows containing the messages
+     * @param firstSequenceNumber  the sequence number of the first message of the view
+     * @param size  the number of messages of the view
+     * @return a view of the messages
+     */
+    static LogRowList ofRange(LogRows rows, long firstSequenceNumber, int size) {
+        return new LogRowList(rows, firstSequenceNumber, null, 0, size);
+    }
+
+    /**
+     * Create a view of messages given by their sequence numbers. The sequence numbers are not copied,
+     * so the array must not be modified while the view is used.
+     *
+     * @param rows  the rows containing the messages
+     * @param sequenceNumbers  an array containing the sequence numbers of the messages
+     * @param from  the index of the first sequence number of the view in the array, inclusive
+     * @param to  the index of the last sequence number of the view in the array, exclusive
+     * @return a view of the messages
+     */
+    static LogRowList of(LogRows rows, long[] sequenceNumbers, int from, int to) {
+        return new LogRowList(rows, 0, sequenceNumbers, from, to - from);
+    }
+
+    /**
+     * Create a view of messages of the same rows as this list. The sequence numbers are not copied.
+     *
+     * @param sequenceNumbers  an array containing the sequence numbers of the messages
+     * @param from  the index of the first sequence number of the view in the array, inclusive
+     * @param to  the index of the last sequence number of the view in the array, exclusive
+     * @return a view of the messages
+     */
+    LogRowList select(long[] sequenceNumbers, int from, int to) {
+        return of(rows, sequenceNumbers, from, to);
+    }
+
+    @Override
+    public LogMessage get(int index) {
+        return rows.getLogMessage(getSequenceNumber(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index  the index of a message of this list
+     * @return the sequence number of the message
+     */
+    public long getSequenceNumber(int index) {
+        Objects.checkIndex(index, size);
+        return sequenceNumbers == null ? firstSequenceNumber + index : sequenceNumbers[from + index];
+    }
+
+    /**
+     * @param index  the index of a message of this list
+     * @return the level of the message
+     */
+    public Level getLevel(int index) {
+        return rows.getLevel(getSequenceNumber(index));
+    }
+}
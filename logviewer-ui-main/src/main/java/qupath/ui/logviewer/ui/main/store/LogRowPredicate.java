@@ -0,0 +1,123 @@
+package qupath.ui.logviewer.ui.main.store;
+
+/**
+ * A predicate on the messages of a {@link LogStore}. Contrary to a predicate on
+ * {@link qupath.ui.logviewer.api.LogMessage LogMessage}, it only reads the fields it needs
+ * from the columns of the store.
+ */
+@FunctionalInterface
+public interface LogRowPredicate {
+
+    /**
+     * A predicate accepting all messages
+     */
+    LogRowPredicate ALWAYS_TRUE = (rows, sequenceNumber) -> true;
+
+    /**
+     * Evaluate this predicate on a message.
+     *
+     * @param rows  the rows containing the message
+     * @param sequenceNumber  the sequence number of the message
+     * @return whether the message matches this predicate
+     */
+    boolean test(LogRows rows, long sequenceNumber);
+
+    /**
+     * Get a text that all messages matching this predicate contain (ignoring case). This can be used
+     * to find candidate messages with an index before evaluating this predicate.
+     *
+     * @return a text contained by all matching messages, or null if there is no such text
+     */
+    default String getRequiredText() {
+        return null;
+    }
+
+    /**
+     * Called by {@link FilteredLogList} before this predicate is evaluated on a set of messages (all messages
+     * of the store, some of them, or messages just appended). Predicates limiting the time they can spend
+     * (see {@link EvaluationAbortedException}) can reset their budget here, so that it applies to each
+     * evaluation rather than to the lifetime of the predicate. By default, this does nothing.
+     */
+    default void onEvaluationStart() {}
+
+    /**
+     * Combine this predicate with another one. The other predicate is only
+     * evaluated if this one is true, so cheaper predicates should come first.
+     *
+     * @param other  the predicate to combine with this one
+     * @return a predicate that is true when both predicates are true
+     */
+    default LogRowPredicate and(LogRowPredicate other) {
+        if (this == ALWAYS_TRUE) {
+            return other;
+        } else if (other == ALWAYS_TRUE) {
+            return this;
+        } else {
+            LogRowPredicate first = this;
+            String requiredText = getRequiredText() == null ? other.getRequiredText() : getRequiredText();
+
+            return new LogRowPredicate() {
+                @Override
+                public boolean test(LogRows rows, long sequenceNumber) {
+                    return first.test(rows, sequenceNumber) && other.test(rows, sequenceNumber);
+                }
+
+                @Override
+                public String getRequiredText() {
+                    return requiredText;
+                }
+
+                @Override
+                public void onEvaluationStart() {
+                    first.onEvaluationStart();
+                    other.onEvaluationStart();
+                }
+            };
+        }
+    }
+
+    /**
+     * @return a predicate that is true when this one is false
+     */
+    default LogRowPredicate negate() {
+        LogRowPredicate predicate = this;
+        return new LogRowPredicate() {
+            @Override
+            public boolean test(LogRows rows, long sequenceNumber) {
+                return !predicate.test(rows, sequenceNumber);
+            }
+
+            @Override
+            public void onEvaluationStart() {
+                predicate.onEvaluationStart();
+            }
+        };
+    }
+
+    /**
+     * Attach a required text to a predicate (see {@link #getRequiredText()}).
+     *
+     * @param predicate  the predicate to use
+     * @param requiredText  a text that all messages matching the predicate contain, ignoring case
+     * @return a predicate giving the same results as the provided predicate, and returning the provided
+     * text with {@link #getRequiredText()}
+     */
+    static LogRowPredicate withRequiredText(LogRowPredicate predicate, String requiredText) {
+        return new LogRowPredicate() {
+            @Override
+            public boolean test(LogRows rows, long sequenceNumber) {
+                return predicate.test(rows, sequenceNumber);
+            }
+
+            @Override
+            public String getRequiredText() {
+                return requiredText;
+            }
+
+            @Override
+            public void onEvaluationStart() {
+                predicate.onEvaluationStart();
+            }
+        };
+    }
+}
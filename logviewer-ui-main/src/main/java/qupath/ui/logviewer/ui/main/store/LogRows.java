@@ -0,0 +1,201 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A read-only view of the columns of a {@link LogStore}, giving access to the fields of its messages
+ * by sequence number.
+ * <p>
+ * A view covers the messages that were in the store when it was created (see {@link LogStore#getRows()}),
+ * and doesn't see messages appended later. Once a message has been evicted from the store, the values
+ * returned for its sequence number are undefined (see {@link #isEvicted(long)}). Apart from that, a view
+ * can be read from any thread it was safely published to.
+ */
+public final class LogRows {
+
+    private static final Level[] LEVELS = Level.values();
+    private final long firstSequenceNumber;
+    private final long endSequenceNumber;
+    private final int mask;
+    private final long[] timestamps;
+    private final byte[] levels;
+    private final int[] threadIds;
+    private final int[] loggerIds;
+    private final long[] messagePositions;
+    private final int[] messageLengths;
+    private final byte[] messageCoders;
+    private final Throwable[] throwables;
+    private final MessageChunks messageChunks;
+    private final StringDictionary threadNames;
+    private final StringDictionary loggerNames;
+    private final AtomicLong evictedBefore;
+
+    LogRows(
+            long firstSequenceNumber,
+            long endSequenceNumber,
+            long[] timestamps,
+            byte[] levels,
+            int[] threadIds,
+            int[] loggerIds,
+            long[] messagePositions,
+            int[] messageLengths,
+            byte[] messageCoders,
+            Throwable[] throwables,
+            MessageChunks messageChunks,
+            StringDictionary threadNames,
+            StringDictionary loggerNames,
+            AtomicLong evictedBefore
+    ) {
+        this.firstSequenceNumber = firstSequenceNumber;
+        this.endSequenceNumber = endSequenceNumber;
+        this.mask = timestamps.length - 1;
+        this.timestamps = timestamps;
+        this.levels = levels;
+        this.threadIds = threadIds;
+        this.loggerIds = loggerIds;
+        this.messagePositions = messagePositions;
+        this.messageLengths = messageLengths;
+        this.messageCoders = messageCoders;
+        this.throwables = throwables;
+        this.messageChunks = messageChunks;
+        this.threadNames = threadNames;
+        this.loggerNames = loggerNames;
+        this.evictedBefore = evictedBefore;
+    }
+
+    /**
+     * @return the sequence number of the oldest message of this view
+     */
+    public long getFirstSequenceNumber() {
+        return firstSequenceNumber;
+    }
+
+    /**
+     * @return the sequence number following the one of the most recent message of this view
+     */
+    public long getEndSequenceNumber() {
+        return endSequenceNumber;
+    }
+
+    /**
+     * Check whether a message was evicted from the store. This can be called from any thread, after
+     * reading the fields of the message: if it returns false, the values that were read are valid
+     * (like {@link java.util.concurrent.locks.StampedLock#validate(long)}, this works because the store
+     * publishes evictions before modifying the evicted slots).
+     *
+     * @param sequenceNumber  the sequence number of a message of this view
+     * @return whether the message was evicted, in which case the values read for it may be invalid
+     */
+    public boolean isEvicted(long sequenceNumber) {
+        VarHandle.acquireFence();
+        return sequenceNumber < evictedBefore.get();
+    }
+
+    /**
+     * Create the log message corresponding to a sequence number. Prefer the other accessors
+     * when only some fields are needed.
+     *
+     * @param sequenceNumber  the sequence number of a message
+     * @return a new log message containing the fields of the message
+     */
+    public LogMessage getLogMessage(long sequenceNumber) {
+        return new LogMessage(
+                getLoggerName(sequenceNumber),
+                getTimestamp(sequenceNumber),
+                getThreadName(sequenceNumber),
+                getLevel(sequenceNumber),
+                getMessage(sequenceNumber),
+                getThrowable(sequenceNumber)
+        );
+    }
+
+    /**
+     * @param sequenceNumber  the sequence number of a message
+     * @return the timestamp of the message
+     */
+    public long getTimestamp(long sequenceNumber) {
+        return timestamps[slot(sequenceNumber)];
+    }
+
+    /**
+     * @param sequenceNumber  the sequence number of a message
+     * @return the level of the message
+     */
+    public Level getLevel(long sequenceNumber) {
+        return LEVELS[levels[slot(sequenceNumber)]];
+    }
+
+    /**
+     * @param sequenceNumber  the sequence number of a message
+     * @return the id of the thread of the message, as defined by {@link #getThreadNames()}
+     */
+    public int getThreadId(long sequenceNumber) {
+        return threadIds[slot(sequenceNumber)];
+    }
+
+    /**
+     * @param sequenceNumber  the sequence number of a message
+     * @return the name of the thread of the message
+     */
+    public String getThreadName(long sequenceNumber) {
+        return threadNames.get(getThreadId(sequenceNumber));
+    }
+
+    /**
+     * @param sequenceNumber  the sequence number of a message
+     * @return the id of the logger of the message, as defined by {@link #getLoggerNames()}
+     */
+    public int getLoggerId(long sequenceNumber) {
+        return loggerIds[slot(sequenceNumber)];
+    }
+
+    /**
+     * @param sequenceNumber  the sequence number of a message
+     * @return the name of the logger of the message
+     */
+    public String getLoggerName(long sequenceNumber) {
+        return loggerNames.get(getLoggerId(sequenceNumber));
+    }
+
+    /**
+     * @param sequenceNumber  the sequence number of a message
+     * @return the text of the message, which may be null
+     */
+    public String getMessage(long sequenceNumber) {
+        int slot = slot(sequenceNumber);
+        int length = messageLengths[slot];
+        return length == LogStore.NULL_MESSAGE ?
+                null :
+                messageChunks.get(messagePositions[slot], length, messageCoders[slot]);
+    }
+
+    /**
+     * @param sequenceNumber  the sequence number of a message
+     * @return the throwable of the message, which may be null
+     */
+    public Throwable getThrowable(long sequenceNumber) {
+        return throwables[slot(sequenceNumber)];
+    }
+
+    /**
+     * @return the dictionary of thread names used by the store
+     */
+    public StringDictionary getThreadNames() {
+        return threadNames;
+    }
+
+    /**
+     * @return the dictionary of logger names used by the store
+     */
+    public StringDictionary getLoggerNames() {
+        return loggerNames;
+    }
+
+    private int slot(long sequenceNumber) {
+        return (int) (sequenceNumber & mask);
+    }
+}
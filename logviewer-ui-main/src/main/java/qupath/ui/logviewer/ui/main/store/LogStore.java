@@ -0,0 +1,619 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import javafx.collections.ObservableListBase;
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.ui.main.LogRetentionPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An <a href="https://docs.oracle.com/javase/8/javafx/api/javafx/collections/ObservableList.html">ObservableList</a>
+ * of log messages backed by a ring buffer and limited by a {@link LogRetentionPolicy}.
+ * <p>
+ * Messages can only be appended. When the retention policy is exceeded, the oldest messages are evicted
+ * in bulk, and the eviction is reported in the same change event as the appended messages. This means
+ * that listeners receive at most one removal (at the beginning of the list) and one addition (at the end
+ * of the list) per call to {@link #append(List, long)}.
+ * <p>
+ * Messages are not stored as {@link LogMessage} objects but in columns: an array of timestamps, an array
+ * of level ordinals, arrays of thread and logger ids (see {@link StringDictionary}), and the text of messages
+ * in large chunks (see {@link MessageChunks}). A {@link LogMessage} is only created when {@link #get(int)} is
+ * called, and the row accessors (e.g. {@link #getLevel(int)}) don't create any. Each message also has a
+ * sequence number, which is never reused and doesn't change when older messages are evicted.
+ * <p>
+ * The sequence numbers of the messages of each level and of each thread are also kept in
+ * {@link SequenceBitmap bitmaps}, so that messages can be filtered by level or thread without
+ * reading them, and a sparse {@link TimestampIndex} allows finding messages by time.
+ * <p>
+ * This class is not thread-safe and should only be used from the JavaFX Application Thread.
+ */
+public class LogStore extends ObservableListBase<LogMessage> {
+
+    private static final Level[] LEVELS = Level.values();
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int CACHE_SIZE = 256;
+    private static final int REFERENCE_SIZE = 8;
+    private static final int ROW_SIZE = Long.BYTES + Byte.BYTES + 2 * Integer.BYTES + Long.BYTES + Integer.BYTES + Byte.BYTES + REFERENCE_SIZE;
+    private static final int THROWABLE_SIZE = 1024;
+    static final int NULL_MESSAGE = -1;
+    private StringDictionary threadNames = new StringDictionary();
+    private StringDictionary loggerNames = new StringDictionary();
+    private final LogMessage[] cache = new LogMessage[CACHE_SIZE];
+    private final long[] cacheSequenceNumbers = new long[CACHE_SIZE];
+    private final SequenceBitmap[] levelBitmaps = new SequenceBitmap[LEVELS.length];
+    private final List<SequenceBitmap> threadBitmaps = new ArrayList<>();
+    private TimestampIndex timestampIndex = new TimestampIndex(0);
+    private MessageChunks messageChunks = new MessageChunks();
+    private long[] timestamps;
+    private byte[] levels;
+    private int[] threadIds;
+    private int[] loggerIds;
+    private long[] messagePositions;
+    private int[] messageLengths;
+    private byte[] messageCoders;
+    private Throwable[] throwables;
+    private long firstSequenceNumber = 0;
+    // Shared with the rows using the current columns, so that they know which of their messages were evicted
+    private AtomicLong evictedBefore = new AtomicLong(0);
+    private int size = 0;
+    private long estimatedBytes = 0;
+    private LogRetentionPolicy retentionPolicy = LogRetentionPolicy.unlimited();
+    private LogRows rows = null;
+
+    /**
+     * Creates an empty store with an unlimited retention policy.
+     */
+    public LogStore() {
+        allocateColumns(INITIAL_CAPACITY);
+        allocateBitmaps();
+    }
+
+    /**
+     * Get a log message. The returned object is created from the columns of this store
+     * (a few recently requested messages are cached).
+     *
+     * @param index  the index of the log message
+     * @return the log message at the provided index
+     * @throws IndexOutOfBoundsException when the index is out of bounds
+     */
+    @Override
+    public LogMessage get(int index) {
+        long sequenceNumber = firstSequenceNumber + checkIndex(index);
+        int cacheIndex = (int) (sequenceNumber & (CACHE_SIZE - 1));
+
+        LogMessage logMessage = cache[cacheIndex];
+        if (logMessage == null || cacheSequenceNumbers[cacheIndex] != sequenceNumber) {
+            int slot = slot(sequenceNumber);
+            logMessage = new LogMessage(
+                    loggerNames.get(loggerIds[slot]),
+                    timestamps[slot],
+                    threadNames.get(threadIds[slot]),
+                    LEVELS[levels[slot]],
+                    getMessageAtSlot(slot),
+                    throwables[slot]
+            );
+            cache[cacheIndex] = logMessage;
+            cacheSequenceNumbers[cacheIndex] = sequenceNumber;
+        }
+        return logMessage;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index  the index of a log message
+     * @return the sequence number of the log message
+     */
+    public long getSequenceNumber(int index) {
+        return firstSequenceNumber + checkIndex(index);
+    }
+
+    /**
+     * @return the sequence number of the oldest message of this store (or of the next message if this store is empty)
+     */
+    public long getFirstSequenceNumber() {
+        return firstSequenceNumber;
+    }
+
+    /**
+     * Get a read-only view of the messages currently in this store. The view is not updated
+     * when messages are appended or evicted, but can be read from other threads.
+     *
+     * @return a view of the columns of this store
+     */
+    public LogRows getRows() {
+        if (rows == null) {
+            rows = new LogRows(
+                    firstSequenceNumber,
+                    firstSequenceNumber + size,
+                    timestamps,
+                    levels,
+                    threadIds,
+                    loggerIds,
+                    messagePositions,
+                    messageLengths,
+                    messageCoders,
+                    throwables,
+                    messageChunks,
+                    threadNames,
+                    loggerNames,
+                    evictedBefore
+            );
+        }
+        return rows;
+    }
+
+    /**
+     * @param index  the index of a log message
+     * @return the timestamp of the log message
+     */
+    public long getTimestamp(int index) {
+        return timestamps[slotOf(index)];
+    }
+
+    /**
+     * @param index  the index of a log message
+     * @return the level of the log message
+     */
+    public Level getLevel(int index) {
+        return LEVELS[levels[slotOf(index)]];
+    }
+
+    /**
+     * @param index  the index of a log message
+     * @return the id of the thread of the log message, as defined by {@link #getThreadNames()}
+     */
+    public int getThreadId(int index) {
+        return threadIds[slotOf(index)];
+    }
+
+    /**
+     * @param index  the index of a log message
+     * @return the name of the thread of the log message
+     */
+    public String getThreadName(int index) {
+        return threadNames.get(getThreadId(index));
+    }
+
+    /**
+     * @param index  the index of a log message
+     * @return the id of the logger of the log message, as defined by {@link #getLoggerNames()}
+     */
+    public int getLoggerId(int index) {
+        return loggerIds[slotOf(index)];
+    }
+
+    /**
+     * @param index  the index of a log message
+     * @return the name of the logger of the log message
+     */
+    public String getLoggerName(int index) {
+        return loggerNames.get(getLoggerId(index));
+    }
+
+    /**
+     * @param index  the index of a log message
+     * @return the text of the log message, which may be null
+     */
+    public String getMessage(int index) {
+        return getMessageAtSlot(slotOf(index));
+    }
+
+    /**
+     * @param index  the index of a log message
+     * @return the throwable of the log message, which may be null
+     */
+    public Throwable getThrowable(int index) {
+        return throwables[slotOf(index)];
+    }
+
+    /**
+     * @return the dictionary of thread names used by this store (replaced when the store is cleared)
+     */
+    public StringDictionary getThreadNames() {
+        return threadNames;
+    }
+
+    /**
+     * @return the dictionary of logger names used by this store (replaced when the store is cleared)
+     */
+    public StringDictionary getLoggerNames() {
+        return loggerNames;
+    }
+
+    /**
+     * Get the sequence numbers of the messages of a level. The returned bitmap is updated when messages
+     * are appended, and may still contain a few evicted messages, so it should only be read between
+     * {@link #getFirstSequenceNumber()} and the sequence number following the last message. It must not be modified.
+     *
+     * @param level  the level of the messages
+     * @return a bitmap containing the sequence numbers of the messages of the provided level
+     */
+    public SequenceBitmap getLevelBitmap(Level level) {
+        return levelBitmaps[level.ordinal()];
+    }
+
+    /**
+     * Get the sequence numbers of the messages of a thread. The same restrictions as
+     * {@link #getLevelBitmap(Level)} apply.
+     *
+     * @param threadId  the id of the thread in {@link #getThreadNames()}
+     * @return a bitmap containing the sequence numbers of the messages of the provided thread
+     * (empty if the id is unknown)
+     */
+    public SequenceBitmap getThreadBitmap(int threadId) {
+        return threadId >= StringDictionary.NULL_ID && threadId + 1 < threadBitmaps.size() ?
+                threadBitmaps.get(threadId + 1) :
+                new SequenceBitmap();
+    }
+
+    /**
+     * Find the first message with a timestamp greater than or equal to the provided one. This uses
+     * the timestamp index, and takes logarithmic time when messages are (nearly) ordered by timestamp.
+     *
+     * @param timestamp  the timestamp to look for, in milliseconds since epoch
+     * @return the index of the first message (in the order of this store) whose timestamp is greater
+     * than or equal to {@code timestamp}, or the size of this store if there is none
+     */
+    public int seek(long timestamp) {
+        return (int) (timestampIndex.seek(getRows(), timestamp) - firstSequenceNumber);
+    }
+
+    /**
+     * Get the sequence numbers of the messages whose timestamp is within a range. This uses the
+     * timestamp index, so only the messages close to the bounds of the range are read.
+     *
+     * @param from  the minimum timestamp (inclusive), in milliseconds since epoch
+     * @param to  the maximum timestamp (inclusive), in milliseconds since epoch
+     * @return a new bitmap containing the sequence numbers of the messages of this store whose timestamp
+     * is between {@code from} and {@code to}
+     */
+    public SequenceBitmap getTimeRangeBitmap(long from, long to) {
+        return timestampIndex.getRange(getRows(), from, to);
+    }
+
+    /**
+     * @return the estimated memory (in bytes) used by the messages of this store
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * @return the retention policy currently applied to this store
+     */
+    public LogRetentionPolicy getRetentionPolicy() {
+        return retentionPolicy;
+    }
+
+    /**
+     * Set the retention policy of this store, and evict the messages that don't respect it.
+     *
+     * @param retentionPolicy  the new retention policy
+     * @param now  the current time in milliseconds, used to determine the age of messages
+     */
+    public void setRetentionPolicy(LogRetentionPolicy retentionPolicy, long now) {
+        this.retentionPolicy = retentionPolicy;
+        trim(now);
+    }
+
+    /**
+     * Append messages at the end of this store, and evict the oldest messages if the retention policy
+     * is exceeded. If the new messages alone exceed the retention policy, only the most recent ones are added.
+     * <p>
+     * The evicted messages are reported as a {@link LogRowList}, which is only valid while listeners are notified.
+     *
+     * @param logMessages  the messages to append
+     * @param now  the current time in milliseconds, used to determine the age of messages
+     */
+    public void append(List<LogMessage> logMessages, long now) {
+        int numberOfMessages = logMessages.size();
+        int numberToEvict = computeNumberToEvict(logMessages, now);
+        int evictedFromStore = Math.min(numberToEvict, size);
+        int skippedFromBatch = numberToEvict - evictedFromStore;
+
+        if (evictedFromStore == 0 && skippedFromBatch == numberOfMessages) {
+            return;
+        }
+
+        LogRows evictedRows = getRows();
+        Throwable[] evictedThrowables = throwables;
+        long firstEvictedSequenceNumber = firstSequenceNumber;
+        int previousSize = size;
+
+        rows = null;
+        if (evictedFromStore > 0) {
+            evictHead(evictedFromStore);
+        }
+
+        int from = size;
+        if (skippedFromBatch < numberOfMessages) {
+            // The evicted slots must not be overwritten before listeners have read the evicted messages
+            ensureCapacity(previousSize + numberOfMessages - skippedFromBatch);
+            for (int i=skippedFromBatch; i<numberOfMessages; ++i) {
+                appendRow(logMessages.get(i));
+            }
+        }
+
+        fireChange(new BulkChange<>(
+                this,
+                LogRowList.ofRange(evictedRows, firstEvictedSequenceNumber, evictedFromStore),
+                from,
+                size
+        ));
+
+        if (evictedFromStore > 0) {
+            releaseEvicted(evictedThrowables, firstEvictedSequenceNumber, evictedFromStore);
+        }
+    }
+
+    /**
+     * Evict the messages that don't respect the retention policy.
+     *
+     * @param now  the current time in milliseconds, used to determine the age of messages
+     */
+    public void trim(long now) {
+        append(List.of(), now);
+    }
+
+    /**
+     * Remove all messages of this store in constant time. Listeners are notified with a single change.
+     * <p>
+     * The columns, bitmaps, indexes and dictionaries are replaced by new ones, so thread and logger ids
+     * obtained before may refer to other names afterwards. The removed messages of the change are
+     * a view on the previous columns, which are garbage-collected once the change isn't referenced anymore.
+     */
+    @Override
+    public void clear() {
+        if (size > 0) {
+            LogRows previousRows = getRows();
+            long previousFirstSequenceNumber = firstSequenceNumber;
+            int previousSize = size;
+
+            rows = null;
+            firstSequenceNumber += size;
+            size = 0;
+            estimatedBytes = 0;
+            allocateColumns(INITIAL_CAPACITY);
+            allocateBitmaps();
+            timestampIndex = new TimestampIndex(firstSequenceNumber);
+            // The previous columns are not modified anymore, so the messages of the previous rows stay valid
+            evictedBefore = new AtomicLong(firstSequenceNumber);
+            messageChunks = new MessageChunks();
+            threadNames = new StringDictionary();
+            loggerNames = new StringDictionary();
+
+            fireChange(new BulkChange<>(this, LogRowList.ofRange(previousRows, previousFirstSequenceNumber, previousSize), 0, 0));
+        }
+    }
+
+    /**
+     * Estimate the memory used by a log message once stored. Thread and logger names are
+     * stored only once for all messages, so they are not counted.
+     *
+     * @param logMessage  the log message whose size should be estimated
+     * @return the estimated size of the log message in bytes
+     */
+    public static long estimateSize(LogMessage logMessage) {
+        long bytes = ROW_SIZE;
+
+        if (logMessage.message() != null) {
+            bytes += MessageChunks.getNumberOfBytes(logMessage.message().length(), MessageChunks.getCoder(logMessage.message()));
+        }
+        if (logMessage.throwable() != null) {
+            bytes += THROWABLE_SIZE;
+        }
+
+        return bytes;
+    }
+
+    private long estimateSizeAtSlot(int slot) {
+        long bytes = ROW_SIZE;
+
+        if (messageLengths[slot] != NULL_MESSAGE) {
+            bytes += MessageChunks.getNumberOfBytes(messageLengths[slot], messageCoders[slot]);
+        }
+        if (throwables[slot] != null) {
+            bytes += THROWABLE_SIZE;
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Compute the number of messages to evict, counting from the oldest message of the store
+     * followed by the messages about to be appended.
+     */
+    private int computeNumberToEvict(List<LogMessage> newMessages, long now) {
+        int total = size + newMessages.size();
+        // Estimating the size of new messages requires scanning their text, which is useless without byte limit
+        boolean limitBytes = retentionPolicy.maxBytes() != Long.MAX_VALUE;
+        long totalBytes = estimatedBytes;
+        if (limitBytes) {
+            for (LogMessage logMessage: newMessages) {
+                totalBytes += estimateSize(logMessage);
+            }
+        }
+
+        int numberToEvict = Math.max(0, total - retentionPolicy.maxMessages());
+        if (limitBytes) {
+            for (int i=0; i<numberToEvict; ++i) {
+                totalBytes -= i < size ? estimateSizeAtSlot(slotOf(i)) : estimateSize(newMessages.get(i - size));
+            }
+        }
+
+        long oldestTimestamp = retentionPolicy.maxAge() == null ? Long.MIN_VALUE : now - retentionPolicy.maxAge().toMillis();
+        while (numberToEvict < total) {
+            long timestamp = numberToEvict < size ? timestamps[slotOf(numberToEvict)] : newMessages.get(numberToEvict - size).timestamp();
+            if ((!limitBytes || totalBytes <= retentionPolicy.maxBytes()) && timestamp >= oldestTimestamp) {
+                break;
+            }
+            if (limitBytes) {
+                totalBytes -= numberToEvict < size ? estimateSizeAtSlot(slotOf(numberToEvict)) : estimateSize(newMessages.get(numberToEvict - size));
+            }
+            numberToEvict++;
+        }
+
+        return numberToEvict;
+    }
+
+    /**
+     * Remove the oldest messages of this store. Their slots are not cleared, so that they can still be read
+     * from the previous rows until {@link #releaseEvicted(Throwable[], long, int)} is called.
+     */
+    private void evictHead(int numberToEvict) {
+        // Published before the slots are modified (the atomic update is a full fence), see LogRows#isEvicted
+        evictedBefore.getAndSet(firstSequenceNumber + numberToEvict);
+
+        for (int i=0; i<numberToEvict; ++i) {
+            estimatedBytes -= estimateSizeAtSlot(slotOf(i));
+        }
+        firstSequenceNumber += numberToEvict;
+        size -= numberToEvict;
+
+        for (SequenceBitmap bitmap: levelBitmaps) {
+            bitmap.removeBefore(firstSequenceNumber);
+        }
+        for (SequenceBitmap bitmap: threadBitmaps) {
+            bitmap.removeBefore(firstSequenceNumber);
+        }
+        timestampIndex.removeBefore(firstSequenceNumber);
+    }
+
+    /**
+     * Release the throwables and the message chunks only referenced by evicted messages,
+     * once listeners don't need to read them anymore.
+     */
+    private void releaseEvicted(Throwable[] evictedThrowables, long firstEvictedSequenceNumber, int numberOfEvicted) {
+        int mask = evictedThrowables.length - 1;
+        for (int i=0; i<numberOfEvicted; ++i) {
+            evictedThrowables[(int) ((firstEvictedSequenceNumber + i) & mask)] = null;
+        }
+
+        messageChunks.releaseChunksBefore(size == 0 ?
+                messageChunks.getCurrentChunkId() :
+                getOldestChunkId()
+        );
+    }
+
+    /**
+     * Messages are appended in order, so the chunk of the oldest non-null message is the oldest chunk in use.
+     */
+    private int getOldestChunkId() {
+        for (int i=0; i<size; ++i) {
+            int slot = slotOf(i);
+            if (messageLengths[slot] != NULL_MESSAGE) {
+                return MessageChunks.getChunkId(messagePositions[slot]);
+            }
+        }
+        return messageChunks.getCurrentChunkId();
+    }
+
+    private void appendRow(LogMessage logMessage) {
+        long sequenceNumber = firstSequenceNumber + size;
+        int slot = slot(sequenceNumber);
+
+        timestamps[slot] = logMessage.timestamp();
+        levels[slot] = (byte) logMessage.level().ordinal();
+        threadIds[slot] = threadNames.getOrAdd(logMessage.threadName());
+        loggerIds[slot] = loggerNames.getOrAdd(logMessage.loggerName());
+        throwables[slot] = logMessage.throwable();
+
+        String message = logMessage.message();
+        if (message == null) {
+            messageLengths[slot] = NULL_MESSAGE;
+        } else {
+            byte coder = MessageChunks.getCoder(message);
+            messageCoders[slot] = coder;
+            messageLengths[slot] = message.length();
+            messagePositions[slot] = messageChunks.append(message, coder);
+        }
+
+        levelBitmaps[levels[slot]].add(sequenceNumber);
+        // The bitmap of messages without thread (with the id StringDictionary.NULL_ID) comes first
+        while (threadBitmaps.size() <= threadIds[slot] + 1) {
+            threadBitmaps.add(new SequenceBitmap());
+        }
+        threadBitmaps.get(threadIds[slot] + 1).add(sequenceNumber);
+        timestampIndex.add(sequenceNumber, timestamps[slot]);
+
+        size++;
+        estimatedBytes += estimateSizeAtSlot(slot);
+    }
+
+    private String getMessageAtSlot(int slot) {
+        return messageLengths[slot] == NULL_MESSAGE ?
+                null :
+                messageChunks.get(messagePositions[slot], messageLengths[slot], messageCoders[slot]);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > timestamps.length) {
+            long[] oldTimestamps = timestamps;
+            byte[] oldLevels = levels;
+            int[] oldThreadIds = threadIds;
+            int[] oldLoggerIds = loggerIds;
+            long[] oldMessagePositions = messagePositions;
+            int[] oldMessageLengths = messageLengths;
+            byte[] oldMessageCoders = messageCoders;
+            Throwable[] oldThrowables = throwables;
+            int oldMask = oldTimestamps.length - 1;
+
+            allocateColumns(Integer.highestOneBit(capacity - 1) << 1);
+
+            for (int i=0; i<size; ++i) {
+                long sequenceNumber = firstSequenceNumber + i;
+                int oldSlot = (int) (sequenceNumber & oldMask);
+                int slot = slot(sequenceNumber);
+
+                timestamps[slot] = oldTimestamps[oldSlot];
+                levels[slot] = oldLevels[oldSlot];
+                threadIds[slot] = oldThreadIds[oldSlot];
+                loggerIds[slot] = oldLoggerIds[oldSlot];
+                messagePositions[slot] = oldMessagePositions[oldSlot];
+                messageLengths[slot] = oldMessageLengths[oldSlot];
+                messageCoders[slot] = oldMessageCoders[oldSlot];
+                throwables[slot] = oldThrowables[oldSlot];
+            }
+        }
+    }
+
+    private void allocateColumns(int capacity) {
+        timestamps = new long[capacity];
+        levels = new byte[capacity];
+        threadIds = new int[capacity];
+        loggerIds = new int[capacity];
+        messagePositions = new long[capacity];
+        messageLengths = new int[capacity];
+        messageCoders = new byte[capacity];
+        throwables = new Throwable[capacity];
+    }
+
+    private void allocateBitmaps() {
+        for (int i=0; i<levelBitmaps.length; ++i) {
+            levelBitmaps[i] = new SequenceBitmap();
+        }
+        threadBitmaps.clear();
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return index;
+    }
+
+    private int slotOf(int index) {
+        return slot(firstSequenceNumber + checkIndex(index));
+    }
+
+    private int slot(long sequenceNumber) {
+        return (int) (sequenceNumber & (timestamps.length - 1));
+    }
+}
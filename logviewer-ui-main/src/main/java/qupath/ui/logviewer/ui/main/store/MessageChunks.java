@@ -0,0 +1,188 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Stores the text of log messages in large byte arrays (chunks), rather than in one object per message.
+ * <p>
+ * Messages containing only characters lower than 256 are stored with one byte per character (Latin-1),
+ * other messages are stored with two bytes per character (UTF-16). Messages are only appended, and
+ * chunks are released from the oldest one once all their messages have been evicted.
+ * <p>
+ * The position of a message is encoded as a long: the id of its chunk in the upper 32 bits,
+ * and its offset within the chunk in the lower 32 bits.
+ * Chunks can only be appended or released from one thread, but the read methods can be called
+ * from any thread for positions that were published to it.
+ */
+public class MessageChunks {
+
+    /**
+     * The encoding of a message using one byte per character
+     */
+    public static final byte LATIN1 = 0;
+    /**
+     * The encoding of a message using two bytes per character
+     */
+    public static final byte UTF16 = 1;
+    private static final int CHUNK_SIZE = 1 << 20;
+    private volatile ChunkTable chunkTable = new ChunkTable(0, new byte[8][]);
+    private int numberOfChunks = 0;
+    private byte[] lastChunk = null;
+    private int positionInLastChunk = 0;
+
+    /**
+     * Indicates how a message would be encoded.
+     *
+     * @param message  the message to encode
+     * @return {@link #LATIN1} or {@link #UTF16}
+     */
+    public static byte getCoder(String message) {
+        for (int i=0; i<message.length(); ++i) {
+            if (message.charAt(i) > 0xFF) {
+                return UTF16;
+            }
+        }
+        return LATIN1;
+    }
+
+    /**
+     * Get the number of bytes used by an encoded message.
+     *
+     * @param length  the number of characters of the message
+     * @param coder  {@link #LATIN1} or {@link #UTF16}
+     * @return the number of bytes used by the message
+     */
+    public static int getNumberOfBytes(int length, byte coder) {
+        return coder == UTF16 ? 2 * length : length;
+    }
+
+    /**
+     * Append a message.
+     *
+     * @param message  the message to append
+     * @param coder  the encoding to use, as returned by {@link #getCoder(String)}
+     * @return the position of the message
+     */
+    public long append(String message, byte coder) {
+        int numberOfBytes = getNumberOfBytes(message.length(), coder);
+
+        if (lastChunk == null || numberOfBytes > CHUNK_SIZE - positionInLastChunk) {
+            // Messages larger than a chunk get their own chunk
+            addChunk(new byte[Math.max(CHUNK_SIZE, numberOfBytes)]);
+        }
+
+        int offset = positionInLastChunk;
+        encode(message, coder, lastChunk, offset);
+        positionInLastChunk += numberOfBytes;
+        return toPosition(getCurrentChunkId(), offset);
+    }
+
+    /**
+     * Decode a message.
+     *
+     * @param position  the position of the message, as returned by {@link #append(String, byte)}
+     * @param length  the number of characters of the message
+     * @param coder  the encoding of the message
+     * @return the decoded message
+     */
+    public String get(long position, int length, byte coder) {
+        byte[] chunk = getChunk(position);
+        int offset = getOffset(position);
+
+        return coder == UTF16 ?
+                new String(chunk, offset, 2 * length, StandardCharsets.UTF_16BE) :
+                new String(chunk, offset, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Get the chunk containing a message.
+     *
+     * @param position  the position of the message
+     * @return the chunk containing the message, or null if it was released
+     */
+    public byte[] getChunk(long position) {
+        ChunkTable table = chunkTable;
+        int index = getChunkId(position) - table.firstChunk();
+        return index >= 0 && index < table.chunks().length ? table.chunks()[index] : null;
+    }
+
+    /**
+     * @param position  the position of a message
+     * @return the offset of the message within its chunk
+     */
+    public static int getOffset(long position) {
+        return (int) position;
+    }
+
+    /**
+     * @param position  the position of a message
+     * @return the id of the chunk containing the message
+     */
+    public static int getChunkId(long position) {
+        return (int) (position >>> 32);
+    }
+
+    /**
+     * @return the id of the chunk currently being written, which is never released
+     */
+    public int getCurrentChunkId() {
+        return chunkTable.firstChunk() + numberOfChunks - 1;
+    }
+
+    /**
+     * Release the chunks whose id is lower than the provided id.
+     * The chunk currently being written is never released.
+     *
+     * @param chunkId  the id of the oldest chunk to keep
+     */
+    public void releaseChunksBefore(int chunkId) {
+        ChunkTable table = chunkTable;
+        int numberToRelease = Math.min(chunkId - table.firstChunk(), numberOfChunks - 1);
+
+        if (numberToRelease > 0) {
+            byte[][] chunks = new byte[table.chunks().length][];
+            System.arraycopy(table.chunks(), numberToRelease, chunks, 0, numberOfChunks - numberToRelease);
+            numberOfChunks -= numberToRelease;
+            chunkTable = new ChunkTable(table.firstChunk() + numberToRelease, chunks);
+        }
+    }
+
+    private void addChunk(byte[] chunk) {
+        ChunkTable table = chunkTable;
+        byte[][] chunks = table.chunks();
+        if (numberOfChunks == chunks.length) {
+            chunks = Arrays.copyOf(chunks, 2 * numberOfChunks);
+        }
+        chunks[numberOfChunks] = chunk;
+        numberOfChunks++;
+        chunkTable = new ChunkTable(table.firstChunk(), chunks);
+
+        lastChunk = chunk;
+        positionInLastChunk = 0;
+    }
+
+    private static long toPosition(int chunkId, int offset) {
+        return ((long) chunkId << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static void encode(String message, byte coder, byte[] chunk, int offset) {
+        if (coder == UTF16) {
+            for (int i=0; i<message.length(); ++i) {
+                char c = message.charAt(i);
+                chunk[offset + 2*i] = (byte) (c >> 8);
+                chunk[offset + 2*i + 1] = (byte) c;
+            }
+        } else {
+            for (int i=0; i<message.length(); ++i) {
+                chunk[offset + i] = (byte) message.charAt(i);
+            }
+        }
+    }
+
+    /**
+     * The chunks currently kept and the id of the first one. It is replaced as a whole
+     * so that readers on other threads always see consistent values.
+     */
+    private record ChunkTable(int firstChunk, byte[][] chunks) {}
+}
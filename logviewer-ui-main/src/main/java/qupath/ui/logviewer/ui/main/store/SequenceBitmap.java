@@ -0,0 +1,471 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import java.util.Arrays;
+
+/**
+ * A compressed bitmap of sequence numbers.
+ * <p>
+ * Sequence numbers are grouped by chunks of 65536 consecutive values. A chunk is not stored if it
+ * is empty, is stored as a sorted array of 16-bit values if it contains a few values, as a bitmap
+ * if it contains many values, and is shared between all bitmaps if it is full. Since sequence numbers
+ * only increase, the chunks preceding a given sequence number can be released at once.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class SequenceBitmap {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int WORDS_PER_CHUNK = CHUNK_SIZE / Long.SIZE;
+    private static final int MAX_ARRAY_SIZE = 4096;
+    private static final Chunk FULL = new BitmapChunk(fullWords(), CHUNK_SIZE);
+    private Chunk[] chunks = new Chunk[4];
+    private long firstChunk = 0;
+    private int numberOfChunks = 0;
+
+    /**
+     * Create an empty bitmap.
+     */
+    public SequenceBitmap() {}
+
+    private SequenceBitmap(Chunk[] chunks, long firstChunk, int numberOfChunks) {
+        this.chunks = chunks;
+        this.firstChunk = firstChunk;
+        this.numberOfChunks = numberOfChunks;
+    }
+
+    /**
+     * @param sequenceNumber  the sequence number to add to this bitmap
+     */
+    public void add(long sequenceNumber) {
+        int index = getOrCreateChunkIndex(sequenceNumber >>> CHUNK_BITS);
+        Chunk chunk = chunks[index];
+
+        if (chunk == null) {
+            chunks[index] = new ArrayChunk().add((char) sequenceNumber);
+        } else if (chunk != FULL) {
+            chunk = chunk.add((char) sequenceNumber);
+            chunks[index] = chunk.cardinality() == CHUNK_SIZE ? FULL : chunk;
+        }
+    }
+
+    /**
+     * Add all sequence numbers of a range to this bitmap.
+     *
+     * @param from  the first sequence number to add
+     * @param to  the sequence number following the last one to add
+     */
+    public void addRange(long from, long to) {
+        long sequenceNumber = from;
+        while (sequenceNumber < to) {
+            long chunkId = sequenceNumber >>> CHUNK_BITS;
+            long chunkEnd = (chunkId + 1) << CHUNK_BITS;
+
+            if (sequenceNumber == chunkId << CHUNK_BITS && to >= chunkEnd) {
+                int index = getOrCreateChunkIndex(chunkId);
+                chunks[index] = FULL;
+                sequenceNumber = chunkEnd;
+            } else {
+                add(sequenceNumber);
+                sequenceNumber++;
+            }
+        }
+    }
+
+    /**
+     * @param sequenceNumber  the sequence number to look for
+     * @return whether this bitmap contains the provided sequence number
+     */
+    public boolean contains(long sequenceNumber) {
+        Chunk chunk = getChunk(sequenceNumber >>> CHUNK_BITS);
+        return chunk != null && chunk.contains((char) sequenceNumber);
+    }
+
+    /**
+     * Release the chunks that only contain sequence numbers lower than the provided one.
+     * Lower sequence numbers sharing a chunk with the provided one are kept.
+     *
+     * @param sequenceNumber  the first sequence number that must be kept
+     */
+    public void removeBefore(long sequenceNumber) {
+        int numberToRemove = (int) Math.min(numberOfChunks, Math.max(0, (sequenceNumber >>> CHUNK_BITS) - firstChunk));
+
+        if (numberToRemove > 0) {
+            System.arraycopy(chunks, numberToRemove, chunks, 0, numberOfChunks - numberToRemove);
+            Arrays.fill(chunks, numberOfChunks - numberToRemove, numberOfChunks, null);
+            numberOfChunks -= numberToRemove;
+            firstChunk += numberToRemove;
+        }
+    }
+
+    /**
+     * Count the sequence numbers of this bitmap within a range.
+     *
+     * @param from  the first sequence number to consider
+     * @param to  the sequence number following the last one to consider
+     * @return the number of sequence numbers of this bitmap between {@code from} and {@code to}
+     */
+    public long cardinality(long from, long to) {
+        long cardinality = 0;
+        for (long chunkId = from >>> CHUNK_BITS; from < to && chunkId <= (to - 1) >>> CHUNK_BITS; ++chunkId) {
+            Chunk chunk = getChunk(chunkId);
+            if (chunk != null) {
+                long chunkStart = chunkId << CHUNK_BITS;
+                int start = (int) (Math.max(from, chunkStart) - chunkStart);
+                int end = (int) (Math.min(to, chunkStart + CHUNK_SIZE) - chunkStart);
+
+                cardinality += start == 0 && end == CHUNK_SIZE ? chunk.cardinality() : chunk.cardinality(start, end);
+            }
+        }
+        return cardinality;
+    }
+
+    /**
+     * Get the sequence numbers of this bitmap within a range.
+     *
+     * @param from  the first sequence number to consider
+     * @param to  the sequence number following the last one to consider
+     * @return the sorted sequence numbers of this bitmap between {@code from} and {@code to}
+     */
+    public long[] toArray(long from, long to) {
+        long[] result = new long[(int) cardinality(from, to)];
+        int size = 0;
+
+        for (long chunkId = from >>> CHUNK_BITS; from < to && chunkId <= (to - 1) >>> CHUNK_BITS; ++chunkId) {
+            Chunk chunk = getChunk(chunkId);
+            if (chunk != null) {
+                long chunkStart = chunkId << CHUNK_BITS;
+                int start = (int) (Math.max(from, chunkStart) - chunkStart);
+                int end = (int) (Math.min(to, chunkStart + CHUNK_SIZE) - chunkStart);
+
+                size = chunk.copyTo(result, size, chunkStart, start, end);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compute the union of this bitmap with another one, without modifying any of them.
+     *
+     * @param other  the other bitmap
+     * @return a new bitmap containing the sequence numbers of both bitmaps
+     */
+    public SequenceBitmap or(SequenceBitmap other) {
+        return combine(other, false);
+    }
+
+    /**
+     * Compute the intersection of this bitmap with another one, without modifying any of them.
+     *
+     * @param other  the other bitmap
+     * @return a new bitmap containing the sequence numbers present in both bitmaps
+     */
+    public SequenceBitmap and(SequenceBitmap other) {
+        return combine(other, true);
+    }
+
+    /**
+     * @return a copy of this bitmap, which can be modified or read from another thread independently
+     */
+    public SequenceBitmap copy() {
+        Chunk[] copiedChunks = new Chunk[Math.max(4, numberOfChunks)];
+        for (int i=0; i<numberOfChunks; ++i) {
+            copiedChunks[i] = chunks[i] == null || chunks[i] == FULL ? chunks[i] : chunks[i].copy();
+        }
+        return new SequenceBitmap(copiedChunks, firstChunk, numberOfChunks);
+    }
+
+    private SequenceBitmap combine(SequenceBitmap other, boolean intersection) {
+        long from = Math.min(firstChunk, other.firstChunk);
+        long to = Math.max(firstChunk + numberOfChunks, other.firstChunk + other.numberOfChunks);
+        if (numberOfChunks == 0) {
+            from = other.firstChunk;
+        } else if (other.numberOfChunks == 0) {
+            from = firstChunk;
+        }
+
+        SequenceBitmap result = new SequenceBitmap();
+        for (long chunkId = from; chunkId < to; ++chunkId) {
+            Chunk chunk = getChunk(chunkId);
+            Chunk otherChunk = other.getChunk(chunkId);
+            Chunk combined;
+
+            if (intersection) {
+                if (chunk == null || otherChunk == null) {
+                    combined = null;
+                } else if (chunk == FULL) {
+                    combined = otherChunk == FULL ? FULL : otherChunk.copy();
+                } else if (otherChunk == FULL) {
+                    combined = chunk.copy();
+                } else {
+                    combined = fromWords(Chunk.and(chunk.toWords(), otherChunk.toWords()));
+                }
+            } else {
+                if (chunk == FULL || otherChunk == FULL) {
+                    combined = FULL;
+                } else if (chunk == null) {
+                    combined = otherChunk == null ? null : otherChunk.copy();
+                } else if (otherChunk == null) {
+                    combined = chunk.copy();
+                } else {
+                    combined = fromWords(Chunk.or(chunk.toWords(), otherChunk.toWords()));
+                }
+            }
+
+            if (combined != null) {
+                int index = result.getOrCreateChunkIndex(chunkId);
+                result.chunks[index] = combined;
+            }
+        }
+        return result;
+    }
+
+    private Chunk getChunk(long chunkId) {
+        long index = chunkId - firstChunk;
+        return index >= 0 && index < numberOfChunks ? chunks[(int) index] : null;
+    }
+
+    private int getOrCreateChunkIndex(long chunkId) {
+        if (numberOfChunks == 0) {
+            firstChunk = chunkId;
+        }
+        if (chunkId < firstChunk) {
+            int shift = (int) (firstChunk - chunkId);
+            ensureCapacity(numberOfChunks + shift);
+            System.arraycopy(chunks, 0, chunks, shift, numberOfChunks);
+            Arrays.fill(chunks, 0, shift, null);
+            numberOfChunks += shift;
+            firstChunk = chunkId;
+        }
+
+        int index = (int) (chunkId - firstChunk);
+        if (index >= numberOfChunks) {
+            ensureCapacity(index + 1);
+            numberOfChunks = index + 1;
+        }
+        return index;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > chunks.length) {
+            chunks = Arrays.copyOf(chunks, Math.max(capacity, 2 * chunks.length));
+        }
+    }
+
+    private static Chunk fromWords(long[] words) {
+        int cardinality = 0;
+        for (long word: words) {
+            cardinality += Long.bitCount(word);
+        }
+
+        if (cardinality == 0) {
+            return null;
+        } else if (cardinality == CHUNK_SIZE) {
+            return FULL;
+        } else if (cardinality <= MAX_ARRAY_SIZE) {
+            char[] values = new char[cardinality];
+            int size = 0;
+            for (int i=0; i<words.length; ++i) {
+                long word = words[i];
+                while (word != 0) {
+                    values[size++] = (char) (i * Long.SIZE + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayChunk(values, size);
+        } else {
+            return new BitmapChunk(words, cardinality);
+        }
+    }
+
+    private static long[] fullWords() {
+        long[] words = new long[WORDS_PER_CHUNK];
+        Arrays.fill(words, -1L);
+        return words;
+    }
+
+    private abstract static class Chunk {
+
+        public abstract Chunk add(char value);
+
+        public abstract boolean contains(char value);
+
+        public abstract int cardinality();
+
+        public abstract int cardinality(int from, int to);
+
+        public abstract int copyTo(long[] destination, int position, long chunkStart, int from, int to);
+
+        public abstract long[] toWords();
+
+        public abstract Chunk copy();
+
+        public static long[] and(long[] words, long[] otherWords) {
+            for (int i=0; i<words.length; ++i) {
+                words[i] &= otherWords[i];
+            }
+            return words;
+        }
+
+        public static long[] or(long[] words, long[] otherWords) {
+            for (int i=0; i<words.length; ++i) {
+                words[i] |= otherWords[i];
+            }
+            return words;
+        }
+    }
+
+    private static class ArrayChunk extends Chunk {
+
+        private char[] values;
+        private int size;
+
+        public ArrayChunk() {
+            this(new char[16], 0);
+        }
+
+        public ArrayChunk(char[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        public Chunk add(char value) {
+            int index = size > 0 && values[size - 1] < value ? size : Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0 && index < size) {
+                return this;
+            }
+            if (size == MAX_ARRAY_SIZE) {
+                return new BitmapChunk(toWords(), size).add(value);
+            }
+
+            int insertionPoint = index < 0 ? -index - 1 : index;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(MAX_ARRAY_SIZE, 2 * size));
+            }
+            System.arraycopy(values, insertionPoint, values, insertionPoint + 1, size - insertionPoint);
+            values[insertionPoint] = value;
+            size++;
+            return this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return size;
+        }
+
+        @Override
+        public int cardinality(int from, int to) {
+            return lowerBound(to) - lowerBound(from);
+        }
+
+        @Override
+        public int copyTo(long[] destination, int position, long chunkStart, int from, int to) {
+            int end = lowerBound(to);
+            for (int i=lowerBound(from); i<end; ++i) {
+                destination[position++] = chunkStart + values[i];
+            }
+            return position;
+        }
+
+        @Override
+        public long[] toWords() {
+            long[] words = new long[WORDS_PER_CHUNK];
+            for (int i=0; i<size; ++i) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return words;
+        }
+
+        @Override
+        public Chunk copy() {
+            return new ArrayChunk(Arrays.copyOf(values, Math.max(1, size)), size);
+        }
+
+        private int lowerBound(int value) {
+            if (value >= CHUNK_SIZE) {
+                return size;
+            }
+            int index = Arrays.binarySearch(values, 0, size, (char) value);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    private static class BitmapChunk extends Chunk {
+
+        private final long[] words;
+        private int cardinality;
+
+        public BitmapChunk(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        public Chunk add(char value) {
+            long mask = 1L << value;
+            if ((words[value >>> 6] & mask) == 0) {
+                words[value >>> 6] |= mask;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public int cardinality(int from, int to) {
+            int count = 0;
+            for (int i=from; i<to; ) {
+                if ((i & 63) == 0 && i + 64 <= to) {
+                    count += Long.bitCount(words[i >>> 6]);
+                    i += 64;
+                } else {
+                    if ((words[i >>> 6] & (1L << i)) != 0) {
+                        count++;
+                    }
+                    i++;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public int copyTo(long[] destination, int position, long chunkStart, int from, int to) {
+            for (int i = from >>> 6; i <= (to - 1) >>> 6; ++i) {
+                long word = words[i];
+                while (word != 0) {
+                    int value = i * Long.SIZE + Long.numberOfTrailingZeros(word);
+                    if (value >= from && value < to) {
+                        destination[position++] = chunkStart + value;
+                    }
+                    word &= word - 1;
+                }
+            }
+            return position;
+        }
+
+        @Override
+        public long[] toWords() {
+            return words.clone();
+        }
+
+        @Override
+        public Chunk copy() {
+            return new BitmapChunk(words.clone(), cardinality);
+        }
+    }
+}
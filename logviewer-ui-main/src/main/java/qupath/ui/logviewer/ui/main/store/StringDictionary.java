@@ -0,0 +1,78 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns a unique integer id to each distinct string, so that repeated values
+ * (e.g. thread or logger names) can be stored as ids.
+ * <p>
+ * Ids are consecutive and start at 0. The null string always has the id {@link #NULL_ID}.
+ * Ids can only be added from one thread, but {@link #get(int)} can be called from any thread
+ * for ids that were published to it.
+ */
+public class StringDictionary {
+
+    /**
+     * The id of the null string
+     */
+    public static final int NULL_ID = -1;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private volatile String[] values = new String[16];
+    private int size = 0;
+
+    /**
+     * Get the id of a string, adding it to this dictionary if needed.
+     *
+     * @param value  the string whose id should be returned
+     * @return the id of the string
+     */
+    public int getOrAdd(String value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = size;
+            String[] currentValues = values;
+            if (size == currentValues.length) {
+                currentValues = Arrays.copyOf(currentValues, size * 2);
+            }
+            currentValues[size] = value;
+            size++;
+            ids.put(value, id);
+            values = currentValues;
+        }
+        return id;
+    }
+
+    /**
+     * Get the id of a string without adding it.
+     *
+     * @param value  the string whose id should be returned
+     * @return the id of the string, {@link #NULL_ID} if it is null, or -2 if it is not part of this dictionary
+     */
+    public int getId(String value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        return ids.getOrDefault(value, -2);
+    }
+
+    /**
+     * @param id  the id of the string to retrieve
+     * @return the string corresponding to the id, or null if the id is {@link #NULL_ID}
+     */
+    public String get(int id) {
+        return id == NULL_ID ? null : values[id];
+    }
+
+    /**
+     * @return the number of distinct (non-null) strings of this dictionary
+     */
+    public int size() {
+        return size;
+    }
+}
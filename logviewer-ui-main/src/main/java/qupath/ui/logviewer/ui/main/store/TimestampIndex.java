@@ -0,0 +1,165 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import java.util.Arrays;
+
+/**
+ * A sparse index of the timestamps of the messages of a {@link LogStore}, used to find messages
+ * by time without reading all of them.
+ * <p>
+ * Messages are grouped in blocks of {@link #BLOCK_SIZE} consecutive sequence numbers, and only the
+ * minimum and maximum timestamps of each block are kept. Messages usually arrive in timestamp order,
+ * but not always (e.g. when several threads log concurrently), so the index doesn't rely on it: the
+ * running maximum of the block maximums never decreases, so the first block that can contain a timestamp
+ * is found by binary search, and the following blocks are skipped or accepted with their bounds.
+ * <p>
+ * The first block may contain evicted messages, so its bounds are only an approximation. This class
+ * is not thread-safe.
+ */
+final class TimestampIndex {
+
+    private static final int BLOCK_BITS = 12;
+    static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    private long[] minimums = new long[16];
+    private long[] maximums = new long[16];
+    private long[] runningMaximums = new long[16];
+    private long firstBlock;
+    private int numberOfBlocks = 0;
+
+    /**
+     * Create an empty index.
+     *
+     * @param firstSequenceNumber  the sequence number of the first message that will be added
+     */
+    public TimestampIndex(long firstSequenceNumber) {
+        firstBlock = firstSequenceNumber >>> BLOCK_BITS;
+    }
+
+    /**
+     * Add a message to the index. Messages must be added in the order of their sequence numbers.
+     *
+     * @param sequenceNumber  the sequence number of the message
+     * @param timestamp  the timestamp of the message
+     */
+    public void add(long sequenceNumber, long timestamp) {
+        int block = (int) ((sequenceNumber >>> BLOCK_BITS) - firstBlock);
+
+        if (block == numberOfBlocks) {
+            if (numberOfBlocks == minimums.length) {
+                minimums = Arrays.copyOf(minimums, 2 * numberOfBlocks);
+                maximums = Arrays.copyOf(maximums, 2 * numberOfBlocks);
+                runningMaximums = Arrays.copyOf(runningMaximums, 2 * numberOfBlocks);
+            }
+            minimums[block] = timestamp;
+            maximums[block] = timestamp;
+            runningMaximums[block] = block == 0 ? timestamp : Math.max(runningMaximums[block - 1], timestamp);
+            numberOfBlocks++;
+        } else {
+            minimums[block] = Math.min(minimums[block], timestamp);
+            maximums[block] = Math.max(maximums[block], timestamp);
+            runningMaximums[block] = Math.max(runningMaximums[block], timestamp);
+        }
+    }
+
+    /**
+     * Release the blocks that only contain sequence numbers lower than the provided one.
+     *
+     * @param sequenceNumber  the first sequence number that must be kept
+     */
+    public void removeBefore(long sequenceNumber) {
+        long newFirstBlock = sequenceNumber >>> BLOCK_BITS;
+        if (newFirstBlock <= firstBlock) {
+            return;
+        }
+
+        int numberToRemove = (int) Math.min(numberOfBlocks, newFirstBlock - firstBlock);
+        numberOfBlocks -= numberToRemove;
+        System.arraycopy(minimums, numberToRemove, minimums, 0, numberOfBlocks);
+        System.arraycopy(maximums, numberToRemove, maximums, 0, numberOfBlocks);
+        for (int block=0; block<numberOfBlocks; ++block) {
+            runningMaximums[block] = block == 0 ? maximums[block] : Math.max(runningMaximums[block - 1], maximums[block]);
+        }
+        firstBlock = newFirstBlock;
+    }
+
+    /**
+     * Find the first message whose timestamp is greater than or equal to the provided one.
+     * This reads the timestamps of one block in most cases.
+     *
+     * @param rows  the rows of the store this index belongs to
+     * @param timestamp  the timestamp to look for
+     * @return the sequence number of the first message (in sequence number order) with a timestamp
+     * greater than or equal to {@code timestamp}, or the end sequence number of {@code rows} if there is none
+     */
+    public long seek(LogRows rows, long timestamp) {
+        for (int block = findFirstBlock(timestamp); block < numberOfBlocks; ++block) {
+            if (maximums[block] >= timestamp) {
+                long to = getBlockEnd(rows, block);
+                for (long sequenceNumber = getBlockStart(rows, block); sequenceNumber < to; ++sequenceNumber) {
+                    if (rows.getTimestamp(sequenceNumber) >= timestamp) {
+                        return sequenceNumber;
+                    }
+                }
+            }
+        }
+        return rows.getEndSequenceNumber();
+    }
+
+    /**
+     * Find the messages whose timestamp is within a range. Blocks entirely outside the range are
+     * skipped and blocks entirely within the range are added without reading their timestamps.
+     *
+     * @param rows  the rows of the store this index belongs to
+     * @param from  the minimum timestamp (inclusive)
+     * @param to  the maximum timestamp (inclusive)
+     * @return the sequence numbers of the messages of {@code rows} whose timestamp is between {@code from} and {@code to}
+     */
+    public SequenceBitmap getRange(LogRows rows, long from, long to) {
+        SequenceBitmap sequenceNumbers = new SequenceBitmap();
+
+        for (int block = findFirstBlock(from); block < numberOfBlocks; ++block) {
+            if (maximums[block] < from || minimums[block] > to) {
+                continue;
+            }
+
+            long blockStart = getBlockStart(rows, block);
+            long blockEnd = getBlockEnd(rows, block);
+            if (minimums[block] >= from && maximums[block] <= to) {
+                sequenceNumbers.addRange(blockStart, blockEnd);
+            } else {
+                for (long sequenceNumber = blockStart; sequenceNumber < blockEnd; ++sequenceNumber) {
+                    long timestamp = rows.getTimestamp(sequenceNumber);
+                    if (timestamp >= from && timestamp <= to) {
+                        sequenceNumbers.add(sequenceNumber);
+                    }
+                }
+            }
+        }
+        return sequenceNumbers;
+    }
+
+    /**
+     * @return the index of the first block whose running maximum is greater than or equal to the provided timestamp.
+     * No message of the previous blocks can have such a timestamp
+     */
+    private int findFirstBlock(long timestamp) {
+        int low = 0;
+        int high = numberOfBlocks;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (runningMaximums[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long getBlockStart(LogRows rows, int block) {
+        return Math.max(rows.getFirstSequenceNumber(), (firstBlock + block) << BLOCK_BITS);
+    }
+
+    private long getBlockEnd(LogRows rows, int block) {
+        return Math.min(rows.getEndSequenceNumber(), (firstBlock + block + 1) << BLOCK_BITS);
+    }
+}
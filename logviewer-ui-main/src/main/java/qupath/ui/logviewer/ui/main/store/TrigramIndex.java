@@ -0,0 +1,315 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * An inverted index from the trigrams (sequences of three characters) of case-folded messages
+ * to the sequence numbers of the messages containing them.
+ * <p>
+ * Only trigrams made of ASCII characters are indexed, so the index can only be queried with
+ * ASCII text. A query returns the messages containing all the trigrams of the text, which is a
+ * superset of the messages containing the text: the candidates must still be verified.
+ * <p>
+ * The sequence numbers of each trigram are stored in a compressed {@link SequenceBitmap}, and only
+ * the trigrams present in messages have an entry in the index. The estimated size of the index is
+ * limited: once it is reached, new messages are not indexed (queries return all of them, so they are
+ * scanned) until evicted messages are purged from the index.
+ * <p>
+ * Messages are indexed in order with {@link #update(LogRows)}. Evicted messages are not removed
+ * immediately, but skipped by queries and periodically purged.
+ * This class is not thread-safe: it should only be used from one thread at a time.
+ */
+public class TrigramIndex {
+
+    /**
+     * The minimal length of a text that can be searched with the index
+     */
+    public static final int MIN_QUERY_LENGTH = 3;
+    /**
+     * The default maximal estimated size of the index in bytes
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+    private static final int PURGE_INTERVAL = 1 << 20;
+    private static final int INITIAL_TABLE_SIZE = 1024;
+    private static final int EMPTY = -1;
+    // A posting takes at most two bytes in a bitmap, and arrays can be twice as large as their content
+    private static final int POSTING_SIZE = 2 * Character.BYTES;
+    // Approximate size of an empty bitmap with its first chunk
+    private static final int BITMAP_SIZE = 128;
+    private static final int TABLE_ENTRY_SIZE = Integer.BYTES + 8;
+    private final long maxBytes;
+    // Open addressing table from trigram keys to the bitmaps of the messages containing them
+    private int[] keys = createKeys(INITIAL_TABLE_SIZE);
+    private SequenceBitmap[] bitmaps = new SequenceBitmap[INITIAL_TABLE_SIZE];
+    private int numberOfTrigrams = 0;
+    private long numberOfPostings = 0;
+    private int[] messageKeys = new int[256];
+    private long indexedEnd = -1;
+    private long evictedSinceLastPurge = 0;
+    private long firstSequenceNumber = 0;
+
+    /**
+     * Create an empty index limited to {@link #DEFAULT_MAX_BYTES}.
+     */
+    public TrigramIndex() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Create an empty index.
+     *
+     * @param maxBytes  the estimated size in bytes above which new messages are not indexed
+     * @throws IllegalArgumentException when {@code maxBytes} is not strictly positive
+     */
+    public TrigramIndex(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException(String.format("The maximal size of the index (%d) must be strictly positive", maxBytes));
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Indicates whether a text can be searched with this index.
+     *
+     * @param text  the text to search
+     * @return whether the text is long enough and only contains ASCII characters
+     */
+    public static boolean canQuery(String text) {
+        if (text == null || text.length() < MIN_QUERY_LENGTH) {
+            return false;
+        }
+        for (int i=0; i<text.length(); ++i) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Index the messages of the provided rows that are not indexed yet, as long as the
+     * estimated size of this index doesn't exceed its limit.
+     *
+     * @param rows  the rows to index
+     */
+    public void update(LogRows rows) {
+        long first = rows.getFirstSequenceNumber();
+        long end = rows.getEndSequenceNumber();
+
+        if (indexedEnd < 0) {
+            firstSequenceNumber = first;
+            indexedEnd = first;
+        }
+        if (first > firstSequenceNumber) {
+            evictedSinceLastPurge += first - firstSequenceNumber;
+            firstSequenceNumber = first;
+        }
+        // When the index is full, evicted messages are purged sooner so that indexing can resume
+        if (evictedSinceLastPurge > (isFull() ? PURGE_INTERVAL / 16 : PURGE_INTERVAL)) {
+            purge();
+        }
+
+        long sequenceNumber = Math.max(indexedEnd, first);
+        while (sequenceNumber < end && !isFull()) {
+            String message;
+            try {
+                message = rows.getMessage(sequenceNumber);
+            } catch (RuntimeException e) {
+                // The message was evicted while being read
+                message = null;
+            }
+            if (message != null) {
+                index(message, sequenceNumber);
+            }
+            sequenceNumber++;
+        }
+        indexedEnd = Math.max(indexedEnd, sequenceNumber);
+    }
+
+    /**
+     * Get the messages that may contain the provided text, ignoring case.
+     * Messages that are not indexed yet are all returned.
+     *
+     * @param text  the text to search. It must respect {@link #canQuery(String)}
+     * @param first  the sequence number of the first message to consider
+     * @param end  the sequence number following the one of the last message to consider
+     * @return the sorted sequence numbers of the candidate messages
+     */
+    public long[] query(String text, long first, long end) {
+        int[] queryKeys = IntStream.range(0, text.length() - MIN_QUERY_LENGTH + 1)
+                .map(i -> getKey(fold(text.charAt(i)), fold(text.charAt(i+1)), fold(text.charAt(i+2))))
+                .distinct()
+                .toArray();
+
+        SequenceBitmap[] lists = new SequenceBitmap[queryKeys.length];
+        for (int i=0; i<queryKeys.length; ++i) {
+            lists[i] = get(queryKeys[i]);
+        }
+
+        long indexedFrom = Math.max(first, firstSequenceNumber);
+        long indexedTo = Math.min(end, Math.max(indexedEnd, indexedFrom));
+        long[] candidates = Arrays.stream(lists).anyMatch(list -> list == null) ?
+                new long[0] :
+                intersect(lists, indexedFrom, indexedTo);
+
+        long[] result = Arrays.copyOf(candidates, candidates.length + (int) (end - indexedTo));
+        for (long sequenceNumber = indexedTo; sequenceNumber < end; ++sequenceNumber) {
+            result[candidates.length + (int) (sequenceNumber - indexedTo)] = sequenceNumber;
+        }
+        return result;
+    }
+
+    /**
+     * @return the estimated memory (in bytes) used by this index
+     */
+    public long getEstimatedBytes() {
+        return numberOfPostings * POSTING_SIZE + (long) numberOfTrigrams * BITMAP_SIZE + (long) keys.length * TABLE_ENTRY_SIZE;
+    }
+
+    private boolean isFull() {
+        return getEstimatedBytes() > maxBytes;
+    }
+
+    private void index(String message, long sequenceNumber) {
+        if (message.length() < MIN_QUERY_LENGTH) {
+            return;
+        }
+        if (messageKeys.length < message.length()) {
+            messageKeys = new int[message.length()];
+        }
+
+        int numberOfKeys = 0;
+        char c1 = fold(message.charAt(0));
+        char c2 = fold(message.charAt(1));
+        for (int i=2; i<message.length(); ++i) {
+            char c3 = fold(message.charAt(i));
+            if (c1 < 0x80 && c2 < 0x80 && c3 < 0x80) {
+                messageKeys[numberOfKeys++] = getKey(c1, c2, c3);
+            }
+            c1 = c2;
+            c2 = c3;
+        }
+
+        // A message containing the same trigram several times is only added once
+        Arrays.sort(messageKeys, 0, numberOfKeys);
+        for (int i=0; i<numberOfKeys; ++i) {
+            if (i == 0 || messageKeys[i] != messageKeys[i - 1]) {
+                getOrCreate(messageKeys[i]).add(sequenceNumber);
+                numberOfPostings++;
+            }
+        }
+    }
+
+    private static long[] intersect(SequenceBitmap[] lists, long from, long to) {
+        SequenceBitmap[] sortedLists = lists.clone();
+        Arrays.sort(sortedLists, Comparator.comparingLong(list -> list.cardinality(from, to)));
+
+        long[] result = sortedLists[0].toArray(from, to);
+        int resultSize = result.length;
+        for (int i=1; i<sortedLists.length && resultSize > 0; ++i) {
+            int newSize = 0;
+            for (int j=0; j<resultSize; ++j) {
+                if (sortedLists[i].contains(result[j])) {
+                    result[newSize++] = result[j];
+                }
+            }
+            resultSize = newSize;
+        }
+        return Arrays.copyOf(result, resultSize);
+    }
+
+    private void purge() {
+        int[] previousKeys = keys;
+        SequenceBitmap[] previousBitmaps = bitmaps;
+        keys = createKeys(INITIAL_TABLE_SIZE);
+        bitmaps = new SequenceBitmap[INITIAL_TABLE_SIZE];
+        numberOfTrigrams = 0;
+        numberOfPostings = 0;
+
+        for (int i=0; i<previousKeys.length; ++i) {
+            if (previousKeys[i] != EMPTY) {
+                SequenceBitmap bitmap = previousBitmaps[i];
+                bitmap.removeBefore(firstSequenceNumber);
+
+                long cardinality = bitmap.cardinality(firstSequenceNumber, indexedEnd);
+                if (cardinality > 0) {
+                    put(previousKeys[i], bitmap);
+                    numberOfPostings += cardinality;
+                }
+            }
+        }
+        evictedSinceLastPurge = 0;
+    }
+
+    private SequenceBitmap get(int key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return bitmaps[i];
+            }
+        }
+        return null;
+    }
+
+    private SequenceBitmap getOrCreate(int key) {
+        SequenceBitmap bitmap = get(key);
+        if (bitmap == null) {
+            bitmap = new SequenceBitmap();
+            put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Add a trigram that is not in the table yet.
+     */
+    private void put(int key, SequenceBitmap bitmap) {
+        if (2 * (numberOfTrigrams + 1) > keys.length) {
+            int[] previousKeys = keys;
+            SequenceBitmap[] previousBitmaps = bitmaps;
+            keys = createKeys(2 * previousKeys.length);
+            bitmaps = new SequenceBitmap[2 * previousKeys.length];
+
+            for (int i=0; i<previousKeys.length; ++i) {
+                if (previousKeys[i] != EMPTY) {
+                    insert(previousKeys[i], previousBitmaps[i]);
+                }
+            }
+        }
+
+        insert(key, bitmap);
+        numberOfTrigrams++;
+    }
+
+    private void insert(int key, SequenceBitmap bitmap) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        bitmaps[i] = bitmap;
+    }
+
+    private static int[] createKeys(int size) {
+        int[] keys = new int[size];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    private static int hash(int key) {
+        // Spread the keys, whose low bits only depend on the last character
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static int getKey(char c1, char c2, char c3) {
+        return (c1 << 14) | (c2 << 7) | c3;
+    }
+}
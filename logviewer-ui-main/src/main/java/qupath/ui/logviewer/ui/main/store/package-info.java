@@ -0,0 +1,4 @@
+/**
+ * Provides the storage of log messages used internally by the model.
+ */
+package qupath.ui.logviewer.ui.main.store;
@@ -86,4 +86,18 @@ public class TestLogMessageCounts {
 
         assertEquals(logMessageCounts.traceLevelCountsProperty().get(), 1);
     }
+    @Test
+    void Check_All_Count_Equals_To_0_After_Clear() throws InterruptedException {
+        ObservableList<LogMessage> list = FXCollections.observableArrayList();
+        LogMessageCounts logMessageCounts = new LogMessageCounts(list);
+
+        list.addAll(
+                new LogMessage("", 0, "", Level.ERROR, "", null),
+                new LogMessage("", 0, "", Level.WARN, "", null)
+        );
+        list.clear();
+        JavaFXUtils.waitForRunLater();
+
+        assertEquals(logMessageCounts.allLevelCountsProperty().get(), 0);
+    }
 }
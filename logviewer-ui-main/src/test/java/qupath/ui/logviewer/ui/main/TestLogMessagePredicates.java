@@ -1,6 +1,7 @@
 package qupath.ui.logviewer.ui.main;
 
 import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.ui.main.store.EvaluationAbortedException;
 import org.junit.jupiter.api.DisplayNameGeneration;
 import org.junit.jupiter.api.DisplayNameGenerator;
 import org.junit.jupiter.api.Test;
@@ -12,6 +13,7 @@ import java.util.Random;
 import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
@@ -104,6 +106,15 @@ public class TestLogMessagePredicates {
 
             assertFalse(test);
         }
+
+        @Test
+        void Check_Text_Keeps_Message_Containing_Text_With_Other_Case() {
+            Predicate<LogMessage> predicate = LogMessagePredicates.createPredicateContainsIgnoreCase("\u00e9t\u00e9 Image");
+
+            boolean test = predicate.test(new LogMessage("", 0, "", Level.TRACE, "Saved \u00c9T\u00c9 IMAGE", null));
+
+            assertTrue(test);
+        }
     }
 
     @Nested
@@ -165,5 +176,31 @@ public class TestLogMessagePredicates {
 
             assertFalse(test);
         }
+
+        @Test
+        void Check_Regex_Filters_Message_Containing_Required_Literal_But_Not_Matching() {
+            Predicate<LogMessage> predicate = LogMessagePredicates.createPredicateFromRegex("Tile \\d+ failed");
+
+            boolean test = predicate.test(new LogMessage("", 0, "", Level.TRACE, "Tile x failed", null));
+
+            assertFalse(test);
+        }
+
+        @Test
+        void Check_Regex_Keeps_Message_Matching_Regex_With_Required_Literal() {
+            Predicate<LogMessage> predicate = LogMessagePredicates.createPredicateFromRegex("Tile \\d+ failed");
+
+            boolean test = predicate.test(new LogMessage("", 0, "", Level.TRACE, "Tile 12 failed", null));
+
+            assertTrue(test);
+        }
+
+        @Test
+        void Check_Regex_Backtracking_Catastrophically_Aborted() {
+            Predicate<LogMessage> predicate = LogMessagePredicates.createPredicateFromRegex("(.*a){12}x");
+            LogMessage logMessage = new LogMessage("", 0, "", Level.TRACE, "x" + "a".repeat(30), null);
+
+            assertThrows(EvaluationAbortedException.class, () -> predicate.test(logMessage));
+        }
     }
 }
@@ -0,0 +1,76 @@
+package qupath.ui.logviewer.ui.main;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+public class TestLogQuery {
+
+    @Test
+    void Check_Level_Clause_Keeps_More_Severe_Levels() {
+        Predicate<LogMessage> predicate = LogQuery.parse("level>=WARN").toMessagePredicate();
+
+        assertTrue(predicate.test(createMessage(Level.ERROR, "qupath.lib.io", "main", 10, 0, "")));
+        assertTrue(predicate.test(createMessage(Level.WARN, "qupath.lib.io", "main", 10, 0, "")));
+        assertFalse(predicate.test(createMessage(Level.INFO, "qupath.lib.io", "main", 10, 0, "")));
+    }
+
+    @Test
+    void Check_Logger_And_Thread_Clauses_Match_Patterns() {
+        Predicate<LogMessage> predicate = LogQuery.parse("logger:qupath.lib.* thread:\"Tile worker ?\"").toMessagePredicate();
+
+        assertTrue(predicate.test(createMessage(Level.INFO, "qupath.lib.io", "Tile worker 1", 10, 0, "")));
+        assertFalse(predicate.test(createMessage(Level.INFO, "qupath.ext.io", "Tile worker 1", 10, 0, "")));
+        assertFalse(predicate.test(createMessage(Level.INFO, "qupath.lib.io", "Tile worker 12", 10, 0, "")));
+    }
+
+    @Test
+    void Check_Time_Clause_Includes_Upper_Bound_Minute() {
+        Predicate<LogMessage> predicate = LogQuery.parse("time:[10:00,10:05]").toMessagePredicate();
+
+        assertTrue(predicate.test(createMessage(Level.INFO, "", "", 10, 5, "")));
+        assertFalse(predicate.test(createMessage(Level.INFO, "", "", 10, 6, "")));
+        assertFalse(predicate.test(createMessage(Level.INFO, "", "", 9, 59, "")));
+    }
+
+    @Test
+    void Check_Texts_Must_All_Be_Contained() {
+        Predicate<LogMessage> predicate = LogQuery.parse("tile \"request TIMEOUT\"").toMessagePredicate();
+
+        assertTrue(predicate.test(createMessage(Level.INFO, "", "", 10, 0, "Tile 3: request timeout")));
+        assertFalse(predicate.test(createMessage(Level.INFO, "", "", 10, 0, "Tile 3: request failed")));
+    }
+
+    @Test
+    void Check_Plan_Evaluates_Text_Last() {
+        LogQuery query = LogQuery.parse("\"timeout\" time:[10:00,10:05] thread:main level>=WARN");
+
+        assertEquals(
+                List.of(LogQuery.LevelClause.class, LogQuery.NameClause.class, LogQuery.TimeClause.class, LogQuery.TextClause.class),
+                query.getPlan().stream().map(Object::getClass).toList()
+        );
+    }
+
+    @Test
+    void Check_Invalid_Query_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> LogQuery.parse("level>=LOUD"));
+        assertThrows(IllegalArgumentException.class, () -> LogQuery.parse("thread>main"));
+        assertThrows(IllegalArgumentException.class, () -> LogQuery.parse("time:[10h,11h]"));
+        assertThrows(IllegalArgumentException.class, () -> LogQuery.parse("\"timeout"));
+    }
+
+    private static LogMessage createMessage(Level level, String loggerName, String threadName, int hour, int minute, String message) {
+        long timestamp = LocalDate.now().atTime(hour, minute, 30).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new LogMessage(loggerName, timestamp, threadName, level, message, null);
+    }
+}
@@ -1,6 +1,7 @@
 package qupath.ui.logviewer.ui.main;
 
 import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.api.dispatcher.LogMessageCoalescer;
 import javafx.collections.ListChangeListener;
 import javafx.collections.SetChangeListener;
 import org.junit.jupiter.api.BeforeAll;
@@ -9,10 +10,12 @@ import org.junit.jupiter.api.DisplayNameGenerator;
 import org.junit.jupiter.api.Test;
 import org.slf4j.event.Level;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -57,6 +60,28 @@ public class TestLogViewerModel {
         assertTrue(latch.await(100, TimeUnit.MILLISECONDS));
     }
 
+    @Test
+    void Check_Large_Batch_Added_In_Several_Drains() throws InterruptedException {
+        int N = LogMessageCoalescer.DEFAULT_MAX_BATCH_SIZE + 10;
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Integer> sizes = new ArrayList<>();
+        LogViewerModel logViewerModel = new LogViewerModel();
+        logViewerModel.getFilteredLogs().addListener((ListChangeListener<? super LogMessage>) change -> {
+            sizes.add(logViewerModel.getFilteredLogs().size());
+            if (logViewerModel.getFilteredLogs().size() == N) {
+                latch.countDown();
+            }
+        });
+
+        logViewerModel.addLogMessages(IntStream.range(0, N)
+                .mapToObj(i -> new LogMessage("", i, "", Level.TRACE, "", null))
+                .toList()
+        );
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(LogMessageCoalescer.DEFAULT_MAX_BATCH_SIZE, N), sizes);
+    }
+
     @Test
     void Check_Root_Log_Level_Set() {
         LogViewerModel logViewerModel = new LogViewerModel();
@@ -0,0 +1,63 @@
+package qupath.ui.logviewer.ui.main;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+public class TestRegexLiterals {
+
+    @Test
+    void Check_Literals_Around_Wildcard_Found() {
+        List<String> literals = RegexLiterals.getRequiredLiterals("Tile.*failed");
+
+        assertEquals(List.of("Tile", "failed"), literals);
+    }
+
+    @Test
+    void Check_Literal_Between_Word_Boundaries_Found() {
+        List<String> literals = RegexLiterals.getRequiredLiterals("\\bOOM\\b");
+
+        assertEquals(List.of("OOM"), literals);
+    }
+
+    @Test
+    void Check_Optional_Characters_Excluded() {
+        List<String> literals = RegexLiterals.getRequiredLiterals("ab?c+d{0,2}e\\.f");
+
+        assertEquals(List.of("a", "c", "e.f"), literals);
+    }
+
+    @Test
+    void Check_No_Literal_With_Top_Level_Alternation() {
+        List<String> literals = RegexLiterals.getRequiredLiterals("error|warning");
+
+        assertEquals(List.of(), literals);
+    }
+
+    @Test
+    void Check_No_Literal_With_Inline_Flags() {
+        List<String> literals = RegexLiterals.getRequiredLiterals("(?i)error");
+
+        assertEquals(List.of(), literals);
+    }
+
+    @Test
+    void Check_Groups_And_Classes_Skipped() {
+        String literal = RegexLiterals.getLongestRequiredLiteral("(a|b)[xyz]image");
+
+        assertEquals("image", literal);
+    }
+
+    @Test
+    void Check_No_Longest_Literal_Without_Literal() {
+        String literal = RegexLiterals.getLongestRequiredLiteral(".*\\d+");
+
+        assertNull(literal);
+    }
+}
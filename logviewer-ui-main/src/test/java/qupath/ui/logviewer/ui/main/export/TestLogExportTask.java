@@ -0,0 +1,156 @@
+package qupath.ui.logviewer.ui.main.export;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.ui.main.JavaFXUtils;
+import qupath.ui.logviewer.ui.main.LogRetentionPolicy;
+import qupath.ui.logviewer.ui.main.store.LogStore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+public class TestLogExportTask {
+
+    @TempDir
+    private Path directory;
+
+    @BeforeAll
+    static void setupJavaFX() {
+        JavaFXUtils.initJfxRuntime();
+    }
+
+    @Test
+    void Check_Messages_Written() throws IOException, ExecutionException, InterruptedException {
+        LogStore logStore = new LogStore();
+        logStore.append(createMessages(0, 100), 0);
+        Path path = directory.resolve("log.log");
+        LogExportTask task = new LogExportTask(logStore.getRows(), getSequenceNumbers(logStore), path, LogFormat.TEXT, false);
+
+        task.run();
+
+        assertEquals(100, task.get());
+        assertEquals(toReadableLines(createMessages(0, 100)), Files.readAllLines(path, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void Check_Compressed_Messages_Written() throws IOException, ExecutionException, InterruptedException {
+        LogStore logStore = new LogStore();
+        logStore.append(createMessages(0, 100), 0);
+        Path path = directory.resolve("log.log.gz");
+        LogExportTask task = new LogExportTask(logStore.getRows(), getSequenceNumbers(logStore), path, LogFormat.TEXT, true);
+
+        task.run();
+
+        assertEquals(100, task.get());
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(path))) {
+            assertEquals(
+                    toReadableLines(createMessages(0, 100)),
+                    new String(input.readAllBytes(), StandardCharsets.UTF_8).lines().toList()
+            );
+        }
+    }
+
+    @Test
+    void Check_Evicted_Messages_Skipped() throws IOException, ExecutionException, InterruptedException {
+        LogStore logStore = new LogStore();
+        logStore.setRetentionPolicy(LogRetentionPolicy.unlimited().withMaxMessages(50), 0);
+        logStore.append(createMessages(0, 50), 0);
+        long[] sequenceNumbers = getSequenceNumbers(logStore);
+        Path path = directory.resolve("log.log");
+        LogExportTask task = new LogExportTask(logStore.getRows(), sequenceNumbers, path, LogFormat.TEXT, false);
+
+        logStore.append(createMessages(50, 80), 0);
+        task.run();
+
+        assertEquals(20, task.get());
+        assertEquals(30, task.getNumberOfSkippedMessages());
+        assertEquals(toReadableLines(createMessages(30, 50)), Files.readAllLines(path, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void Check_Messages_Written_As_Json_Lines() throws IOException, ExecutionException, InterruptedException {
+        LogStore logStore = new LogStore();
+        logStore.append(List.of(
+                new LogMessage("logger", 1, "thread", Level.INFO, "Say \"hi\"\n\\\u0001", null),
+                new LogMessage("logger", 2, "thread", Level.ERROR, "Failed", createThrowable())
+        ), 0);
+        Path path = directory.resolve("log.jsonl");
+        LogExportTask task = new LogExportTask(logStore.getRows(), getSequenceNumbers(logStore), path, LogFormat.JSON_LINES, false);
+
+        task.run();
+
+        assertEquals(2, task.get());
+        assertEquals(
+                List.of(
+                        "{\"timestamp\":1,\"level\":\"INFO\",\"thread\":\"thread\",\"logger\":\"logger\",\"message\":\"Say \\\"hi\\\"\\n\\\\\\u0001\",\"throwable\":null}",
+                        "{\"timestamp\":2,\"level\":\"ERROR\",\"thread\":\"thread\",\"logger\":\"logger\",\"message\":\"Failed\",\"throwable\":" +
+                                "{\"class\":\"java.lang.IllegalStateException\",\"message\":\"Outer\",\"stackTrace\":[\"a.B.run(B.java:12)\"],\"cause\":" +
+                                "{\"class\":\"java.io.IOException\",\"message\":null,\"stackTrace\":[],\"cause\":null}}}"
+                ),
+                Files.readAllLines(path, StandardCharsets.UTF_8)
+        );
+    }
+
+    @Test
+    void Check_Messages_Written_As_Csv() throws IOException, ExecutionException, InterruptedException {
+        LogStore logStore = new LogStore();
+        logStore.append(List.of(
+                new LogMessage("logger", 1, "thread", Level.INFO, "a, \"b\"", null),
+                new LogMessage("logger", 2, "thread", Level.ERROR, "Failed", createThrowable())
+        ), 0);
+        Path path = directory.resolve("log.csv");
+        LogExportTask task = new LogExportTask(logStore.getRows(), getSequenceNumbers(logStore), path, LogFormat.CSV, false);
+
+        task.run();
+
+        assertEquals(2, task.get());
+        String content = Files.readString(path, StandardCharsets.UTF_8);
+        assertTrue(content.startsWith(
+                "timestamp,level,thread,logger,message,throwableClass,throwableMessage,stackTrace\r\n" +
+                "1,INFO,thread,logger,\"a, \"\"b\"\"\",,,\r\n" +
+                "2,ERROR,thread,logger,Failed,java.lang.IllegalStateException,Outer,\"java.lang.IllegalStateException: Outer"
+        ));
+        assertTrue(content.endsWith("java.io.IOException" + System.lineSeparator() + "\"\r\n"));
+    }
+
+    private static Throwable createThrowable() {
+        IOException cause = new IOException();
+        cause.setStackTrace(new StackTraceElement[0]);
+        IllegalStateException throwable = new IllegalStateException("Outer", cause);
+        throwable.setStackTrace(new StackTraceElement[] {new StackTraceElement("a.B", "run", "B.java", 12)});
+        return throwable;
+    }
+
+    private static long[] getSequenceNumbers(LogStore logStore) {
+        return IntStream.range(0, logStore.size())
+                .mapToLong(logStore::getSequenceNumber)
+                .toArray();
+    }
+
+    private static List<LogMessage> createMessages(int from, int to) {
+        return IntStream.range(from, to)
+                .mapToObj(i -> new LogMessage("logger", i, "thread", i % 3 == 0 ? Level.INFO : Level.WARN, "message " + i, null))
+                .toList();
+    }
+
+    private static List<String> toReadableLines(List<LogMessage> logMessages) {
+        return logMessages.stream()
+                .map(LogMessage::toReadableString)
+                .toList();
+    }
+}
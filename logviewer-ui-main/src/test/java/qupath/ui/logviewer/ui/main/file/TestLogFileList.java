@@ -0,0 +1,62 @@
+package qupath.ui.logviewer.ui.main.file;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.event.Level;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+public class TestLogFileList {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void Check_Lines_Parsed_As_Messages() throws IOException {
+        Path path = Files.writeString(
+                directory.resolve("log.log"),
+                "12:00:00.000 [main] WARN a.B - Careful\nno level here\n12:00:01.000 [main] ERROR a.B - Failed",
+                StandardCharsets.UTF_8
+        );
+
+        try (MappedLogFile file = new MappedLogFile(path, progress -> {})) {
+            LogFileList logFileList = new LogFileList(file, LogLineParser.PLAIN, progress -> {});
+
+            assertEquals(3, logFileList.size());
+            assertEquals(Level.WARN, logFileList.get(0).level());
+            assertEquals(Level.INFO, logFileList.get(1).level());
+            assertEquals(Level.ERROR, logFileList.get(2).level());
+            assertEquals("no level here", logFileList.get(1).message());
+        }
+    }
+
+    @Test
+    void Check_Continuation_Lines_Added_To_Messages() throws IOException {
+        Path path = Files.writeString(
+                directory.resolve("log.log"),
+                "12:00:00.000 [main] ERROR a.B - Failed\r\njava.lang.RuntimeException: boom\r\n\tat a.B.run(B.java:1)\r\n12:00:01.000 [main] INFO a.B - Done\r\n",
+                StandardCharsets.UTF_8
+        );
+
+        try (MappedLogFile file = new MappedLogFile(path, progress -> {})) {
+            LogFileList logFileList = new LogFileList(
+                    file,
+                    LogLayoutParser.compile(LogLayoutParser.LOGBACK_PATTERN, LocalDate.of(2024, 1, 1)),
+                    progress -> {}
+            );
+
+            assertEquals(2, logFileList.size());
+            assertEquals("Failed\njava.lang.RuntimeException: boom\n\tat a.B.run(B.java:1)", logFileList.get(0).message());
+            assertEquals("Done", logFileList.get(1).message());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package qupath.ui.logviewer.ui.main.file;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+public class TestLogLayoutParser {
+
+    private static final LocalDate DEFAULT_DATE = LocalDate.of(2024, 3, 15);
+    @TempDir
+    private Path directory;
+
+    @Test
+    void Check_Logback_Line_Parsed() {
+        LogLayoutParser parser = compile(LogLayoutParser.LOGBACK_PATTERN);
+
+        LogMessage logMessage = parser.parse("10:20:30.456 [JavaFX Application Thread] WARN  qupath.lib.Foo - Careful - really");
+
+        assertEquals(
+                new LogMessage("qupath.lib.Foo", millis(2024, 3, 15, 10, 20, 30, 456), "JavaFX Application Thread", Level.WARN, "Careful - really", null),
+                logMessage
+        );
+    }
+
+    @Test
+    void Check_Reload4j_Line_Parsed() {
+        LogLayoutParser parser = compile(LogLayoutParser.RELOAD4J_PATTERN);
+
+        LogMessage logMessage = parser.parse("2023-12-31 23:59:59,001 [main] FATAL org.Bar - Stopped");
+
+        assertEquals(
+                new LogMessage("org.Bar", millis(2023, 12, 31, 23, 59, 59, 1), "main", Level.ERROR, "Stopped", null),
+                logMessage
+        );
+    }
+
+    @Test
+    void Check_Java_Util_Logging_Record_Parsed() {
+        LogLayoutParser parser = compile(LogLayoutParser.JUL_PATTERN);
+
+        LogMessage logMessage = parser.parse("Jan 05, 2024 3:04:05 PM com.example.Foo main\nSEVERE: Something failed");
+
+        assertEquals(
+                new LogMessage("com.example.Foo main", millis(2024, 1, 5, 15, 4, 5, 0), "", Level.ERROR, "Something failed", null),
+                logMessage
+        );
+    }
+
+    @Test
+    void Check_Continuation_Lines_Added_To_Message() {
+        LogLayoutParser parser = compile(LogLayoutParser.LOGBACK_PATTERN);
+
+        LogMessage logMessage = parser.parse("10:20:30.456 [main] ERROR a.B - Failed\njava.lang.RuntimeException\n\tat a.B.run(B.java:1)");
+
+        assertEquals("Failed\njava.lang.RuntimeException\n\tat a.B.run(B.java:1)", logMessage.message());
+    }
+
+    @Test
+    void Check_Continuation_Lines_Added_After_Two_Line_Record() {
+        LogLayoutParser parser = compile(LogLayoutParser.JUL_PATTERN);
+
+        LogMessage logMessage = parser.parse("Jan 05, 2024 3:04:05 AM a.B run\nWARNING: Failed\njava.io.IOException");
+
+        assertEquals(Level.WARN, logMessage.level());
+        assertEquals("Failed\njava.io.IOException", logMessage.message());
+    }
+
+    @Test
+    void Check_Padded_And_Composite_Fields_Parsed() {
+        LogLayoutParser parser = compile("%d{yyyy-MM-dd'T'HH:mm:ss, UTC} %highlight(%5level) [%15.15thread] %logger{0}: %m%n%ex");
+
+        LogMessage logMessage = parser.parse("2024-02-29T12:00:00  INFO [           main] Foo: Started");
+
+        assertEquals(
+                new LogMessage("Foo", LocalDateTime.of(2024, 2, 29, 12, 0).toInstant(ZoneOffset.UTC).toEpochMilli(), "main", Level.INFO, "Started", null),
+                logMessage
+        );
+    }
+
+    @Test
+    void Check_Date_Taken_From_Default_Date() {
+        LogLayoutParser parser = compile("%d{HH:mm} %msg");
+
+        LogMessage logMessage = parser.parse("08:15 Hello");
+
+        assertEquals(millis(2024, 3, 15, 8, 15, 0, 0), logMessage.timestamp());
+    }
+
+    @Test
+    void Check_Text_Not_Matching_Parsed_As_Plain_Text() {
+        LogLayoutParser parser = compile(LogLayoutParser.LOGBACK_PATTERN);
+
+        LogMessage logMessage = parser.parse("Not a log line, but an ERROR");
+
+        assertEquals(LogLineParser.PLAIN.parse("Not a log line, but an ERROR"), logMessage);
+    }
+
+    @Test
+    void Check_Message_Start_Detected() {
+        LogLayoutParser parser = compile(LogLayoutParser.LOGBACK_PATTERN);
+
+        assertTrue(parser.isMessageStart("10:20:30.456 [main] INFO  a.B - Hello"));
+        assertFalse(parser.isMessageStart("\tat a.B.run(B.java:1)"));
+        assertFalse(parser.isMessageStart("10:20:30.456 [main] NOTICE a.B - Unknown level"));
+        assertFalse(parser.isMessageStart("10:20 [main] INFO a.B - Wrong date"));
+    }
+
+    @Test
+    void Check_Invalid_Pattern_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> compile("%d %highlight(%level"));
+        assertThrows(IllegalArgumentException.class, () -> compile("%d{HH:mm %msg"));
+        assertThrows(IllegalArgumentException.class, () -> compile(""));
+    }
+
+    @Test
+    void Check_Preset_Detected() throws IOException {
+        Path path = Files.writeString(
+                directory.resolve("log.log"),
+                "Jan 05, 2024 3:04:05 PM a.B run\nINFO: Started\nJan 05, 2024 3:04:06 PM a.B run\nSEVERE: Failed\n",
+                StandardCharsets.UTF_8
+        );
+
+        try (MappedLogFile file = new MappedLogFile(path, progress -> {})) {
+            assertEquals(LogLayoutParser.JUL_PATTERN, LogLayoutParser.detectPattern(file, DEFAULT_DATE));
+        }
+    }
+
+    private static LogLayoutParser compile(String pattern) {
+        return LogLayoutParser.compile(pattern, DEFAULT_DATE, ZoneId.systemDefault(), Locale.ENGLISH);
+    }
+
+    private static long millis(int year, int month, int day, int hour, int minute, int second, int millisecond) {
+        return LocalDateTime.of(year, month, day, hour, minute, second, millisecond * 1_000_000)
+                .atZone(ZoneId.systemDefault())
+                .toInstant()
+                .toEpochMilli();
+    }
+}
@@ -0,0 +1,101 @@
+package qupath.ui.logviewer.ui.main.file;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+public class TestMappedLogFile {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void Check_Lines_Read() throws IOException {
+        Path path = write("first\nsecond\r\n\nlast\n");
+
+        try (MappedLogFile file = new MappedLogFile(path, progress -> {})) {
+            assertEquals(List.of("first", "second", "", "last"), readAllLines(file));
+        }
+    }
+
+    @Test
+    void Check_Last_Line_Without_Terminator_Read() throws IOException {
+        Path path = write("first\nlast");
+
+        try (MappedLogFile file = new MappedLogFile(path, progress -> {})) {
+            assertEquals(List.of("first", "last"), readAllLines(file));
+        }
+    }
+
+    @Test
+    void Check_Empty_File_Has_No_Line() throws IOException {
+        Path path = write("");
+
+        try (MappedLogFile file = new MappedLogFile(path, progress -> {})) {
+            assertEquals(0, file.getNumberOfLines());
+        }
+    }
+
+    @Test
+    void Check_Lines_Across_Chunks_And_Segments_Read() throws IOException {
+        List<String> lines = IntStream.range(0, 1000)
+                .mapToObj(i -> "line " + "\u00e9".repeat(i % 13))
+                .toList();
+        Path path = write(String.join("\n", lines));
+
+        try (MappedLogFile file = new MappedLogFile(path, 64, 8, progress -> {})) {
+            assertEquals(lines, readAllLines(file));
+        }
+    }
+
+    @Test
+    void Check_Line_Not_Read_When_Closed() throws IOException {
+        Path path = write("first\nlast");
+        MappedLogFile file = new MappedLogFile(path, progress -> {});
+
+        file.close();
+
+        assertThrows(IllegalStateException.class, () -> file.getLine(0));
+    }
+
+    @Test
+    void Check_Consecutive_Lines_Read_As_Text() throws IOException {
+        Path path = write("first\r\nsecond\r\nthird\r\n");
+
+        try (MappedLogFile file = new MappedLogFile(path, progress -> {})) {
+            assertEquals("second\nthird", file.getText(1, 3));
+            assertThrows(IndexOutOfBoundsException.class, () -> file.getText(1, 1));
+        }
+    }
+
+    @Test
+    void Check_Line_Tested_As_Bytes() throws IOException {
+        Path path = write("first\nd\u00e9j\u00e0\n");
+
+        try (MappedLogFile file = new MappedLogFile(path, progress -> {})) {
+            assertTrue(file.testLine(0, line -> line.toString().equals("first")));
+            assertTrue(file.testLine(1, line -> line.length() == 6 && line.charAt(0) == 'd'));
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(directory.resolve("log.log"), content, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> readAllLines(MappedLogFile file) {
+        return IntStream.range(0, file.getNumberOfLines())
+                .mapToObj(file::getLine)
+                .toList();
+    }
+}
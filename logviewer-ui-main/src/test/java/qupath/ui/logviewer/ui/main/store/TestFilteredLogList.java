@@ -0,0 +1,380 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.ui.main.JavaFXUtils;
+import qupath.ui.logviewer.ui.main.LogRetentionPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+public class TestFilteredLogList {
+
+    private static final LogRowPredicate NOT_INFO = (rows, i) -> rows.getLevel(i) != Level.INFO;
+    // Above the limit of synchronous evaluations and the threshold of parallel evaluations
+    private static final int LARGE_STORE_SIZE = 60_000;
+
+    @BeforeAll
+    static void initJfxRuntime() {
+        JavaFXUtils.initJfxRuntime();
+    }
+
+    @Test
+    void Check_All_Messages_Kept_By_Default() {
+        LogStore logStore = new LogStore();
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+
+        logStore.append(createMessages(0, 100), 0);
+
+        assertEquals(logStore, filteredLogList);
+    }
+
+    @Test
+    void Check_Appended_Messages_Filtered() {
+        LogStore logStore = new LogStore();
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        filteredLogList.setPredicate(NOT_INFO);
+
+        logStore.append(createMessages(0, 100), 0);
+
+        assertEquals(filter(createMessages(0, 100)), filteredLogList);
+    }
+
+    @Test
+    void Check_Existing_Messages_Filtered_When_Predicate_Set() {
+        LogStore logStore = new LogStore();
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        logStore.append(createMessages(0, 100), 0);
+
+        filteredLogList.setPredicate(NOT_INFO);
+
+        assertEquals(filter(createMessages(0, 100)), filteredLogList);
+    }
+
+    @Test
+    void Check_Narrowed_Predicate_Removes_Messages() {
+        LogStore logStore = new LogStore();
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        logStore.append(createMessages(0, 100), 0);
+
+        filteredLogList.narrowPredicate(NOT_INFO, NOT_INFO);
+
+        assertEquals(filter(createMessages(0, 100)), filteredLogList);
+    }
+
+    @Test
+    void Check_Widened_Predicate_Adds_Messages() {
+        LogStore logStore = new LogStore();
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        logStore.append(createMessages(0, 100), 0);
+        filteredLogList.setPredicate(NOT_INFO);
+
+        filteredLogList.widenPredicate(LogRowPredicate.ALWAYS_TRUE, NOT_INFO.negate());
+
+        assertEquals(createMessages(0, 100), filteredLogList);
+    }
+
+    @Test
+    void Check_Narrowed_Predicate_With_Bitmap_Removes_Messages() {
+        LogStore logStore = new LogStore();
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        logStore.append(createMessages(0, 100), 0);
+
+        filteredLogList.narrowPredicate(NOT_INFO, logStore.getLevelBitmap(Level.WARN));
+
+        assertEquals(filter(createMessages(0, 100)), filteredLogList);
+    }
+
+    @Test
+    void Check_Widened_Predicate_With_Bitmap_Adds_Messages() {
+        LogStore logStore = new LogStore();
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        logStore.append(createMessages(0, 100), 0);
+        filteredLogList.setPredicate(NOT_INFO);
+
+        filteredLogList.widenPredicate(LogRowPredicate.ALWAYS_TRUE, logStore.getLevelBitmap(Level.INFO), null);
+
+        assertEquals(createMessages(0, 100), filteredLogList);
+    }
+
+    @Test
+    void Check_Evicted_Messages_Removed() {
+        LogStore logStore = new LogStore();
+        logStore.setRetentionPolicy(LogRetentionPolicy.unlimited().withMaxMessages(10), 0);
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        filteredLogList.setPredicate(NOT_INFO);
+
+        logStore.append(createMessages(0, 100), 0);
+
+        assertEquals(filter(createMessages(90, 100)), filteredLogList);
+    }
+
+    @Test
+    void Check_Removed_Messages_Reported_When_Store_Cleared() {
+        LogStore logStore = new LogStore();
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        filteredLogList.setPredicate(NOT_INFO);
+        logStore.append(createMessages(0, 100), 0);
+        List<LogMessage> removed = new ArrayList<>();
+        filteredLogList.addListener((ListChangeListener<? super LogMessage>) change -> {
+            while (change.next()) {
+                removed.addAll(change.getRemoved());
+            }
+        });
+
+        logStore.clear();
+
+        assertTrue(filteredLogList.isEmpty());
+        assertEquals(filter(createMessages(0, 100)), removed);
+    }
+
+    @Test
+    void Check_Previous_Messages_Kept_When_Evaluation_Aborted() {
+        LogStore logStore = new LogStore();
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        logStore.append(createMessages(0, 100), 0);
+        filteredLogList.setPredicate(NOT_INFO);
+
+        filteredLogList.setPredicate((rows, i) -> {
+            throw new EvaluationAbortedException("Too expensive");
+        });
+        logStore.append(createMessages(100, 110), 0);
+
+        assertTrue(filteredLogList.getEvaluationAbortedProperty().get());
+        assertSame(NOT_INFO, filteredLogList.getPredicate());
+        assertEquals(filter(createMessages(0, 110)), filteredLogList);
+    }
+
+    @Test
+    void Check_Predicate_Notified_For_Each_Evaluation_And_Appended_Batch() {
+        LogStore logStore = new LogStore();
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        logStore.append(createMessages(0, 100), 0);
+        AtomicInteger numberOfEvaluations = new AtomicInteger(0);
+        LogRowPredicate predicate = new LogRowPredicate() {
+            @Override
+            public boolean test(LogRows rows, long sequenceNumber) {
+                return rows.getLevel(sequenceNumber) != Level.INFO;
+            }
+
+            @Override
+            public void onEvaluationStart() {
+                numberOfEvaluations.incrementAndGet();
+            }
+        };
+
+        filteredLogList.setPredicate(LogRowPredicate.ALWAYS_TRUE.and((rows, i) -> true).and(predicate));
+        logStore.append(createMessages(100, 110), 0);
+        logStore.append(createMessages(110, 120), 0);
+
+        assertEquals(3, numberOfEvaluations.get());
+        assertEquals(filter(createMessages(0, 120)), filteredLogList);
+    }
+
+    @Test
+    void Check_Large_Store_Filtered_In_Background_In_Sequence_Order() throws InterruptedException {
+        LogStore logStore = new LogStore();
+        logStore.append(createMessages(0, LARGE_STORE_SIZE), 0);
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        AtomicBoolean evaluatedInBackground = new AtomicBoolean(false);
+
+        runAndWaitForEvaluation(filteredLogList, () -> {
+            filteredLogList.setPredicate(NOT_INFO);
+            evaluatedInBackground.set(filteredLogList.getEvaluatingProperty().get());
+        });
+
+        assertTrue(evaluatedInBackground.get());
+        assertEquals(filter(createMessages(0, LARGE_STORE_SIZE)), filteredLogList);
+    }
+
+    @Test
+    void Check_Superseded_Evaluation_Not_Published() throws InterruptedException {
+        LogStore logStore = new LogStore();
+        logStore.append(createMessages(0, LARGE_STORE_SIZE), 0);
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        CountDownLatch supersededEvaluationStarted = new CountDownLatch(1);
+        CountDownLatch newPredicateSet = new CountDownLatch(1);
+        LogRowPredicate rejectAll = (rows, i) -> {
+            if (!Platform.isFxApplicationThread()) {
+                supersededEvaluationStarted.countDown();
+                await(newPredicateSet);
+            }
+            return false;
+        };
+        AtomicBoolean emptied = new AtomicBoolean(false);
+        filteredLogList.addListener((ListChangeListener<? super LogMessage>) change -> emptied.compareAndSet(false, filteredLogList.isEmpty()));
+
+        Platform.runLater(() -> filteredLogList.setPredicate(rejectAll));
+        assertTrue(supersededEvaluationStarted.await(10, TimeUnit.SECONDS));
+        runAndWaitForEvaluation(filteredLogList, () -> {
+            filteredLogList.setPredicate(NOT_INFO);
+            newPredicateSet.countDown();
+        });
+
+        assertFalse(emptied.get());
+        assertEquals(filter(createMessages(0, LARGE_STORE_SIZE)), filteredLogList);
+    }
+
+    @Test
+    void Check_Messages_Appended_During_Evaluation_Included_Once() throws InterruptedException {
+        LogStore logStore = new LogStore();
+        logStore.append(createMessages(0, LARGE_STORE_SIZE), 0);
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        CountDownLatch evaluationStarted = new CountDownLatch(1);
+        CountDownLatch messagesAppended = new CountDownLatch(1);
+        LogRowPredicate predicate = (rows, i) -> {
+            if (!Platform.isFxApplicationThread()) {
+                evaluationStarted.countDown();
+                await(messagesAppended);
+            }
+            return rows.getLevel(i) != Level.INFO;
+        };
+
+        Platform.runLater(() -> filteredLogList.setPredicate(predicate));
+        assertTrue(evaluationStarted.await(10, TimeUnit.SECONDS));
+        runAndWaitForEvaluation(filteredLogList, () -> {
+            logStore.append(createMessages(LARGE_STORE_SIZE, LARGE_STORE_SIZE + 100), 0);
+            messagesAppended.countDown();
+        });
+
+        assertEquals(filter(createMessages(0, LARGE_STORE_SIZE + 100)), filteredLogList);
+    }
+
+    @Test
+    void Check_Removed_Messages_Not_Created_When_Large_Store_Narrowed() throws InterruptedException {
+        AtomicInteger createdMessages = new AtomicInteger(0);
+        LogStore logStore = new LogStore() {
+            @Override
+            public LogMessage get(int index) {
+                createdMessages.incrementAndGet();
+                return super.get(index);
+            }
+        };
+        logStore.append(createMessages(0, LARGE_STORE_SIZE), 0);
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        AtomicInteger removedSize = new AtomicInteger(0);
+        AtomicBoolean removedAsViews = new AtomicBoolean(true);
+        filteredLogList.addListener((ListChangeListener<? super LogMessage>) change -> {
+            while (change.next()) {
+                if (change.wasRemoved()) {
+                    removedSize.addAndGet(change.getRemovedSize());
+                    removedAsViews.compareAndSet(true, change.getRemoved() instanceof LogRowList);
+                }
+            }
+        });
+
+        runAndWaitForEvaluation(filteredLogList, () -> filteredLogList.narrowPredicate(NOT_INFO, NOT_INFO));
+
+        assertEquals(0, createdMessages.get());
+        assertTrue(removedAsViews.get());
+        assertEquals(LARGE_STORE_SIZE / 3, removedSize.get());
+        assertEquals(filter(createMessages(0, LARGE_STORE_SIZE)), filteredLogList);
+    }
+
+    @Test
+    void Check_Head_Removed_Until_First_Matching_Message() {
+        LogStore logStore = new LogStore();
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        filteredLogList.setPredicate(NOT_INFO);
+        logStore.append(createMessages(0, 100), 0);
+        List<LogMessage> removed = new ArrayList<>();
+        AtomicBoolean removedAsView = new AtomicBoolean(false);
+        filteredLogList.addListener((ListChangeListener<? super LogMessage>) change -> {
+            while (change.next()) {
+                assertEquals(0, change.getFrom());
+                removedAsView.set(change.getRemoved() instanceof LogRowList);
+                removed.addAll(change.getRemoved());
+            }
+        });
+
+        filteredLogList.removeHead((rows, i) -> rows.getTimestamp(i) >= 40);
+
+        assertTrue(removedAsView.get());
+        assertEquals(filter(createMessages(0, 40)), removed);
+        assertEquals(filter(createMessages(40, 100)), filteredLogList);
+    }
+
+    @Test
+    void Check_Previous_And_Next_Messages_Of_Level_Found() {
+        LogStore logStore = new LogStore();
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        logStore.append(createMessages(0, 100), 0);
+
+        assertEquals(3, filteredLogList.getNextIndex(Level.INFO, 0));
+        assertEquals(3, filteredLogList.getPreviousIndex(Level.INFO, 5));
+        assertEquals(0, filteredLogList.getNextIndex(Level.INFO, -1));
+        assertEquals(99, filteredLogList.getPreviousIndex(Level.INFO, filteredLogList.size()));
+        assertEquals(-1, filteredLogList.getPreviousIndex(Level.INFO, 0));
+        assertEquals(-1, filteredLogList.getNextIndex(Level.ERROR, -1));
+    }
+
+    @Test
+    void Check_Level_Positions_Follow_Content() {
+        LogStore logStore = new LogStore();
+        logStore.setRetentionPolicy(LogRetentionPolicy.unlimited().withMaxMessages(50), 0);
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        logStore.append(createMessages(0, 50), 0);
+        logStore.append(createMessages(50, 100), 0);
+
+        assertEquals(1, filteredLogList.getNextIndex(Level.INFO, -1));
+
+        filteredLogList.setPredicate((rows, i) -> rows.getTimestamp(i) % 2 == 0);
+
+        assertEquals(2, filteredLogList.getNextIndex(Level.INFO, -1));
+        assertEquals(1, filteredLogList.getPreviousIndex(Level.WARN, 2));
+    }
+
+    /**
+     * Run an action on the JavaFX Application Thread, and wait until the evaluation it may have started is completed.
+     */
+    private static void runAndWaitForEvaluation(FilteredLogList filteredLogList, Runnable action) throws InterruptedException {
+        CountDownLatch evaluationCompleted = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            action.run();
+            if (filteredLogList.getEvaluatingProperty().get()) {
+                filteredLogList.getEvaluatingProperty().addListener((p, o, n) -> {
+                    if (!n) {
+                        evaluationCompleted.countDown();
+                    }
+                });
+            } else {
+                evaluationCompleted.countDown();
+            }
+        });
+        assertTrue(evaluationCompleted.await(10, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static List<LogMessage> createMessages(int from, int to) {
+        return IntStream.range(from, to)
+                .mapToObj(i -> new LogMessage("", i, "", i % 3 == 0 ? Level.INFO : Level.WARN, "message " + i, null))
+                .toList();
+    }
+
+    private static List<LogMessage> filter(List<LogMessage> logMessages) {
+        return logMessages.stream()
+                .filter(logMessage -> logMessage.level() != Level.INFO)
+                .toList();
+    }
+}
@@ -0,0 +1,74 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.ui.main.LogRetentionPolicy;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+public class TestLogFinder {
+
+    private static final LogRowPredicate CONTAINS_7 = (rows, i) -> rows.getMessage(i).contains("7");
+
+    @Test
+    void Check_Matches_Found_And_Navigated() {
+        LogStore logStore = new LogStore();
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        logStore.append(createMessages(0, 100), 0);
+        LogFinder logFinder = new LogFinder(filteredLogList);
+
+        logFinder.setPredicate(CONTAINS_7);
+
+        assertEquals(19, logFinder.getMatchCountProperty().get());
+        assertTrue(logFinder.isMatch(7));
+        assertFalse(logFinder.isMatch(8));
+        assertEquals(7, logFinder.getNextMatch(-1));
+        assertEquals(17, logFinder.getNextMatch(7));
+        assertEquals(7, logFinder.getPreviousMatch(17));
+        assertEquals(97, logFinder.getPreviousMatch(filteredLogList.size()));
+        assertEquals(-1, logFinder.getNextMatch(97));
+        assertEquals(1, logFinder.getMatchNumber(17));
+    }
+
+    @Test
+    void Check_Matches_Follow_Appended_And_Evicted_Messages() {
+        LogStore logStore = new LogStore();
+        logStore.setRetentionPolicy(LogRetentionPolicy.unlimited().withMaxMessages(50), 0);
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        LogFinder logFinder = new LogFinder(filteredLogList);
+        logFinder.setPredicate(CONTAINS_7);
+
+        logStore.append(createMessages(0, 50), 0);
+        logStore.append(createMessages(50, 100), 0);
+
+        assertEquals(14, logFinder.getMatchCountProperty().get());
+        assertEquals(7, logFinder.getNextMatch(-1));
+    }
+
+    @Test
+    void Check_Matches_Searched_Again_When_Filter_Changes() {
+        LogStore logStore = new LogStore();
+        FilteredLogList filteredLogList = new FilteredLogList(logStore);
+        logStore.append(createMessages(0, 100), 0);
+        LogFinder logFinder = new LogFinder(filteredLogList);
+        logFinder.setPredicate(CONTAINS_7);
+
+        filteredLogList.setPredicate((rows, i) -> rows.getLevel(i) != Level.INFO);
+
+        assertEquals(13, logFinder.getMatchCountProperty().get());
+        assertEquals(filteredLogList.indexOf(createMessages(17, 18).get(0)), logFinder.getNextMatch(filteredLogList.indexOf(createMessages(7, 8).get(0))));
+    }
+
+    private static List<LogMessage> createMessages(int from, int to) {
+        return IntStream.range(from, to)
+                .mapToObj(i -> new LogMessage("", i, "", i % 3 == 0 ? Level.INFO : Level.WARN, "message " + i, null))
+                .toList();
+    }
+}
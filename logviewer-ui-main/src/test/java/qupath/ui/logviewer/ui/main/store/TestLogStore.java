@@ -0,0 +1,172 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.ui.main.LogRetentionPolicy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+public class TestLogStore {
+
+    @Test
+    void Check_Messages_Appended_In_Order() {
+        LogStore logStore = new LogStore();
+
+        logStore.append(createMessages(0, 3000), 0);
+
+        assertEquals(createMessages(0, 3000), logStore);
+    }
+
+    @Test
+    void Check_Oldest_Messages_Evicted_When_Max_Messages_Exceeded() {
+        LogStore logStore = new LogStore();
+        logStore.setRetentionPolicy(LogRetentionPolicy.unlimited().withMaxMessages(10), 0);
+
+        logStore.append(createMessages(0, 8), 0);
+        logStore.append(createMessages(8, 13), 0);
+
+        assertEquals(createMessages(3, 13), logStore);
+    }
+
+    @Test
+    void Check_Only_Newest_Messages_Kept_When_Batch_Exceeds_Max_Messages() {
+        LogStore logStore = new LogStore();
+        logStore.setRetentionPolicy(LogRetentionPolicy.unlimited().withMaxMessages(10), 0);
+
+        logStore.append(createMessages(0, 5), 0);
+        logStore.append(createMessages(5, 30), 0);
+
+        assertEquals(createMessages(20, 30), logStore);
+    }
+
+    @Test
+    void Check_Eviction_And_Addition_Reported_In_One_Change() {
+        LogStore logStore = new LogStore();
+        logStore.setRetentionPolicy(LogRetentionPolicy.unlimited().withMaxMessages(10), 0);
+        logStore.append(createMessages(0, 10), 0);
+        AtomicInteger numberOfChanges = new AtomicInteger(0);
+        AtomicInteger removedSize = new AtomicInteger(0);
+        AtomicInteger addedSize = new AtomicInteger(0);
+        logStore.addListener((ListChangeListener<? super LogMessage>) change -> {
+            numberOfChanges.incrementAndGet();
+            while (change.next()) {
+                removedSize.addAndGet(change.getRemovedSize());
+                addedSize.addAndGet(change.getAddedSize());
+            }
+        });
+
+        logStore.append(createMessages(10, 14), 0);
+
+        assertEquals(1, numberOfChanges.get());
+        assertEquals(4, removedSize.get());
+        assertEquals(4, addedSize.get());
+    }
+
+    @Test
+    void Check_Evicted_Messages_Readable_While_Change_Reported() {
+        LogStore logStore = new LogStore();
+        logStore.setRetentionPolicy(LogRetentionPolicy.unlimited().withMaxMessages(1024), 0);
+        logStore.append(createMessages(0, 1024), 0);
+        List<LogMessage> removed = new ArrayList<>();
+        List<Level> removedLevels = new ArrayList<>();
+        logStore.addListener((ListChangeListener<? super LogMessage>) change -> {
+            while (change.next()) {
+                if (change.wasRemoved()) {
+                    removed.addAll(change.getRemoved());
+                    LogRowList removedRows = (LogRowList) change.getRemoved();
+                    for (int i=0; i<removedRows.size(); ++i) {
+                        removedLevels.add(removedRows.getLevel(i));
+                    }
+                }
+            }
+        });
+
+        logStore.append(createMessages(1024, 1524), 0);
+
+        assertEquals(createMessages(0, 500), removed);
+        assertEquals(createMessages(0, 500).stream().map(LogMessage::level).toList(), removedLevels);
+        assertEquals(createMessages(500, 1524), logStore);
+    }
+
+    @Test
+    void Check_Estimated_Bytes_Limited() {
+        LogStore logStore = new LogStore();
+        long messageSize = LogStore.estimateSize(createMessages(0, 1).get(0));
+        logStore.setRetentionPolicy(LogRetentionPolicy.unlimited().withMaxBytes(5 * messageSize), 0);
+
+        logStore.append(createMessages(0, 12), 0);
+
+        assertEquals(5, logStore.size());
+        assertEquals(5 * messageSize, logStore.getEstimatedBytes());
+    }
+
+    @Test
+    void Check_Old_Messages_Evicted_When_Trimmed() {
+        LogStore logStore = new LogStore();
+        logStore.append(createMessages(0, 100), 0);
+
+        logStore.setRetentionPolicy(LogRetentionPolicy.unlimited().withMaxAge(Duration.ofMillis(10)), 100);
+
+        assertEquals(createMessages(90, 100), logStore);
+    }
+
+    @Test
+    void Check_Store_Empty_After_Clear() {
+        LogStore logStore = new LogStore();
+        logStore.append(createMessages(0, 100), 0);
+
+        logStore.clear();
+
+        assertTrue(logStore.isEmpty());
+        assertEquals(0, logStore.getEstimatedBytes());
+    }
+
+    @Test
+    void Check_Removed_Messages_Reported_When_Cleared() {
+        LogStore logStore = new LogStore();
+        logStore.append(createMessages(0, 100), 0);
+        List<LogMessage> removed = new ArrayList<>();
+        logStore.addListener((ListChangeListener<? super LogMessage>) change -> {
+            while (change.next()) {
+                removed.addAll(change.getRemoved());
+            }
+        });
+
+        logStore.clear();
+
+        assertEquals(createMessages(0, 100), removed);
+    }
+
+    @Test
+    void Check_Message_Fields_Preserved() {
+        LogStore logStore = new LogStore();
+        List<LogMessage> logMessages = List.of(
+                new LogMessage("logger", 1, "thread", Level.ERROR, "caf\u00e9 \u65e5\u672c", new RuntimeException()),
+                new LogMessage(null, 2, null, Level.TRACE, null, null),
+                new LogMessage("logger", 3, "other thread", Level.WARN, "", null)
+        );
+
+        logStore.append(logMessages, 0);
+
+        assertEquals(logMessages, logStore);
+        assertEquals("other thread", logStore.getThreadName(2));
+        assertEquals(Level.TRACE, logStore.getLevel(1));
+    }
+
+    private static List<LogMessage> createMessages(int from, int to) {
+        return IntStream.range(from, to)
+                .mapToObj(i -> new LogMessage("", i, "", Level.INFO, "message " + (i % 10), null))
+                .toList();
+    }
+}
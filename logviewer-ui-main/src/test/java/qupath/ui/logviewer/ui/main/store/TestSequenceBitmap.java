@@ -0,0 +1,95 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+public class TestSequenceBitmap {
+
+    @Test
+    void Check_Added_Sequence_Numbers_Contained() {
+        SequenceBitmap bitmap = createBitmap(3, 70_000, 5);
+
+        assertTrue(bitmap.contains(70_000));
+        assertFalse(bitmap.contains(4));
+    }
+
+    @Test
+    void Check_Sequence_Numbers_Returned_In_Order() {
+        SequenceBitmap bitmap = createBitmap(3, 70_000, 5, 100_000);
+
+        long[] sequenceNumbers = bitmap.toArray(4, 100_000);
+
+        assertArrayEquals(new long[] {5, 70_000}, sequenceNumbers);
+    }
+
+    @Test
+    void Check_Cardinality_Of_Dense_Bitmap() {
+        SequenceBitmap bitmap = createBitmap(LongStream.range(0, 200_000).filter(i -> i % 3 != 0).toArray());
+
+        long cardinality = bitmap.cardinality(10, 150_000);
+
+        assertEquals(LongStream.range(10, 150_000).filter(i -> i % 3 != 0).count(), cardinality);
+    }
+
+    @Test
+    void Check_Range_Added() {
+        SequenceBitmap bitmap = new SequenceBitmap();
+
+        bitmap.addRange(10, 200_000);
+
+        assertEquals(200_000 - 10, bitmap.cardinality(0, 300_000));
+    }
+
+    @Test
+    void Check_Union() {
+        SequenceBitmap bitmap = createBitmap(1, 2, 100_000);
+        SequenceBitmap otherBitmap = createBitmap(2, 3, 200_000);
+
+        SequenceBitmap union = bitmap.or(otherBitmap);
+
+        assertArrayEquals(new long[] {1, 2, 3, 100_000, 200_000}, union.toArray(0, 300_000));
+    }
+
+    @Test
+    void Check_Intersection() {
+        SequenceBitmap bitmap = createBitmap(1, 2, 100_000);
+        SequenceBitmap otherBitmap = createBitmap(2, 3, 100_000);
+
+        SequenceBitmap intersection = bitmap.and(otherBitmap);
+
+        assertArrayEquals(new long[] {2, 100_000}, intersection.toArray(0, 300_000));
+    }
+
+    @Test
+    void Check_Chunks_Before_Sequence_Number_Removed() {
+        SequenceBitmap bitmap = createBitmap(1, 140_000, 200_000);
+
+        bitmap.removeBefore(150_000);
+
+        assertArrayEquals(new long[] {140_000, 200_000}, bitmap.toArray(0, 300_000));
+    }
+
+    @Test
+    void Check_Copy_Independent() {
+        SequenceBitmap bitmap = createBitmap(1, 2);
+        SequenceBitmap copy = bitmap.copy();
+
+        copy.add(3);
+
+        assertFalse(bitmap.contains(3));
+    }
+
+    private static SequenceBitmap createBitmap(long... sequenceNumbers) {
+        SequenceBitmap bitmap = new SequenceBitmap();
+        for (long sequenceNumber: sequenceNumbers) {
+            bitmap.add(sequenceNumber);
+        }
+        return bitmap;
+    }
+}
@@ -0,0 +1,70 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.ui.main.LogRetentionPolicy;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+public class TestTimestampIndex {
+
+    @Test
+    void Check_Seek_Finds_First_Message_At_Or_After_Timestamp() {
+        LogStore logStore = createStore(LongStream.range(0, 10_000).map(i -> 10 * i).toArray());
+
+        assertEquals(0, logStore.seek(-5));
+        assertEquals(501, logStore.seek(5005));
+        assertEquals(501, logStore.seek(5010));
+        assertEquals(10_000, logStore.seek(100_000));
+    }
+
+    @Test
+    void Check_Seek_Handles_Messages_Out_Of_Order() {
+        LogStore logStore = createStore(LongStream.range(0, 10_000).map(i -> i == 100 ? 5 : i == 8000 ? 200_000 : 10 * i).toArray());
+
+        assertEquals(101, logStore.seek(1000));
+        assertEquals(8000, logStore.seek(150_000));
+    }
+
+    @Test
+    void Check_Range_Contains_Messages_Within_Bounds() {
+        LogStore logStore = createStore(LongStream.range(0, 10_000).map(i -> i == 8000 ? 5 : 10 * i).toArray());
+
+        SequenceBitmap range = logStore.getTimeRangeBitmap(0, 40_000);
+
+        assertEquals(4002, range.cardinality(0, logStore.size()));
+        assertTrue(range.contains(8000));
+        assertFalse(range.contains(4001));
+    }
+
+    @Test
+    void Check_Evicted_Messages_Not_Found() {
+        LogStore logStore = new LogStore();
+        logStore.setRetentionPolicy(LogRetentionPolicy.unlimited().withMaxMessages(5000), 0);
+        logStore.append(LongStream.range(0, 5000).mapToObj(i -> createMessage(10 * i)).toList(), 0);
+        logStore.append(LongStream.range(5000, 10_000).mapToObj(i -> createMessage(10 * i)).toList(), 0);
+
+        assertEquals(0, logStore.seek(0));
+        assertEquals(
+                LongStream.range(5000, 10_000).boxed().toList(),
+                LongStream.of(logStore.getTimeRangeBitmap(0, 200_000).toArray(0, 10_000)).boxed().toList()
+        );
+    }
+
+    private static LogStore createStore(long... timestamps) {
+        LogStore logStore = new LogStore();
+        logStore.append(LongStream.of(timestamps).mapToObj(TestTimestampIndex::createMessage).toList(), 0);
+        return logStore;
+    }
+
+    private static LogMessage createMessage(long timestamp) {
+        return new LogMessage("", timestamp, "", Level.INFO, "", null);
+    }
+}
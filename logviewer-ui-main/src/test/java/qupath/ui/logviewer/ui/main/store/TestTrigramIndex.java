@@ -0,0 +1,95 @@
+package qupath.ui.logviewer.ui.main.store;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.ui.main.LogRetentionPolicy;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+public class TestTrigramIndex {
+
+    @Test
+    void Check_Messages_Containing_Text_Returned() {
+        LogStore logStore = createStore("Loading image", "Tile processed", "IMAGE saved", "im");
+        TrigramIndex trigramIndex = new TrigramIndex();
+        trigramIndex.update(logStore.getRows());
+
+        long[] candidates = trigramIndex.query("Image", 0, logStore.size());
+
+        assertArrayEquals(new long[] {0, 2}, candidates);
+    }
+
+    @Test
+    void Check_Messages_Not_Indexed_Returned() {
+        LogStore logStore = createStore("Loading image", "Tile processed");
+        TrigramIndex trigramIndex = new TrigramIndex();
+        trigramIndex.update(logStore.getRows());
+        logStore.append(List.of(createMessage("Unrelated")), 0);
+
+        long[] candidates = trigramIndex.query("image", 0, logStore.size());
+
+        assertArrayEquals(new long[] {0, 2}, candidates);
+    }
+
+    @Test
+    void Check_Evicted_Messages_Not_Returned() {
+        LogStore logStore = createStore("Loading image", "Tile processed", "Image saved");
+        TrigramIndex trigramIndex = new TrigramIndex();
+        trigramIndex.update(logStore.getRows());
+        logStore.setRetentionPolicy(LogRetentionPolicy.unlimited().withMaxMessages(2), 0);
+        trigramIndex.update(logStore.getRows());
+
+        long[] candidates = trigramIndex.query("image", logStore.getFirstSequenceNumber(), logStore.getFirstSequenceNumber() + logStore.size());
+
+        assertArrayEquals(new long[] {2}, candidates);
+    }
+
+    @Test
+    void Check_Messages_Found_Among_Many_Trigrams() {
+        LogStore logStore = new LogStore();
+        logStore.append(IntStream.range(0, 5000).mapToObj(i -> createMessage("Tile " + i + " processed")).toList(), 0);
+        TrigramIndex trigramIndex = new TrigramIndex();
+        trigramIndex.update(logStore.getRows());
+
+        long[] candidates = trigramIndex.query("tile 4321 ", 0, logStore.size());
+
+        assertArrayEquals(new long[] {4321}, candidates);
+    }
+
+    @Test
+    void Check_All_Messages_Returned_When_Index_Full() {
+        LogStore logStore = createStore("Loading image", "Tile processed", "Image saved");
+        TrigramIndex trigramIndex = new TrigramIndex(1);
+        trigramIndex.update(logStore.getRows());
+
+        long[] candidates = trigramIndex.query("image", 0, logStore.size());
+
+        assertArrayEquals(new long[] {0, 1, 2}, candidates);
+    }
+
+    @Test
+    void Check_Short_Or_Non_Ascii_Text_Cannot_Be_Queried() {
+        assertFalse(TrigramIndex.canQuery("ab"));
+        assertFalse(TrigramIndex.canQuery("été"));
+        assertTrue(TrigramIndex.canQuery("abc"));
+    }
+
+    private static LogStore createStore(String... messages) {
+        LogStore logStore = new LogStore();
+        for (String message: messages) {
+            logStore.append(List.of(createMessage(message)), 0);
+        }
+        return logStore;
+    }
+
+    private static LogMessage createMessage(String message) {
+        return new LogMessage("", 0, "", Level.INFO, message, null);
+    }
+}
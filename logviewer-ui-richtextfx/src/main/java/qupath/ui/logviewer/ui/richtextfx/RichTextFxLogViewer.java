@@ -1,9 +1,11 @@
 package qupath.ui.logviewer.ui.richtextfx;
 
 import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.api.dispatcher.LogMessageCoalescer;
 import qupath.ui.logviewer.api.listener.LoggerListener;
 import qupath.ui.logviewer.api.manager.LoggerManager;
 import javafx.application.Platform;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -22,6 +24,7 @@ public class RichTextFxLogViewer extends BorderPane implements LoggerListener {
     private static final StyleClassedTextArea textArea = new StyleClassedTextArea();
     private static final VirtualizedScrollPane<StyleClassedTextArea> scrollPane = new VirtualizedScrollPane<>(textArea);
     private final LoggerManager loggerManager;
+    private final LogMessageCoalescer pendingLogs = new LogMessageCoalescer(Platform::runLater, this::displayLogMessages);
 
     /**
      * Create a new RichConsoleLogViewer.
@@ -57,17 +60,27 @@ public class RichTextFxLogViewer extends BorderPane implements LoggerListener {
     /**
      * Displays a log message in the text area.
      * The color of the log message depends on its level.
+     * <p>
+     * Messages are grouped by a {@link LogMessageCoalescer}, and consecutive messages
+     * of the same level are appended to the text area at once.
      *
      * @param logMessage  the log message to display
      */
     @Override
     public void addLogMessage(LogMessage logMessage) {
-        if (Platform.isFxApplicationThread()) {
-            textArea.append(logMessage.toReadableString() + "\n", levelToCssClass(logMessage.level()));
-            textArea.requestFollowCaret();
-        } else {
-            Platform.runLater(() -> addLogMessage(logMessage));
-        }
+        pendingLogs.addLogMessage(logMessage);
+    }
+
+    /**
+     * Displays several log messages in the text area.
+     * Like {@link #addLogMessage(LogMessage) addLogMessage}, the messages are staged and
+     * appended later on the JavaFX Application Thread.
+     *
+     * @param logMessages  the log messages to display
+     */
+    @Override
+    public void addLogMessages(List<LogMessage> logMessages) {
+        pendingLogs.addLogMessages(logMessages);
     }
 
     /**
@@ -103,6 +116,24 @@ public class RichTextFxLogViewer extends BorderPane implements LoggerListener {
         return Optional.ofNullable(loggerManager);
     }
 
+    private void displayLogMessages(List<LogMessage> logMessages) {
+        // Consecutive messages of the same level share the same style, so they are appended at once
+        StringBuilder sb = new StringBuilder();
+        Level level = null;
+        for (LogMessage logMessage: logMessages) {
+            if (level != null && level != logMessage.level()) {
+                textArea.append(sb.toString(), levelToCssClass(level));
+                sb.setLength(0);
+            }
+            level = logMessage.level();
+            logMessage.appendTo(sb).append('\n');
+        }
+        if (level != null) {
+            textArea.append(sb.toString(), levelToCssClass(level));
+        }
+        textArea.requestFollowCaret();
+    }
+
     private String levelToCssClass(Level level) {
         return level.name().toLowerCase();
     }
@@ -1,12 +1,14 @@
 package qupath.ui.logviewer.ui.textarea;
 
 import qupath.ui.logviewer.api.LogMessage;
+import qupath.ui.logviewer.api.dispatcher.LogMessageCoalescer;
 import qupath.ui.logviewer.api.listener.LoggerListener;
 import qupath.ui.logviewer.api.manager.LoggerManager;
 import javafx.application.Platform;
 
 import javafx.scene.control.TextArea;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -17,6 +19,7 @@ import java.util.Optional;
 public class TextAreaLogViewer extends TextArea implements LoggerListener {
 
     private final LoggerManager loggerManager;
+    private final LogMessageCoalescer pendingLogs = new LogMessageCoalescer(Platform::runLater, this::displayLogMessages);
 
     /**
      * Create a new ConsoleLogViewer.
@@ -48,16 +51,27 @@ public class TextAreaLogViewer extends TextArea implements LoggerListener {
 
     /**
      * Displays a log message in the text area.
+     * <p>
+     * Messages logged in quick succession are grouped by a {@link LogMessageCoalescer},
+     * so the text area is updated once per group.
      *
      * @param logMessage  the log message to display
      */
     @Override
     public void addLogMessage(LogMessage logMessage) {
-        if (Platform.isFxApplicationThread()) {
-            appendText(logMessage.toReadableString() + "\n");
-        } else {
-            Platform.runLater(() -> addLogMessage(logMessage));
-        }
+        pendingLogs.addLogMessage(logMessage);
+    }
+
+    /**
+     * Displays several log messages in the text area.
+     * Like {@link #addLogMessage(LogMessage) addLogMessage}, the messages are staged and
+     * appended later on the JavaFX Application Thread.
+     *
+     * @param logMessages  the log messages to display
+     */
+    @Override
+    public void addLogMessages(List<LogMessage> logMessages) {
+        pendingLogs.addLogMessages(logMessages);
     }
 
     /**
@@ -92,4 +106,13 @@ public class TextAreaLogViewer extends TextArea implements LoggerListener {
     public Optional<LoggerManager> getLoggerManager() {
         return Optional.ofNullable(loggerManager);
     }
+
+    private void displayLogMessages(List<LogMessage> logMessages) {
+        // The text area is only updated once for the whole batch
+        StringBuilder sb = new StringBuilder();
+        for (LogMessage logMessage: logMessages) {
+            logMessage.appendTo(sb).append('\n');
+        }
+        appendText(sb.toString());
+    }
 }